@@ -0,0 +1,128 @@
+package onhardware.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+CLASSE -> CargaHttpBenchmark
+
+- Teste de carga contra uma instância em execução (não sobe a aplicação)
+- Mede vazão e latência (p50/p99 no modo SampleTime) das rotas de carrinho com muitos clientes simultâneos
+- Para comparar os modos, rodar uma vez com ONHARDWARE_THREADS_VIRTUAIS=false e outra com true:
+  ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args="CargaHttpBenchmark -t 400 -jvmArgsAppend -Donhardware.url=http://localhost:8080"
+- Todos os clientes saem do mesmo endereço: subir a instância com o limite por cliente acima da carga
+  (--onhardware.admissao.cliente.requisicoes-por-segundo=100000), senão a maior parte vira 429
+- Fica fora da execução padrão dos benchmarks (jmh.args exclui CargaHttp)
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Threads(400)
+@Fork(1)
+public class CargaHttpBenchmark {
+
+    private static final int QUANTIDADE_CARRINHOS = 200;
+    private static final Pattern ID_CARRINHO = Pattern.compile("\"idCarrinho\"\\s*:\\s*(\\d+)");
+    private static final Pattern ID_PRODUTO = Pattern.compile("\"idProduto\"\\s*:\\s*(\\d+)");
+
+    private String url;
+    private ExecutorService executor;
+    private HttpClient httpClient;
+    private long[] carrinhos;
+    private long idProduto;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        url = System.getProperty("onhardware.url", "http://localhost:8080");
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        httpClient = HttpClient.newBuilder()
+                .executor(executor)
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        String produto = enviar(HttpRequest.newBuilder(URI.create(url + "/produtos/cadastrar-produto"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("""
+                        {"nomeProduto":"Produto carga","marcaProduto":"Carga","modeloProduto":"CARGA-%d",
+                         "especificacaoProduto":"Teste de carga","precoProduto":99.90}
+                        """.formatted(System.nanoTime())))
+                .build());
+        idProduto = extrairId(ID_PRODUTO, produto);
+
+        carrinhos = new long[QUANTIDADE_CARRINHOS];
+        for (int i = 0; i < carrinhos.length; i++) {
+            String carrinho = enviar(HttpRequest.newBuilder(URI.create(url + "/carrinhos/criar-carrinho"))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build());
+            carrinhos[i] = extrairId(ID_CARRINHO, carrinho);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public int buscarCarrinho() throws IOException, InterruptedException {
+        return httpClient.send(HttpRequest.newBuilder(URI.create(url + "/carrinhos/buscar-carrinho/" + carrinhoAleatorio()))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    public int adicionarProduto() throws IOException, InterruptedException {
+        return httpClient.send(HttpRequest.newBuilder(URI.create(url + "/carrinhos/adicionar-produto-carrinho/" + carrinhoAleatorio() + "/produtos"))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString("{\"idProduto\":" + idProduto + ",\"quantidade\":1}"))
+                .build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private long carrinhoAleatorio() {
+        return carrinhos[ThreadLocalRandom.current().nextInt(carrinhos.length)];
+    }
+
+    private String enviar(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("Falha ao preparar a carga: " + response.statusCode() + " " + response.body());
+        }
+        return response.body();
+    }
+
+    private static long extrairId(Pattern padrao, String json) {
+        Matcher matcher = padrao.matcher(json);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Resposta sem ID: " + json);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+}
@@ -0,0 +1,88 @@
+package onhardware.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import onhardware.DTO.CarrinhoDTO;
+import onhardware.DTO.ProdutoCarrinhoDTO;
+import onhardware.model.Carrinho;
+import onhardware.model.ProdutoCarrinho;
+import onhardware.service.CarrinhoService;
+import onhardware.service.ProdutoCarrinhoService;
+import onhardware.service.ProdutoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Caminhos executados em toda requisição de carrinho, em função da quantidade de itens.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarrinhoBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int tamanhoCarrinho;
+
+    private CarrinhoService carrinhoService;
+    private ProdutoCarrinhoService produtoCarrinhoService;
+    private Carrinho carrinho;
+    private CarrinhoDTO carrinhoDTO;
+    private Long ultimoProduto;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        ProdutoService produtoService = DadosBenchmark.produtoService();
+        produtoCarrinhoService = DadosBenchmark.produtoCarrinhoService(produtoService);
+        carrinhoService = DadosBenchmark.carrinhoService(produtoCarrinhoService, produtoService);
+
+        carrinho = DadosBenchmark.carrinho(tamanhoCarrinho);
+        carrinhoDTO = carrinhoService.paraDTO(carrinho);
+        ultimoProduto = (long) tamanhoCarrinho;
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public CarrinhoDTO carrinhoParaDTO() {
+        return carrinhoService.paraDTO(carrinho);
+    }
+
+    @Benchmark
+    public void produtoCarrinhoParaDTO(Blackhole blackhole) {
+        for (ProdutoCarrinho item : carrinho.getProdutos()) {
+            ProdutoCarrinhoDTO itemDTO = produtoCarrinhoService.paraDTO(item);
+            blackhole.consume(itemDTO);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calcularValorTotalCarrinho() {
+        return carrinhoService.calcularValorTotalCarrinho(carrinho.getProdutos());
+    }
+
+    // Pior caso da busca linear: o produto procurado é o último do carrinho.
+    @Benchmark
+    public ProdutoCarrinho buscarProdutoCarrinho() {
+        return carrinhoService.buscarProdutoCarrinho(carrinho.getProdutos(), ultimoProduto);
+    }
+
+    @Benchmark
+    public byte[] serializarCarrinhoDTO() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(carrinhoDTO);
+    }
+}
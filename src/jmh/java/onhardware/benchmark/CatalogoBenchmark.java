@@ -0,0 +1,63 @@
+package onhardware.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import onhardware.DTO.ProdutoDTO;
+import onhardware.model.Produto;
+import onhardware.service.ProdutoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Mapeamento e serialização da listagem de produtos, em função do tamanho do catálogo.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogoBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int tamanhoCatalogo;
+
+    private ProdutoService produtoService;
+    private List<Produto> catalogo;
+    private List<ProdutoDTO> catalogoDTO;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        produtoService = DadosBenchmark.produtoService();
+        catalogo = DadosBenchmark.catalogo(tamanhoCatalogo);
+        catalogoDTO = produtosParaDTO();
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public List<ProdutoDTO> produtosParaDTO() {
+        List<ProdutoDTO> produtoDTOs = new ArrayList<>(catalogo.size());
+        for (Produto produto : catalogo) {
+            produtoDTOs.add(produtoService.paraDTO(produto));
+        }
+        return produtoDTOs;
+    }
+
+    @Benchmark
+    public byte[] serializarCatalogo() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(catalogoDTO);
+    }
+}
@@ -0,0 +1,75 @@
+package onhardware.benchmark;
+
+import onhardware.model.Carrinho;
+import onhardware.model.Produto;
+import onhardware.model.ProdutoCarrinho;
+import onhardware.service.CarrinhoService;
+import onhardware.service.ProdutoCarrinhoService;
+import onhardware.service.ProdutoService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+// Monta as entidades e os serviços usados pelos benchmarks, sem contexto Spring nem banco de dados.
+final class DadosBenchmark {
+
+    private DadosBenchmark() {
+    }
+
+    static List<Produto> catalogo(int tamanho) {
+        List<Produto> produtos = new ArrayList<>(tamanho);
+        for (int i = 1; i <= tamanho; i++) {
+            produtos.add(Produto.builder()
+                    .idProduto((long) i)
+                    .nomeProduto("Placa de vídeo " + i)
+                    .marcaProduto("Marca " + (i % 20))
+                    .modeloProduto("RTX-" + i)
+                    .especificacaoProduto("16GB GDDR6X, 256 bits, PCIe 4.0, três ventoinhas, RGB, backplate em alumínio, " +
+                            "duas saídas HDMI 2.1 e três DisplayPort 1.4a, consumo típico de 320W")
+                    .precoProduto(new BigDecimal("4999.90").add(BigDecimal.valueOf(i % 100)))
+                    .build());
+        }
+        return produtos;
+    }
+
+    static Carrinho carrinho(int tamanho) {
+        Carrinho carrinho = Carrinho.builder()
+                .idCarrinho(1L)
+                .produtos(new ArrayList<>(tamanho))
+                .valorTotalCarrinho(BigDecimal.ZERO)
+                .versao(0L)
+                .build();
+
+        long idItem = 1;
+        for (Produto produto : catalogo(tamanho)) {
+            int quantidade = 1 + (int) (idItem % 3);
+            carrinho.getProdutos().add(ProdutoCarrinho.builder()
+                    .idProdutoCarrinho(idItem++)
+                    .produto(produto)
+                    .carrinho(carrinho)
+                    .quantidade(quantidade)
+                    .precoTotal(produto.getPrecoProduto().multiply(BigDecimal.valueOf(quantidade)))
+                    .build());
+        }
+        return carrinho;
+    }
+
+    static ProdutoService produtoService() {
+        return new ProdutoService();
+    }
+
+    static ProdutoCarrinhoService produtoCarrinhoService(ProdutoService produtoService) {
+        ProdutoCarrinhoService produtoCarrinhoService = new ProdutoCarrinhoService();
+        ReflectionTestUtils.setField(produtoCarrinhoService, "produtoService", produtoService);
+        return produtoCarrinhoService;
+    }
+
+    static CarrinhoService carrinhoService(ProdutoCarrinhoService produtoCarrinhoService, ProdutoService produtoService) {
+        CarrinhoService carrinhoService = new CarrinhoService();
+        ReflectionTestUtils.setField(carrinhoService, "produtoCarrinhoService", produtoCarrinhoService);
+        ReflectionTestUtils.setField(carrinhoService, "produtoService", produtoService);
+        return carrinhoService;
+    }
+}
@@ -0,0 +1,104 @@
+package onhardware.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import onhardware.DTO.CarrinhoDTO;
+import onhardware.DTO.ProdutoDTO;
+import onhardware.model.Produto;
+import onhardware.service.CarrinhoService;
+import onhardware.service.ProdutoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Custo de serializar carrinho e catálogo em cada formato aceito pela API (SerializacaoConfig), com e sem o gzip
+// aplicado pelo Tomcat. Os tamanhos das respostas de cada combinação saem no início da execução.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializacaoBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String formato;
+
+    @Param({"false", "true"})
+    private boolean comprimir;
+
+    @Param({"10", "100", "1000"})
+    private int tamanho;
+
+    private ObjectMapper objectMapper;
+    private CarrinhoDTO carrinhoDTO;
+    private List<ProdutoDTO> catalogoDTO;
+    private byte[] carrinhoSerializado;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (formato.equals("cbor")) {
+            builder.factory(new CBORFactory());
+        } else if (formato.equals("smile")) {
+            builder.factory(new SmileFactory());
+        }
+        objectMapper = builder.build();
+
+        ProdutoService produtoService = DadosBenchmark.produtoService();
+        CarrinhoService carrinhoService = DadosBenchmark.carrinhoService(DadosBenchmark.produtoCarrinhoService(produtoService), produtoService);
+        carrinhoDTO = carrinhoService.paraDTO(DadosBenchmark.carrinho(tamanho));
+        catalogoDTO = new ArrayList<>(tamanho);
+        for (Produto produto : DadosBenchmark.catalogo(tamanho)) {
+            catalogoDTO.add(produtoService.paraDTO(produto));
+        }
+        carrinhoSerializado = objectMapper.writeValueAsBytes(carrinhoDTO);
+
+        System.out.printf("%n[tamanho da resposta] formato=%s comprimir=%s tamanho=%d: carrinho=%d bytes, catálogo=%d bytes%n",
+                formato, comprimir, tamanho, serializarCarrinho().length, serializarCatalogo().length);
+    }
+
+    @Benchmark
+    public byte[] serializarCarrinho() throws IOException {
+        return saida(objectMapper.writeValueAsBytes(carrinhoDTO));
+    }
+
+    @Benchmark
+    public byte[] serializarCatalogo() throws IOException {
+        return saida(objectMapper.writeValueAsBytes(catalogoDTO));
+    }
+
+    // Lado do cliente: ler o carrinho recebido (sem compressão, que não depende do formato)
+    @Benchmark
+    public CarrinhoDTO desserializarCarrinho() throws IOException {
+        return objectMapper.readValue(carrinhoSerializado, CarrinhoDTO.class);
+    }
+
+    private byte[] saida(byte[] corpo) throws IOException {
+        if (!comprimir) {
+            return corpo;
+        }
+        ByteArrayOutputStream comprimido = new ByteArrayOutputStream(corpo.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(comprimido)) {
+            gzip.write(corpo);
+        }
+        return comprimido.toByteArray();
+    }
+}
@@ -0,0 +1,16 @@
+package onhardware.DTO;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AtualizarCarrinhoLoteDTO {
+
+    @NotEmpty(message = "Informe ao menos uma operação.")
+    @Size(max = 500, message = "São permitidas no máximo 500 operações por requisição.")
+    private List<@Valid OperacaoCarrinhoDTO> operacoes;
+}
@@ -0,0 +1,20 @@
+package onhardware.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Produto encontrado pela busca, com apenas o necessário para ordenar, contar e montar as facetas.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CandidatoBuscaDTO {
+
+    private Long idProduto;
+
+    private String marcaProduto;
+
+    private double relevancia;
+}
@@ -0,0 +1,40 @@
+package onhardware.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Visão resumida do carrinho, montada direto pela consulta (sem carregar entidades).
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarrinhoResumoDTO {
+
+    private Long idCarrinho;
+
+    private BigDecimal valorTotalCarrinho;
+
+    private long quantidadeItens;
+
+    private boolean finalizado;
+
+    private LocalDateTime dataCompraFinalizada;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(description = "Itens do carrinho (apenas na busca de um carrinho; omitido nas listagens)")
+    private List<ItemCarrinhoResumoDTO> itens;
+
+    // Usado pelas consultas de CarrinhoRepository; os itens são preenchidos à parte
+    public CarrinhoResumoDTO(Long idCarrinho, BigDecimal valorTotalCarrinho, long quantidadeItens,
+                             boolean finalizado, LocalDateTime dataCompraFinalizada) {
+        this(idCarrinho, valorTotalCarrinho, quantidadeItens, finalizado, dataCompraFinalizada, null);
+    }
+}
@@ -0,0 +1,33 @@
+package onhardware.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import onhardware.model.StatusCheckout;
+
+import java.time.LocalDateTime;
+
+// Situação de uma finalização de compra, consultada em /carrinhos/checkouts/{idCheckout}.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CheckoutDTO {
+
+    private Long idCheckout;
+
+    private Long idCarrinho;
+
+    private StatusCheckout status;
+
+    private String mensagem;
+
+    private Long idPedido;
+
+    private LocalDateTime dataRegistro;
+
+    private LocalDateTime dataAtualizacao;
+}
@@ -0,0 +1,25 @@
+package onhardware.DTO;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstoqueDTO {
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY)
+    private Long idProduto;
+
+    @PositiveOrZero(message = "A quantidade disponível não pode ser negativa.")
+    @Schema(description = "Quantidade disponível para venda (fora das reservas)")
+    private long disponivel;
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "Quantidade reservada em carrinhos")
+    private long reservado;
+}
@@ -0,0 +1,17 @@
+package onhardware.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetaDTO {
+
+    private String valor;
+
+    private long quantidade;
+}
@@ -0,0 +1,24 @@
+package onhardware.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FiltroBuscaProdutoDTO {
+
+    private String termo;
+
+    private List<String> marcas;
+
+    private BigDecimal precoMinimo;
+
+    private BigDecimal precoMaximo;
+}
@@ -0,0 +1,23 @@
+package onhardware.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemCarrinhoResumoDTO {
+
+    private Long idProduto;
+
+    private String nomeProduto;
+
+    private int quantidade;
+
+    private BigDecimal precoTotal;
+}
@@ -0,0 +1,20 @@
+package onhardware.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Item de carrinho aberto com preço desatualizado, montado pela consulta de ProdutoCarrinhoRepository (ReprecificacaoService).
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemReprecificacaoDTO {
+
+    private Long idProduto;
+
+    private Long idProdutoCarrinho;
+
+    private Long idCarrinho;
+}
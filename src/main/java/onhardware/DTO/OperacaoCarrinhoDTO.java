@@ -0,0 +1,32 @@
+package onhardware.DTO;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperacaoCarrinhoDTO {
+
+    public enum TipoOperacao {
+        ADICIONAR,
+        REMOVER,
+        DEFINIR_QUANTIDADE
+    }
+
+    @NotNull(message = "O tipo da operação é obrigatório.")
+    @Schema(description = "ADICIONAR soma a quantidade, REMOVER tira o produto do carrinho e DEFINIR_QUANTIDADE substitui a quantidade (0 remove)")
+    private TipoOperacao tipo;
+
+    @NotNull(message = "O ID do produto é obrigatório.")
+    private Long idProduto;
+
+    @Min(value = 0, message = "A quantidade não pode ser negativa.")
+    private int quantidade;
+}
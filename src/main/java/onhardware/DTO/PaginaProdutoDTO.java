@@ -0,0 +1,26 @@
+package onhardware.DTO;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaProdutoDTO<T> {
+
+    @ArraySchema(arraySchema = @Schema(description = "Produtos da página atual, ordenados por ID (ProdutoDTO na visão COMPLETA, ProdutoResumoDTO na RESUMO)"),
+            schema = @Schema(oneOf = {ProdutoDTO.class, ProdutoResumoDTO.class}))
+    private List<T> produtos;
+
+    @Schema(description = "Cursor para buscar a próxima página (nulo quando não há mais produtos)")
+    private String proximoCursor;
+
+    private boolean possuiProximaPagina;
+}
@@ -6,13 +6,18 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class ProdutoDTO {
 
     @Schema(accessMode = Schema.AccessMode.READ_ONLY, description = "ID do produto (gerado automaticamente)")
@@ -34,4 +39,13 @@ public class ProdutoDTO {
     @NotNull(message = "O preço do produto é obrigatório.")
     @Positive(message = "O preço do produto deve ser maior que zero.")
     private BigDecimal precoProduto;
+
+    // Validadores da resposta HTTP (Last-Modified/ETag): vão nos cabeçalhos, não no corpo
+    @JsonIgnore
+    @Schema(hidden = true)
+    private LocalDateTime dataAtualizacaoProduto;
+
+    @JsonIgnore
+    @Schema(hidden = true)
+    private Long versao;
 }
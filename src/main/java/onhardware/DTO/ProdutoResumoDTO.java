@@ -0,0 +1,24 @@
+package onhardware.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Visão de lista do produto, montada direto pela consulta (sem carregar a entidade).
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProdutoResumoDTO {
+
+    private Long idProduto;
+
+    private String nomeProduto;
+
+    private String marcaProduto;
+
+    private BigDecimal precoProduto;
+}
@@ -0,0 +1,35 @@
+package onhardware.DTO;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoBuscaProdutoDTO {
+
+    @Schema(description = "Produtos da página, do mais para o menos relevante")
+    private List<ProdutoDTO> produtos;
+
+    @Schema(description = "Total de produtos encontrados com os filtros informados (limitado a 10.000)")
+    private long totalProdutos;
+
+    @Schema(description = "Falso quando a busca encontrou mais produtos do que o total informado")
+    private boolean totalExato;
+
+    @Schema(description = "Termo efetivamente buscado quando o informado não encontrou nada e foi corrigido (ex.: \"gefroce\" -> \"geforce\")")
+    private String termoCorrigido;
+
+    private int pagina;
+
+    private int tamanho;
+
+    @Schema(description = "Quantidade de produtos por marca (considera o termo e a faixa de preço, mas não o filtro de marca)")
+    private List<FacetaDTO> facetasMarca;
+}
@@ -0,0 +1,35 @@
+package onhardware.DTO;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoImportacaoDTO {
+
+    private long linhasLidas;
+
+    private long produtosCriados;
+
+    private long produtosAtualizados;
+
+    private long linhasComErro;
+
+    @Schema(description = "Erros por linha (limitado às primeiras ocorrências)")
+    private List<ErroImportacaoDTO> erros;
+
+    @Schema(description = "Última linha do arquivo já processada; os produtos válidos até ela estão gravados")
+    private long ultimaLinhaGravada;
+
+    @Schema(description = "A gravação de um lote falhou e a importação parou antes do fim do arquivo")
+    private boolean interrompida;
+
+    private String motivoInterrupcao;
+}
@@ -0,0 +1,30 @@
+package onhardware.DTO;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumoVendasDTO {
+
+    private long pedidos;
+
+    private long unidades;
+
+    private BigDecimal valorTotal;
+
+    @Schema(description = "Valor médio por pedido no período (valorTotal / pedidos)")
+    private BigDecimal ticketMedio;
+
+    // Usado pela consulta de VendaDiaRepository; o ticket médio é calculado no serviço
+    public ResumoVendasDTO(long pedidos, long unidades, BigDecimal valorTotal) {
+        this(pedidos, unidades, valorTotal, null);
+    }
+}
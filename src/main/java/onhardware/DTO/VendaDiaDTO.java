@@ -0,0 +1,30 @@
+package onhardware.DTO;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendaDiaDTO {
+
+    @JsonFormat(pattern = "dd/MM/yyyy")
+    private LocalDate dia;
+
+    private long pedidos;
+
+    private long unidades;
+
+    private BigDecimal valorTotal;
+
+    @Schema(description = "Valor médio por pedido (valorTotal / pedidos)")
+    private BigDecimal ticketMedio;
+}
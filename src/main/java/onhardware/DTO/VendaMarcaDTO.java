@@ -0,0 +1,21 @@
+package onhardware.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendaMarcaDTO {
+
+    private String marcaProduto;
+
+    private long unidades;
+
+    private BigDecimal valorTotal;
+}
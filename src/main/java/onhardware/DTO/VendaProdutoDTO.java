@@ -0,0 +1,25 @@
+package onhardware.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendaProdutoDTO {
+
+    private Long idProduto;
+
+    private String nomeProduto;
+
+    private String marcaProduto;
+
+    private long unidades;
+
+    private BigDecimal valorTotal;
+}
@@ -0,0 +1,42 @@
+package onhardware.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/*
+Validadores da resposta de um carrinho (ETag/Last-Modified), montados pela consulta de CarrinhoRepository.
+
+- O corpo do carrinho muda quando o próprio carrinho muda (versão) ou quando muda algum produto dos itens
+  (nome, preço...): por isso a soma das versões dos produtos também entra no ETag
+- A última atualização é a mais recente entre o carrinho e os produtos dos itens
+ */
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VersaoCarrinhoDTO {
+
+    private Long versaoCarrinho;
+
+    private Long somaVersoesProdutos;
+
+    private LocalDateTime ultimaAtualizacao;
+
+    public VersaoCarrinhoDTO(Long versaoCarrinho, LocalDateTime dataAtualizacaoCarrinho,
+                             Long somaVersoesProdutos, LocalDateTime dataAtualizacaoProdutos) {
+        this.versaoCarrinho = versaoCarrinho;
+        this.somaVersoesProdutos = somaVersoesProdutos;
+        this.ultimaAtualizacao = dataAtualizacaoProdutos != null && (dataAtualizacaoCarrinho == null || dataAtualizacaoProdutos.isAfter(dataAtualizacaoCarrinho))
+                ? dataAtualizacaoProdutos
+                : dataAtualizacaoCarrinho;
+    }
+
+    public String etag(Visao visao) {
+        return versaoCarrinho + "-" + somaVersoesProdutos + "-" + visao.name().toLowerCase();
+    }
+}
@@ -0,0 +1,8 @@
+package onhardware.DTO;
+
+// Nível de detalhe das respostas de leitura, escolhido por quem chama a API (?visao=RESUMO).
+public enum Visao {
+    // Apenas o necessário para listas: sem especificação, modelo ou produtos completos dos itens
+    RESUMO,
+    COMPLETA
+}
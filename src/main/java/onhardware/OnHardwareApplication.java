@@ -2,7 +2,14 @@ package onhardware;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+// Cache por fora da transação: a invalidação só acontece depois do commit, e uma leitura entre a invalidação
+// e o commit não devolve ao cache a linha antiga
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+@EnableScheduling
 @SpringBootApplication
 public class OnHardwareApplication {
 	public static void main(String[] args) {
@@ -0,0 +1,37 @@
+package onhardware.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "onhardware.admissao.habilitada", havingValue = "true")
+public class AdmissaoConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdmissaoRequisicoesFilter> admissaoRequisicoesFilter(
+            @Value("${onhardware.admissao.limite-inicial}") int limiteInicial,
+            @Value("${onhardware.admissao.limite-minimo:2}") int limiteMinimo,
+            @Value("${onhardware.admissao.limite-maximo:100}") int limiteMaximo,
+            @Value("${onhardware.admissao.tolerancia-latencia:2.0}") double toleranciaLatencia,
+            @Value("${onhardware.admissao.limite-total:${spring.datasource.hikari.maximum-pool-size:10}}") int limiteTotal,
+            @Value("${onhardware.admissao.limite-exportacao:2}") int limiteExportacao,
+            @Value("${onhardware.admissao.reserva-checkout:2}") int reservaCheckout,
+            @Value("${onhardware.admissao.espera-maxima:200ms}") Duration esperaMaxima,
+            @Value("${onhardware.admissao.cliente.requisicoes-por-segundo:50}") double requisicoesPorSegundo,
+            @Value("${onhardware.admissao.cliente.rajada:100}") int rajada,
+            MeterRegistry meterRegistry) {
+        AdmissaoRequisicoesFilter filtro = new AdmissaoRequisicoesFilter(limiteInicial, limiteMinimo, limiteMaximo, toleranciaLatencia,
+                limiteTotal, limiteExportacao, reservaCheckout, esperaMaxima, new LimitePorCliente(requisicoesPorSegundo, rajada), meterRegistry);
+        FilterRegistrationBean<AdmissaoRequisicoesFilter> registro = new FilterRegistrationBean<>(filtro);
+        // Antes da contagem de SQL e de qualquer trabalho da requisição
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registro;
+    }
+}
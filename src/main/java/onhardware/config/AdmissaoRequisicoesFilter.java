@@ -0,0 +1,276 @@
+package onhardware.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+CLASSE -> AdmissaoRequisicoesFilter
+
+- Primeiro, o limite por cliente (LimitePorCliente): quem passou da sua taxa recebe 429 com Retry-After
+- Depois, o limite de requisições simultâneas da classe da requisição (catálogo, carrinho ou finalização), cada uma
+  com o seu LimiteAdaptativo: uma enxurrada de leituras do catálogo ou de alterações de carrinho não tira as vagas
+  das finalizações de compra
+- Sem vaga dentro da espera máxima, responde 503 com Retry-After em vez de ficar presa esperando uma conexão do Hikari;
+  a espera é curta de propósito: sob sobrecarga, recusar rápido mantém a latência de quem foi admitido
+- Os limites começam no tamanho do pool de conexões e se ajustam pela latência de cada classe: caem quando as
+  respostas ficam lentas (fila no pool) ou falham por sobrecarga, e sobem enquanto estão rápidas
+- Falha por sobrecarga é um 503 ou uma conexão do pool ou trava do banco não obtida a tempo; erros de negócio
+  (produto inexistente, estoque insuficiente) não reduzem o limite
+- Além do limite da classe, a soma das requisições em andamento não passa do limite total (o tamanho do pool),
+  e catálogo e carrinho deixam livres as vagas reservadas às finalizações de compra
+- Exportações em streaming (Accept NDJSON) têm classe própria, com limite fixo (limite-exportacao) e fora do limite
+  total: um download longo ocupa uma conexão do pool pelo envio inteiro, então as demais classes dividem o restante
+  do pool, e poucos clientes exportando não tiram as vagas do catálogo e do carrinho
+- Respostas assíncronas só devolvem a vaga ao terminar o envio, mas a latência usada no ajuste é a do início da resposta
+  (quando o controller entrega o corpo): a duração do download depende do cliente, não da carga do servidor
+- Com threads virtuais não há mais o limite natural das 200 threads do Tomcat; sem este filtro,
+  milhares de requisições disputariam as poucas conexões do pool até estourar o connection-timeout
+ */
+
+public class AdmissaoRequisicoesFilter extends OncePerRequestFilter {
+
+    public enum ClasseRequisicao {
+        CATALOGO, CARRINHO, CHECKOUT, EXPORTACAO;
+
+        static ClasseRequisicao de(HttpServletRequest request) {
+            String aceita = request.getHeader(HttpHeaders.ACCEPT);
+            if (aceita != null && aceita.contains(MediaType.APPLICATION_NDJSON_VALUE)) {
+                return EXPORTACAO;
+            }
+            String caminho = request.getRequestURI();
+            if (caminho.startsWith("/carrinhos/finalizar-compra") || caminho.startsWith("/carrinhos/checkouts")) {
+                return CHECKOUT;
+            }
+            if (caminho.startsWith("/carrinhos")) {
+                return CARRINHO;
+            }
+            return CATALOGO;
+        }
+
+        String etiqueta() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final Map<ClasseRequisicao, LimiteAdaptativo> limites = new EnumMap<>(ClasseRequisicao.class);
+    private final LimiteAdaptativo limiteTotal;
+    private final int reservaCheckout;
+    private final LimitePorCliente limitePorCliente;
+    private final long esperaMaximaNanos;
+    private final MeterRegistry meterRegistry;
+
+    public AdmissaoRequisicoesFilter(int limiteInicial, int limiteMinimo, int limiteMaximo, double toleranciaLatencia,
+                                     int limiteTotal, int limiteExportacao, int reservaCheckout, Duration esperaMaxima,
+                                     LimitePorCliente limitePorCliente, MeterRegistry meterRegistry) {
+        this.limitePorCliente = limitePorCliente;
+        this.esperaMaximaNanos = esperaMaxima.toNanos();
+        this.meterRegistry = meterRegistry;
+        // Fixos (mínimo = máximo): as exportações ficam com a parte delas do pool e as demais classes com o restante;
+        // a reserva nunca toma todas as vagas de catálogo e carrinho
+        int totalExportacao = Math.max(1, limiteExportacao);
+        int totalDemais = Math.max(2, limiteTotal - totalExportacao);
+        this.limiteTotal = new LimiteAdaptativo(totalDemais, totalDemais, totalDemais, toleranciaLatencia);
+        this.reservaCheckout = Math.min(Math.max(0, reservaCheckout), totalDemais - 1);
+
+        Gauge.builder("onhardware.admissao.total-em-andamento", this.limiteTotal, LimiteAdaptativo::emAndamento)
+                .description("Requisições em andamento somando as classes, exceto exportações")
+                .register(meterRegistry);
+
+        for (ClasseRequisicao classe : ClasseRequisicao.values()) {
+            LimiteAdaptativo limite = classe == ClasseRequisicao.EXPORTACAO
+                    ? new LimiteAdaptativo(totalExportacao, totalExportacao, totalExportacao, toleranciaLatencia)
+                    : new LimiteAdaptativo(limiteInicial, limiteMinimo, limiteMaximo, toleranciaLatencia);
+            limites.put(classe, limite);
+
+            Gauge.builder("onhardware.admissao.limite", limite, LimiteAdaptativo::limite)
+                    .description("Requisições simultâneas admitidas, ajustado pela latência")
+                    .tag("classe", classe.etiqueta())
+                    .register(meterRegistry);
+            Gauge.builder("onhardware.admissao.em-andamento", limite, LimiteAdaptativo::emAndamento)
+                    .tag("classe", classe.etiqueta())
+                    .register(meterRegistry);
+            Gauge.builder("onhardware.admissao.fila", limite, LimiteAdaptativo::aguardando)
+                    .description("Requisições aguardando vaga")
+                    .tag("classe", classe.etiqueta())
+                    .register(meterRegistry);
+            Gauge.builder("onhardware.admissao.latencia", limite, LimiteAdaptativo::latenciaRecenteMillis)
+                    .description("Média recente da latência usada para ajustar o limite")
+                    .baseUnit("milliseconds")
+                    .tag("classe", classe.etiqueta())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ClasseRequisicao classe = ClasseRequisicao.de(request);
+
+        long esperaFicha = limitePorCliente.consumir(request.getRemoteAddr());
+        if (esperaFicha > 0) {
+            recusar(response, classe, "limite-cliente", 429, segundosAte(esperaFicha),
+                    "Muitas requisições. Tente novamente em instantes.");
+            return;
+        }
+
+        LimiteAdaptativo limite = limites.get(classe);
+        // Exportação não entra no limite total: tem a parte dela do pool
+        LimiteAdaptativo total = classe == ClasseRequisicao.EXPORTACAO ? null : limiteTotal;
+        if (!entrar(limite, total, classe == ClasseRequisicao.CHECKOUT ? 0 : reservaCheckout)) {
+            recusar(response, classe, "sobrecarga", HttpServletResponse.SC_SERVICE_UNAVAILABLE, 1,
+                    "Servidor ocupado. Tente novamente em instantes.");
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        boolean falhou = false;
+        boolean assincrona = false;
+        try {
+            filterChain.doFilter(request, response);
+            falhou = response.getStatus() == HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+            // Resposta assíncrona (ex.: StreamingResponseBody): a vaga fica ocupada até o fim do envio,
+            // com a latência medida até aqui
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new LiberacaoAssincrona(limite, total, System.nanoTime() - inicio));
+                assincrona = true;
+            }
+        } catch (ServletException | IOException | RuntimeException e) {
+            falhou = sobrecarga(e);
+            throw e;
+        } finally {
+            if (!assincrona) {
+                sair(limite, total, System.nanoTime() - inicio, falhou);
+            }
+        }
+    }
+
+    // Vaga na classe e no total (se houver), dentro da mesma espera máxima; sem as duas, não fica com nenhuma
+    private boolean entrar(LimiteAdaptativo limite, LimiteAdaptativo total, int reserva) {
+        long prazo = System.nanoTime() + esperaMaximaNanos;
+        try {
+            if (!limite.entrar(esperaMaximaNanos)) {
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        if (total == null) {
+            return true;
+        }
+        try {
+            if (total.entrar(prazo - System.nanoTime(), reserva)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        limite.devolver();
+        return false;
+    }
+
+    private static void sair(LimiteAdaptativo limite, LimiteAdaptativo total, long latencia, boolean falhou) {
+        if (total != null) {
+            total.sair(latencia, falhou);
+        }
+        limite.sair(latencia, falhou);
+    }
+
+    // Conexão do pool ou trava do banco não obtida a tempo, em qualquer ponto da cadeia de causas
+    private static boolean sobrecarga(Throwable erro) {
+        for (Throwable causa = erro; causa != null; causa = causa.getCause()) {
+            if (causa instanceof CannotGetJdbcConnectionException || causa instanceof CannotAcquireLockException
+                    || causa instanceof SQLTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void recusar(HttpServletResponse response, ClasseRequisicao classe, String motivo, int status,
+                         long retryAfterSegundos, String mensagem) throws IOException {
+        Counter.builder("onhardware.admissao.rejeitadas")
+                .description("Requisições recusadas por excesso de concorrência ou de requisições do cliente")
+                .tag("classe", classe.etiqueta())
+                .tag("motivo", motivo)
+                .register(meterRegistry)
+                .increment();
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSegundos));
+        response.sendError(status, mensagem);
+    }
+
+    // Devolve a vaga uma única vez, quando a resposta assíncrona termina, falha ou expira
+    private static class LiberacaoAssincrona implements AsyncListener {
+
+        private final LimiteAdaptativo limite;
+        private final LimiteAdaptativo total;
+        // Até o início da resposta: o tempo do envio não entra na latência
+        private final long latencia;
+        private final AtomicBoolean liberada = new AtomicBoolean();
+
+        LiberacaoAssincrona(LimiteAdaptativo limite, LimiteAdaptativo total, long latencia) {
+            this.limite = limite;
+            this.total = total;
+            this.latencia = latencia;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+            liberar(response != null && response.getStatus() == HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            liberar(sobrecarga(event.getThrowable()));
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // Envio que não termina no prazo: trata como lentidão do servidor
+            liberar(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Um novo ciclo assíncrono descarta os ouvintes do anterior
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void liberar(boolean falhou) {
+            if (liberada.compareAndSet(false, true)) {
+                sair(limite, total, latencia, falhou);
+            }
+        }
+    }
+
+    private static long segundosAte(long nanos) {
+        return Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,35 @@
+package onhardware.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/*
+CLASSE -> ContadorComandosSql
+
+- Conta os comandos SQL preparados pelo Hibernate na thread da requisição atual
+- Só conta quando a contagem foi iniciada (pelo ContadorComandosSqlFilter); fora disso não faz nada
+- Não altera o SQL
+ */
+
+public class ContadorComandosSql implements StatementInspector {
+
+    private static final ThreadLocal<int[]> CONTADOR = new ThreadLocal<>();
+
+    static void iniciar() {
+        CONTADOR.set(new int[1]);
+    }
+
+    static int encerrar() {
+        int[] contador = CONTADOR.get();
+        CONTADOR.remove();
+        return contador == null ? 0 : contador[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] contador = CONTADOR.get();
+        if (contador != null) {
+            contador[0]++;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,57 @@
+package onhardware.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/*
+CLASSE -> ContadorComandosSqlFilter
+
+- Registra quantos comandos SQL cada requisição executou (onhardware.http.comandos.sql)
+- Etiquetas de baixa cardinalidade: método HTTP e padrão da rota (ex.: /carrinhos/buscar-carrinho/{id})
+- Permite ver qual endpoint passou a fazer mais consultas (ex.: um N+1 que voltou)
+ */
+
+public class ContadorComandosSqlFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    public ContadorComandosSqlFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // A coleta de métricas não entra na conta
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContadorComandosSql.iniciar();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int comandos = ContadorComandosSql.encerrar();
+
+            Object rota = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("onhardware.http.comandos.sql")
+                    .description("Comandos SQL executados por requisição")
+                    .baseUnit("comandos")
+                    .tag("method", request.getMethod())
+                    .tag("uri", rota == null ? "UNKNOWN" : rota.toString())
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(500.0)
+                    .register(meterRegistry)
+                    .record(comandos);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package onhardware.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/*
+CLASSE -> DataSourceConfig
+
+- Ativa só quando onhardware.datasource.replica.url é informado; sem ela, vale o DataSource padrão do Spring Boot
+- Transações somente leitura (@Transactional(readOnly = true)) usam a réplica; as demais, o banco principal
+- O LazyConnectionDataSourceProxy só pega a conexão real no primeiro comando, quando já se sabe se a
+  transação é somente leitura
+- Leituras na réplica podem estar alguns instantes atrasadas em relação ao principal (replicação assíncrona);
+  por isso as consultas que preenchem cache e a versão do carrinho (ETag) usam @Transactional comum e ficam no principal
+ */
+
+@Configuration
+@ConditionalOnProperty(prefix = "onhardware.datasource.replica", name = "url")
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrincipal(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("principal");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("onhardware.datasource.replica.hikari")
+    public HikariDataSource dataSourceReplica(@Value("${onhardware.datasource.replica.url}") String url,
+                                              @Value("${onhardware.datasource.replica.username:${spring.datasource.username}}") String usuario,
+                                              @Value("${onhardware.datasource.replica.password:${spring.datasource.password}}") String senha) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(usuario)
+                .password(senha)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("dataSourcePrincipal") DataSource principal,
+                                 @Qualifier("dataSourceReplica") DataSource replica,
+                                 @Value("${onhardware.datasource.replica.pausa-apos-falha:10s}") Duration pausaAposFalha) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(principal);
+        dataSource.setReadOnlyDataSource(new ReplicaComFallbackDataSource(replica, principal, pausaAposFalha.toMillis()));
+        return dataSource;
+    }
+}
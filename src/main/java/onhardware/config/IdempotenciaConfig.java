@@ -0,0 +1,30 @@
+package onhardware.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import onhardware.service.RespostasIdempotentes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.unit.DataSize;
+
+@Configuration
+@ConditionalOnProperty(name = "onhardware.idempotencia.habilitada", havingValue = "true")
+public class IdempotenciaConfig {
+
+    @Bean
+    public FilterRegistrationBean<IdempotenciaFilter> idempotenciaFilter(
+            RespostasIdempotentes respostasIdempotentes,
+            @Value("${onhardware.idempotencia.tamanho-maximo-corpo:256KB}") DataSize tamanhoMaximoCorpo,
+            @Value("${onhardware.idempotencia.tamanho-maximo-resposta:1MB}") DataSize tamanhoMaximoResposta,
+            MeterRegistry meterRegistry) {
+        FilterRegistrationBean<IdempotenciaFilter> registro = new FilterRegistrationBean<>(new IdempotenciaFilter(
+                respostasIdempotentes, (int) tamanhoMaximoCorpo.toBytes(), (int) tamanhoMaximoResposta.toBytes(), meterRegistry));
+        registro.addUrlPatterns("/carrinhos/*", "/produtos/*");
+        // Depois da admissão e da contagem de SQL: uma repetição aparece nas métricas com zero comandos
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registro;
+    }
+}
@@ -0,0 +1,226 @@
+package onhardware.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import onhardware.exception.IdempotenciaException;
+import onhardware.model.RespostaIdempotente;
+import onhardware.service.RespostasIdempotentes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.Set;
+
+/*
+CLASSE -> IdempotenciaFilter
+
+- Comandos (POST, PUT, PATCH, DELETE) com o cabeçalho Idempotency-Key são executados uma única vez por chave e caminho;
+  repetições recebem a resposta guardada (RespostasIdempotentes), com Idempotent-Replayed: true, sem chegar ao controller
+- O corpo e os parâmetros da requisição entram na conta (SHA-256): a mesma chave com outro corpo recebe 422
+- Repetição que chega com a original ainda em andamento recebe 409 com Retry-After
+- Só respostas definitivas são guardadas: 5xx, 409 e 429 liberam a chave para a próxima tentativa
+- Corpos maiores que tamanho-maximo-corpo (importação de catálogo) e respostas maiores que tamanho-maximo-resposta
+  passam sem deduplicação
+- Sem o cabeçalho, nada muda
+ */
+
+public class IdempotenciaFilter extends OncePerRequestFilter {
+
+    public static final String CABECALHO_CHAVE = "Idempotency-Key";
+    public static final String CABECALHO_REPETIDA = "Idempotent-Replayed";
+
+    // Mesmo limite da chave de idempotência guardada nos checkouts
+    private static final int TAMANHO_MAXIMO_CHAVE = 100;
+
+    private static final Set<String> METODOS_COMANDO = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final RespostasIdempotentes respostasIdempotentes;
+    private final int tamanhoMaximoCorpo;
+    private final int tamanhoMaximoResposta;
+    private final Counter repetidas;
+    private final Counter recusadas;
+
+    public IdempotenciaFilter(RespostasIdempotentes respostasIdempotentes, int tamanhoMaximoCorpo, int tamanhoMaximoResposta,
+                              MeterRegistry meterRegistry) {
+        this.respostasIdempotentes = respostasIdempotentes;
+        this.tamanhoMaximoCorpo = tamanhoMaximoCorpo;
+        this.tamanhoMaximoResposta = tamanhoMaximoResposta;
+        this.repetidas = Counter.builder("onhardware.idempotencia.repetidas")
+                .description("Requisições respondidas com a resposta guardada para a Idempotency-Key")
+                .register(meterRegistry);
+        this.recusadas = Counter.builder("onhardware.idempotencia.recusadas")
+                .description("Requisições recusadas por Idempotency-Key em andamento ou usada com outro corpo")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !METODOS_COMANDO.contains(request.getMethod()) || request.getHeader(CABECALHO_CHAVE) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String chaveCliente = request.getHeader(CABECALHO_CHAVE);
+        if (chaveCliente.isBlank() || chaveCliente.length() > TAMANHO_MAXIMO_CHAVE) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                    CABECALHO_CHAVE + " deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres.");
+            return;
+        }
+
+        // Lê o corpo até o limite; se passar dele, a requisição segue sem deduplicação com o corpo intacto
+        InputStream entrada = request.getInputStream();
+        byte[] corpo = entrada.readNBytes(tamanhoMaximoCorpo + 1);
+        if (corpo.length > tamanhoMaximoCorpo) {
+            filterChain.doFilter(new CorpoJaLido(request, new SequenceInputStream(new ByteArrayInputStream(corpo), entrada)), response);
+            return;
+        }
+        HttpServletRequest requisicao = new CorpoJaLido(request, new ByteArrayInputStream(corpo));
+
+        String chave = request.getMethod() + " " + request.getRequestURI() + " " + chaveCliente;
+
+        Optional<RespostaIdempotente> optionalResposta;
+        try {
+            optionalResposta = respostasIdempotentes.reservar(chave, impressaoDigital(request.getQueryString(), corpo));
+        } catch (IdempotenciaException e) {
+            recusadas.increment();
+            if (e.getStatus() == HttpServletResponse.SC_CONFLICT) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            }
+            response.sendError(e.getStatus(), e.getMessage());
+            return;
+        }
+
+        if (optionalResposta.isPresent()) {
+            repetidas.increment();
+            repetir(optionalResposta.get(), response);
+            return;
+        }
+
+        ContentCachingResponseWrapper resposta = new ContentCachingResponseWrapper(response);
+        boolean concluida = false;
+        try {
+            filterChain.doFilter(requisicao, resposta);
+            if (definitiva(resposta.getStatus()) && resposta.getContentSize() <= tamanhoMaximoResposta) {
+                respostasIdempotentes.concluir(chave, resposta.getStatus(), resposta.getContentType(),
+                        resposta.getHeader(HttpHeaders.LOCATION), resposta.getContentAsByteArray());
+                concluida = true;
+            }
+        } finally {
+            if (!concluida) {
+                respostasIdempotentes.liberar(chave);
+            }
+            resposta.copyBodyToResponse();
+        }
+    }
+
+    private void repetir(RespostaIdempotente guardada, HttpServletResponse response) throws IOException {
+        response.setStatus(guardada.getStatus());
+        response.setHeader(CABECALHO_REPETIDA, "true");
+        if (guardada.getTipoConteudo() != null) {
+            response.setContentType(guardada.getTipoConteudo());
+        }
+        if (guardada.getLocation() != null) {
+            response.setHeader(HttpHeaders.LOCATION, guardada.getLocation());
+        }
+        if (guardada.getCorpo() != null && guardada.getCorpo().length > 0) {
+            response.setContentLength(guardada.getCorpo().length);
+            response.getOutputStream().write(guardada.getCorpo());
+        }
+    }
+
+    private static boolean definitiva(int status) {
+        return status < 500 && status != HttpServletResponse.SC_CONFLICT && status != 429;
+    }
+
+    private static String impressaoDigital(String parametros, byte[] corpo) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            if (parametros != null) {
+                sha256.update(parametros.getBytes(StandardCharsets.UTF_8));
+            }
+            sha256.update((byte) 0);
+            return HexFormat.of().formatHex(sha256.digest(corpo));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Requisição com o corpo já consumido pelo filtro, entregue de novo ao controller
+    private static class CorpoJaLido extends HttpServletRequestWrapper {
+
+        private final InputStream corpo;
+
+        CorpoJaLido(HttpServletRequest request, InputStream corpo) {
+            super(request);
+            this.corpo = corpo;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return new ServletInputStream() {
+                @Override
+                public int read() throws IOException {
+                    return corpo.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return corpo.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    try {
+                        return corpo.available() == 0;
+                    } catch (IOException e) {
+                        return true;
+                    }
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // O corpo já está em memória: tudo está disponível de uma vez e a leitura termina em seguida
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() == null ? StandardCharsets.UTF_8 : Charset.forName(getCharacterEncoding());
+            return new BufferedReader(new InputStreamReader(corpo, charset));
+        }
+    }
+}
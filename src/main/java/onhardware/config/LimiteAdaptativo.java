@@ -0,0 +1,164 @@
+package onhardware.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+CLASSE -> LimiteAdaptativo
+
+- Quantas requisições de uma classe (AdmissaoRequisicoesFilter) podem estar em andamento ao mesmo tempo
+- O limite se ajusta pela latência observada (AIMD): compara a média recente com a média de longo prazo e,
+  quando a recente passa de tolerancia vezes a de longo prazo (filas se formando no pool de conexões) ou a requisição
+  falha por sobrecarga, o limite cai 10%; enquanto a latência está normal e o limite está em uso, ele sobe 1 a cada "limite"
+  requisições concluídas
+- Uma redução por rodada (limite requisições): uma rajada de respostas lentas não derruba o limite até o mínimo de uma vez
+- Quem não encontra vaga espera até a espera máxima; passando dela, é recusado
+- Com limite mínimo igual ao máximo, o limite é fixo (total do pool de conexões, no AdmissaoRequisicoesFilter)
+ */
+
+public class LimiteAdaptativo {
+
+    private static final double FATOR_REDUCAO = 0.9;
+
+    // Pesos das médias móveis exponenciais da latência: recente (~10 amostras) e longo prazo (~200 amostras)
+    private static final double PESO_RECENTE = 0.1;
+    private static final double PESO_LONGO_PRAZO = 0.005;
+
+    private final int limiteMinimo;
+    private final int limiteMaximo;
+    private final double tolerancia;
+
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition vagaLiberada = trava.newCondition();
+
+    private double limite;
+    private int emAndamento;
+    private int aguardando;
+    private double latenciaRecente;
+    private double latenciaLongoPrazo;
+    private int amostrasDesdeReducao;
+
+    public LimiteAdaptativo(int limiteInicial, int limiteMinimo, int limiteMaximo, double tolerancia) {
+        this.limiteMinimo = Math.max(1, limiteMinimo);
+        this.limiteMaximo = Math.max(this.limiteMinimo, limiteMaximo);
+        this.tolerancia = tolerancia;
+        this.limite = Math.min(this.limiteMaximo, Math.max(this.limiteMinimo, limiteInicial));
+    }
+
+    // true se a requisição ganhou uma vaga dentro da espera máxima; quem entra deve chamar sair()
+    public boolean entrar(long esperaMaximaNanos) throws InterruptedException {
+        return entrar(esperaMaximaNanos, 0);
+    }
+
+    // Como entrar(), mas deixando "reserva" vagas livres para quem entra sem reserva
+    public boolean entrar(long esperaMaximaNanos, int reserva) throws InterruptedException {
+        trava.lock();
+        try {
+            if (emAndamento < (int) limite - reserva) {
+                emAndamento++;
+                return true;
+            }
+
+            aguardando++;
+            try {
+                long restante = esperaMaximaNanos;
+                while (emAndamento >= (int) limite - reserva) {
+                    if (restante <= 0) {
+                        return false;
+                    }
+                    restante = vagaLiberada.awaitNanos(restante);
+                }
+                emAndamento++;
+                return true;
+            } finally {
+                aguardando--;
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    // Registra a latência (sem a espera por vaga) e se a requisição falhou por sobrecarga; ajusta o limite
+    public void sair(long latenciaNanos, boolean falhou) {
+        trava.lock();
+        try {
+            boolean limiteEmUso = emAndamento * 2 >= (int) limite;
+            emAndamento--;
+
+            if (latenciaLongoPrazo == 0) {
+                latenciaRecente = latenciaNanos;
+                latenciaLongoPrazo = latenciaNanos;
+            } else {
+                latenciaRecente += PESO_RECENTE * (latenciaNanos - latenciaRecente);
+                latenciaLongoPrazo += PESO_LONGO_PRAZO * (latenciaNanos - latenciaLongoPrazo);
+            }
+
+            amostrasDesdeReducao++;
+            if (falhou || latenciaRecente > tolerancia * latenciaLongoPrazo) {
+                if (amostrasDesdeReducao >= limite) {
+                    limite = Math.max(limiteMinimo, limite * FATOR_REDUCAO);
+                    amostrasDesdeReducao = 0;
+                }
+            } else if (limiteEmUso) {
+                limite = Math.min(limiteMaximo, limite + 1 / limite);
+            }
+
+            if (emAndamento < (int) limite) {
+                vagaLiberada.signalAll();
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    // Vaga de quem entrou mas desistiu antes de ser atendido: devolvida sem contar latência nem ajustar o limite
+    public void devolver() {
+        trava.lock();
+        try {
+            emAndamento--;
+            if (emAndamento < (int) limite) {
+                vagaLiberada.signalAll();
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    public int limite() {
+        trava.lock();
+        try {
+            return (int) limite;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    public int emAndamento() {
+        trava.lock();
+        try {
+            return emAndamento;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    public int aguardando() {
+        trava.lock();
+        try {
+            return aguardando;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    // Latência recente em milissegundos, para as métricas
+    public double latenciaRecenteMillis() {
+        trava.lock();
+        try {
+            return latenciaRecente / TimeUnit.MILLISECONDS.toNanos(1);
+        } finally {
+            trava.unlock();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package onhardware.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/*
+CLASSE -> LimitePorCliente
+
+- Balde de fichas por cliente (endereço de origem): cada requisição gasta uma ficha, reposta à taxa de
+  requisicoesPorSegundo, com até "rajada" fichas acumuladas
+- Um cliente que dispara requisições em excesso (ex.: repetições em laço após timeouts) recebe 429 sem ocupar
+  vaga nem conexão, e não tira a vez dos demais
+- Baldes em Caffeine, limitados em quantidade e descartados depois de um tempo sem uso: um balde descartado
+  volta cheio, que é o estado de um cliente parado há tanto tempo
+ */
+
+public class LimitePorCliente {
+
+    private static final long MAXIMO_CLIENTES = 100_000;
+    private static final Duration DESCARTE_SEM_USO = Duration.ofMinutes(10);
+
+    private final double fichasPorNano;
+    private final double rajada;
+    private final Cache<String, Balde> baldes;
+
+    public LimitePorCliente(double requisicoesPorSegundo, int rajada) {
+        this.fichasPorNano = requisicoesPorSegundo / TimeUnit.SECONDS.toNanos(1);
+        this.rajada = rajada;
+        this.baldes = Caffeine.newBuilder()
+                .maximumSize(MAXIMO_CLIENTES)
+                .expireAfterAccess(DESCARTE_SEM_USO)
+                .build();
+    }
+
+    // 0 se a requisição pode seguir; senão, em quantos nanossegundos o cliente terá uma ficha de novo
+    public long consumir(String cliente) {
+        long agora = System.nanoTime();
+        return baldes.get(cliente, chave -> new Balde(rajada, agora)).consumir(agora);
+    }
+
+    private class Balde {
+
+        private double fichas;
+        private long ultimaReposicao;
+
+        Balde(double fichas, long agora) {
+            this.fichas = fichas;
+            this.ultimaReposicao = agora;
+        }
+
+        synchronized long consumir(long agora) {
+            // Requisições simultâneas podem chegar aqui fora da ordem em que leram o relógio
+            if (agora > ultimaReposicao) {
+                fichas = Math.min(rajada, fichas + (agora - ultimaReposicao) * fichasPorNano);
+                ultimaReposicao = agora;
+            }
+            if (fichas >= 1) {
+                fichas--;
+                return 0;
+            }
+            return (long) Math.ceil((1 - fichas) / fichasPorNano);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package onhardware.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class MetricasConfig {
+
+    // Habilita @Timed nos métodos dos serviços
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer contadorComandosSqlCustomizer() {
+        return propriedades -> propriedades.put("hibernate.session_factory.statement_inspector", new ContadorComandosSql());
+    }
+
+    @Bean
+    public FilterRegistrationBean<ContadorComandosSqlFilter> contadorComandosSqlFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ContadorComandosSqlFilter> registro = new FilterRegistrationBean<>(new ContadorComandosSqlFilter(meterRegistry));
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registro;
+    }
+}
@@ -0,0 +1,60 @@
+package onhardware.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/*
+CLASSE -> ReplicaComFallbackDataSource
+
+- Entrega conexões da réplica de leitura
+- Se a réplica não responder, entrega uma conexão do banco principal e deixa de tentar a réplica
+  por alguns segundos, para as leituras não pagarem o timeout de conexão a cada requisição
+ */
+
+@Slf4j
+public class ReplicaComFallbackDataSource extends DelegatingDataSource {
+
+    private final DataSource principal;
+    private final long pausaMillis;
+
+    private volatile long replicaIndisponivelAte;
+
+    public ReplicaComFallbackDataSource(DataSource replica, DataSource principal, long pausaMillis) {
+        super(replica);
+        this.principal = principal;
+        this.pausaMillis = pausaMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (System.currentTimeMillis() >= replicaIndisponivelAte) {
+            try {
+                return super.getConnection();
+            } catch (SQLException e) {
+                marcarIndisponivel(e);
+            }
+        }
+        return principal.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (System.currentTimeMillis() >= replicaIndisponivelAte) {
+            try {
+                return super.getConnection(username, password);
+            } catch (SQLException e) {
+                marcarIndisponivel(e);
+            }
+        }
+        return principal.getConnection(username, password);
+    }
+
+    private void marcarIndisponivel(SQLException e) {
+        replicaIndisponivelAte = System.currentTimeMillis() + pausaMillis;
+        log.warn("Réplica de leitura indisponível, usando o banco principal pelos próximos {} ms: {}", pausaMillis, e.getMessage());
+    }
+}
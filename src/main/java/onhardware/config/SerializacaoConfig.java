@@ -0,0 +1,33 @@
+package onhardware.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/*
+CLASSE -> SerializacaoConfig
+
+- Além de JSON, as respostas saem em CBOR (Accept: application/cbor) ou Smile (Accept: application/x-jackson-smile),
+  formatos binários do Jackson que dispensam aspas, escapes e números em texto: menos bytes e menos CPU para serializar
+- Os conversores partem do mesmo Jackson2ObjectMapperBuilder do JSON (spring.jackson.*, módulos de data),
+  então os três formatos trazem os mesmos campos com os mesmos valores; sem Accept, a resposta continua em JSON
+- Os conversores também leem corpos nesses formatos (Content-Type)
+ */
+
+@Configuration
+public class SerializacaoConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -1,16 +1,31 @@
 package onhardware.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import onhardware.DTO.AdicionarProdutoDTO;
+import onhardware.DTO.AtualizarCarrinhoLoteDTO;
 import onhardware.DTO.CarrinhoDTO;
+import onhardware.DTO.CarrinhoResumoDTO;
+import onhardware.DTO.CheckoutDTO;
+import onhardware.DTO.VersaoCarrinhoDTO;
+import onhardware.DTO.Visao;
 import onhardware.service.CarrinhoService;
+import onhardware.service.CheckoutService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.net.URI;
 import java.util.List;
 
 @Tag(name = "Carrinho", description = "Operações com carrinho de compras")
@@ -18,9 +33,15 @@ import java.util.List;
 @RequestMapping("/carrinhos")
 public class CarrinhoController {
 
+    // Carrinhos mudam a todo momento e são de um único cliente: só o navegador guarda, sempre revalidando
+    private static final CacheControl CACHE_HTTP_CARRINHO = CacheControl.noCache().cachePrivate();
+
     @Autowired
     private CarrinhoService carrinhoService;
 
+    @Autowired
+    private CheckoutService checkoutService;
+
     @Operation(summary = "Criar novo carrinho")
     @PostMapping("/criar-carrinho")
     public ResponseEntity<CarrinhoDTO> criarCarrinho() {
@@ -29,17 +50,39 @@ public class CarrinhoController {
         // POST 201 Created
     }
 
-    @Operation(summary = "Listar todos os carrinhos")
+    @Operation(summary = "Listar todos os carrinhos (visao=RESUMO traz apenas totais e quantidade de itens)")
+    @ApiResponse(responseCode = "200", description = "CarrinhoDTO na visão COMPLETA, CarrinhoResumoDTO na RESUMO",
+            content = @Content(array = @ArraySchema(schema = @Schema(oneOf = {CarrinhoDTO.class, CarrinhoResumoDTO.class}))))
     @GetMapping("/listar-carrinhos")
-    public ResponseEntity<List<CarrinhoDTO>> listarCarrinhos() {
+    public ResponseEntity<List<?>> listarCarrinhos(@RequestParam(defaultValue = "COMPLETA") Visao visao) {
+        carrinhoService.gravarAlteracoesEmMemoria();
+        if (visao == Visao.RESUMO) {
+            return ResponseEntity.ok(carrinhoService.listarResumosCarrinhos());
+        }
         return ResponseEntity.ok(carrinhoService.listarTodosCarrinhos());
         // GET 200 OK
     }
 
-    @Operation(summary = "Buscar carrinho específico")
+    @Operation(summary = "Buscar carrinho específico (visao=RESUMO traz apenas ID, nome, quantidade e preço dos itens; " +
+            "304 se o ETag informado em If-None-Match ainda for o atual)")
+    @ApiResponse(responseCode = "200", description = "CarrinhoDTO na visão COMPLETA, CarrinhoResumoDTO na RESUMO",
+            content = @Content(schema = @Schema(oneOf = {CarrinhoDTO.class, CarrinhoResumoDTO.class})))
+    @ApiResponse(responseCode = "304", description = "O carrinho não mudou desde o ETag informado", content = @Content)
     @GetMapping("/buscar-carrinho/{id}")
-    public ResponseEntity<CarrinhoDTO> buscarCarrinho(@PathVariable Long id) {
-        return ResponseEntity.ok(carrinhoService.buscarCarrinhoPorId(id));
+    public ResponseEntity<?> buscarCarrinho(@PathVariable Long id, @RequestParam(defaultValue = "COMPLETA") Visao visao, WebRequest requisicao) {
+        // Alterações ainda só em memória (carrinhos ativos) vão antes para o banco, de onde saem versão e corpo
+        carrinhoService.gravarAlteracoesEmMemoria(id);
+        // Confere a versão antes de carregar o carrinho: se o cliente já a tem, nada mais é lido nem serializado
+        VersaoCarrinhoDTO versao = carrinhoService.buscarVersaoCarrinho(id);
+        if (RespostaCondicional.naoModificado(requisicao, versao.etag(visao), versao.getUltimaAtualizacao())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CACHE_HTTP_CARRINHO).varyBy(HttpHeaders.ACCEPT).build();
+            // GET 304 Not Modified
+        }
+
+        if (visao == Visao.RESUMO) {
+            return ResponseEntity.ok().cacheControl(CACHE_HTTP_CARRINHO).varyBy(HttpHeaders.ACCEPT).body(carrinhoService.buscarResumoCarrinhoPorId(id));
+        }
+        return ResponseEntity.ok().cacheControl(CACHE_HTTP_CARRINHO).varyBy(HttpHeaders.ACCEPT).body(carrinhoService.buscarCarrinhoPorId(id));
         // GET 200 OK
     }
 
@@ -58,6 +101,13 @@ public class CarrinhoController {
         // 200 OK
     }
 
+    @Operation(summary = "Adicionar, remover ou alterar a quantidade de vários produtos do carrinho de uma vez")
+    @PutMapping("/atualizar-carrinho/{idCarrinho}/produtos/lote")
+    public ResponseEntity<CarrinhoDTO> atualizarProdutosEmLote(@PathVariable Long idCarrinho, @Valid @RequestBody AtualizarCarrinhoLoteDTO dto) {
+        return ResponseEntity.ok(carrinhoService.aplicarOperacoes(idCarrinho, dto.getOperacoes()));
+        // 200 OK
+    }
+
     @Operation(summary = "Deletar produto do carrinho")
     @PutMapping("/deletar-carrinho/{idCarrinho}/produtos/{idProdutoCarrinho}")
     public ResponseEntity<CarrinhoDTO> removerProdutoDoCarrinho(@PathVariable Long idCarrinho, @PathVariable Long idProdutoCarrinho) {
@@ -65,10 +115,30 @@ public class CarrinhoController {
         // 200 OK
     }
 
-    @Operation(summary = "Finalizar a compra de um carrinho")
-    @PutMapping("/finalizar-compra/{idCarrinho}")
-    public ResponseEntity<CarrinhoDTO> finalizarCompra(@PathVariable("idCarrinho") Long idCarrinho) {
-        return ResponseEntity.ok(carrinhoService.finalizarCompra(idCarrinho));
+    @Operation(summary = "Conferir e corrigir o total de um carrinho")
+    @PutMapping("/recalcular-carrinho/{idCarrinho}")
+    public ResponseEntity<CarrinhoDTO> recalcularCarrinho(@PathVariable Long idCarrinho) {
+        return ResponseEntity.ok(carrinhoService.recalcularTotal(idCarrinho));
         // 200 OK
     }
+
+    @Operation(summary = "Finalizar a compra de um carrinho (processada em segundo plano; acompanhe pelo link em Location)")
+    @PutMapping("/finalizar-compra/{idCarrinho}")
+    public ResponseEntity<CheckoutDTO> finalizarCompra(@PathVariable("idCarrinho") Long idCarrinho,
+                                                       @RequestHeader(value = "Idempotency-Key", required = false) String chaveIdempotencia) {
+        CheckoutDTO checkout = checkoutService.solicitarCheckout(idCarrinho, chaveIdempotencia);
+        URI situacao = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/carrinhos/checkouts/{idCheckout}")
+                .buildAndExpand(checkout.getIdCheckout())
+                .toUri();
+        return ResponseEntity.accepted().location(situacao).body(checkout);
+        // 202 Accepted
+    }
+
+    @Operation(summary = "Consultar a situação de uma finalização de compra")
+    @GetMapping("/checkouts/{idCheckout}")
+    public ResponseEntity<CheckoutDTO> buscarCheckout(@PathVariable Long idCheckout) {
+        return ResponseEntity.ok(checkoutService.buscarCheckoutPorId(idCheckout));
+        // GET 200 OK
+    }
 }
@@ -1,15 +1,41 @@
 package onhardware.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import onhardware.DTO.EstoqueDTO;
+import onhardware.DTO.FiltroBuscaProdutoDTO;
+import onhardware.DTO.PaginaProdutoDTO;
 import onhardware.DTO.ProdutoDTO;
+import onhardware.DTO.ProdutoResumoDTO;
+import onhardware.DTO.ResultadoBuscaProdutoDTO;
+import onhardware.DTO.ResultadoImportacaoDTO;
+import onhardware.DTO.Visao;
+import onhardware.service.EstoqueService;
+import onhardware.service.ImportacaoProdutoService;
 import onhardware.service.ProdutoService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 
 @Tag(name = "Produto", description = "Gerenciamento de produtos")
@@ -20,6 +46,19 @@ public class ProdutoController {
     @Autowired
     private ProdutoService produtoService;
 
+    @Autowired
+    private ImportacaoProdutoService importacaoProdutoService;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Por quanto tempo clientes e proxies podem reutilizar um produto sem revalidar
+    @Value("${onhardware.cache-http.produto}")
+    private Duration cacheHttpProduto;
+
     @Operation(summary = "Cadastrar um novo produto")
     @PostMapping("/cadastrar-produto")
     public ResponseEntity<ProdutoDTO> criarProdutos(@Valid @RequestBody ProdutoDTO produtoDTO) {
@@ -28,17 +67,76 @@ public class ProdutoController {
         // POST 201 Created
     }
 
-    @Operation(summary = "Listar todos os produtos")
+    @Operation(summary = "Importar catálogo de produtos (CSV com cabeçalho ou NDJSON)")
+    @PostMapping(value = "/importar-produtos", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ResultadoImportacaoDTO> importarProdutos(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType tipoConteudo, InputStream corpo) {
+        ResultadoImportacaoDTO resultado = importacaoProdutoService.importar(corpo, tipoConteudo);
+        // Interrompida: o corpo diz o que já foi gravado e de onde reenviar
+        return ResponseEntity.status(resultado.isInterrompida() ? HttpStatus.INTERNAL_SERVER_ERROR : HttpStatus.OK).body(resultado);
+        // POST 200 OK
+    }
+
+    @Operation(summary = "Listar todos os produtos (visao=RESUMO traz apenas ID, nome, marca e preço)")
+    @ApiResponse(responseCode = "200", description = "ProdutoDTO na visão COMPLETA, ProdutoResumoDTO na RESUMO",
+            content = @Content(array = @ArraySchema(schema = @Schema(oneOf = {ProdutoDTO.class, ProdutoResumoDTO.class}))))
     @GetMapping("/listar-produtos")
-    public ResponseEntity<List<ProdutoDTO>> listarProdutos() {
+    public ResponseEntity<List<?>> listarProdutos(@RequestParam(defaultValue = "COMPLETA") Visao visao) {
+        if (visao == Visao.RESUMO) {
+            return ResponseEntity.ok(produtoService.listarResumosProdutos());
+        }
         return ResponseEntity.ok(produtoService.listarTodosProdutos());
         // GET 200 OK
     }
 
-    @Operation(summary = "Buscar produto específico")
+    @Operation(summary = "Listar todos os produtos em streaming (um JSON por linha)")
+    @GetMapping(value = "/listar-produtos", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> listarProdutosStreaming() {
+        StreamingResponseBody corpo = saida -> produtoService.exportarProdutos(produto -> escreverLinha(saida, produto));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(corpo);
+        // GET 200 OK
+    }
+
+    @Operation(summary = "Listar produtos paginados por cursor")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = PaginaProdutoDTO.class)))
+    @GetMapping("/listar-produtos-paginado")
+    public ResponseEntity<PaginaProdutoDTO<?>> listarProdutosPaginado(@RequestParam(required = false) String cursor,
+                                                                      @RequestParam(defaultValue = "" + ProdutoService.TAMANHO_PAGINA_PADRAO) int tamanho,
+                                                                      @RequestParam(defaultValue = "COMPLETA") Visao visao) {
+        return ResponseEntity.ok(produtoService.listarProdutosPaginado(cursor, tamanho, visao));
+        // GET 200 OK
+    }
+
+    @Operation(summary = "Buscar produtos por texto, marca e faixa de preço, com contagem por marca")
+    @GetMapping("/buscar-produtos")
+    public ResponseEntity<ResultadoBuscaProdutoDTO> buscarProdutos(@RequestParam(required = false) String termo,
+                                                                   @RequestParam(required = false) List<String> marca,
+                                                                   @RequestParam(required = false) BigDecimal precoMinimo,
+                                                                   @RequestParam(required = false) BigDecimal precoMaximo,
+                                                                   @RequestParam(defaultValue = "0") int pagina,
+                                                                   @RequestParam(defaultValue = "" + ProdutoService.TAMANHO_PAGINA_BUSCA_PADRAO) int tamanho) {
+        FiltroBuscaProdutoDTO filtro = FiltroBuscaProdutoDTO.builder()
+                .termo(termo)
+                .marcas(marca)
+                .precoMinimo(precoMinimo)
+                .precoMaximo(precoMaximo)
+                .build();
+        return ResponseEntity.ok(produtoService.buscarProdutos(filtro, pagina, tamanho));
+        // GET 200 OK
+    }
+
+    @Operation(summary = "Buscar produto específico (304 se o ETag informado em If-None-Match ainda for o atual)")
     @GetMapping("/buscar-produto/{id}")
-    public ResponseEntity<ProdutoDTO> buscarPorId(@PathVariable Long id) {
-        return ResponseEntity.ok(produtoService.buscarProdutoPorId(id));
+    public ResponseEntity<ProdutoDTO> buscarPorId(@PathVariable Long id, WebRequest requisicao) {
+        // O DTO vem do cache de produtos: com ele em memória, o 304 sai sem consulta ao banco
+        ProdutoDTO produto = produtoService.buscarProdutoPorId(id);
+        CacheControl cacheControl = CacheControl.maxAge(cacheHttpProduto).cachePublic();
+
+        if (RespostaCondicional.naoModificado(requisicao, String.valueOf(produto.getVersao()), produto.getDataAtualizacaoProduto())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).varyBy(HttpHeaders.ACCEPT).build();
+            // GET 304 Not Modified
+        }
+        // Mesmo endereço em JSON, CBOR ou Smile: caches compartilhados separam as respostas pelo Accept
+        return ResponseEntity.ok().cacheControl(cacheControl).varyBy(HttpHeaders.ACCEPT).body(produto);
         // GET 200 OK
     }
 
@@ -49,6 +147,20 @@ public class ProdutoController {
         // 200 OK
     }
 
+    @Operation(summary = "Consultar o estoque de um produto (disponível e reservado em carrinhos)")
+    @GetMapping("/estoque/{id}")
+    public ResponseEntity<EstoqueDTO> consultarEstoque(@PathVariable Long id) {
+        return ResponseEntity.ok(estoqueService.consultarEstoque(id));
+        // GET 200 OK
+    }
+
+    @Operation(summary = "Definir a quantidade disponível de um produto (a partir daí o estoque dele é controlado)")
+    @PutMapping("/estoque/{id}")
+    public ResponseEntity<EstoqueDTO> definirEstoque(@PathVariable Long id, @Valid @RequestBody EstoqueDTO estoqueDTO) {
+        return ResponseEntity.ok(estoqueService.definirEstoque(id, estoqueDTO.getDisponivel()));
+        // 200 OK
+    }
+
     @Operation(summary = "Excluir produto")
     @DeleteMapping("/deletar-produto/{id}")
     public ResponseEntity<Void> deletarProduto(@PathVariable Long id) {
@@ -56,4 +168,13 @@ public class ProdutoController {
         return ResponseEntity.noContent().build();
         // 204 No Content
     }
+
+    private void escreverLinha(OutputStream saida, ProdutoDTO produto) {
+        try {
+            saida.write(objectMapper.writeValueAsBytes(produto));
+            saida.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
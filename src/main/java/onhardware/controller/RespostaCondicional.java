@@ -0,0 +1,29 @@
+package onhardware.controller;
+
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/*
+CLASSE -> RespostaCondicional
+
+- GET condicional: compara If-None-Match com o ETag e, sem ele, If-Modified-Since com a última atualização
+- Em qualquer caso grava ETag e Last-Modified na resposta
+- O ETag é fraco (W/"..."): a mesma versão sai em JSON, CBOR ou Smile, com ou sem gzip, e identifica o conteúdo,
+  não os bytes. Com ETag forte o Tomcat não comprime a resposta
+- Quando o cliente já tem a versão atual, o controller responde 304 sem montar nem serializar o corpo
+ */
+
+final class RespostaCondicional {
+
+    private RespostaCondicional() {
+    }
+
+    static boolean naoModificado(WebRequest requisicao, String etag, LocalDateTime ultimaAtualizacao) {
+        long ultimaAtualizacaoMillis = ultimaAtualizacao == null
+                ? -1
+                : ultimaAtualizacao.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return requisicao.checkNotModified("W/\"" + etag + "\"", ultimaAtualizacaoMillis);
+    }
+}
@@ -0,0 +1,74 @@
+package onhardware.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import onhardware.DTO.ResumoVendasDTO;
+import onhardware.DTO.VendaDiaDTO;
+import onhardware.DTO.VendaMarcaDTO;
+import onhardware.DTO.VendaProdutoDTO;
+import onhardware.service.VendasService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Períodos em datas ISO (aaaa-mm-dd); sem datas, os últimos 30 dias até hoje.
+@Tag(name = "Vendas", description = "Relatórios de vendas a partir dos totais consolidados por dia")
+@RestController
+@RequestMapping("/vendas")
+public class VendasController {
+
+    @Autowired
+    private VendasService vendasService;
+
+    @Operation(summary = "Faturamento, pedidos, unidades e ticket médio de cada dia do período")
+    @GetMapping("/por-dia")
+    public ResponseEntity<List<VendaDiaDTO>> listarVendasPorDia(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        LocalDate dataFinal = dataFinal(fim);
+        return ResponseEntity.ok(vendasService.listarVendasPorDia(dataInicial(inicio, dataFinal), dataFinal));
+        // GET 200 OK
+    }
+
+    @Operation(summary = "Totais do período e valor médio por pedido (ticket médio)")
+    @GetMapping("/resumo")
+    public ResponseEntity<ResumoVendasDTO> resumirVendas(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        LocalDate dataFinal = dataFinal(fim);
+        return ResponseEntity.ok(vendasService.resumirVendas(dataInicial(inicio, dataFinal), dataFinal));
+        // GET 200 OK
+    }
+
+    @Operation(summary = "Produtos mais vendidos do período, em unidades")
+    @GetMapping("/por-produto")
+    public ResponseEntity<List<VendaProdutoDTO>> listarProdutosMaisVendidos(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+                                                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+                                                                            @RequestParam(defaultValue = "" + VendasService.LIMITE_PRODUTOS_PADRAO) int limite) {
+        LocalDate dataFinal = dataFinal(fim);
+        return ResponseEntity.ok(vendasService.listarProdutosMaisVendidos(dataInicial(inicio, dataFinal), dataFinal, limite));
+        // GET 200 OK
+    }
+
+    @Operation(summary = "Unidades e faturamento por marca no período")
+    @GetMapping("/por-marca")
+    public ResponseEntity<List<VendaMarcaDTO>> listarVendasPorMarca(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+                                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        LocalDate dataFinal = dataFinal(fim);
+        return ResponseEntity.ok(vendasService.listarVendasPorMarca(dataInicial(inicio, dataFinal), dataFinal));
+        // GET 200 OK
+    }
+
+    private LocalDate dataFinal(LocalDate fim) {
+        return fim != null ? fim : LocalDate.now();
+    }
+
+    private LocalDate dataInicial(LocalDate inicio, LocalDate dataFinal) {
+        return inicio != null ? inicio : dataFinal.minusDays(VendasService.PERIODO_PADRAO_DIAS - 1);
+    }
+}
@@ -0,0 +1,7 @@
+package onhardware.exception;
+
+public class CheckoutException extends RuntimeException {
+    public CheckoutException(String message) {
+        super(message);
+    }
+}
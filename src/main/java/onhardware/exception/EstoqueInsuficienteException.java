@@ -0,0 +1,7 @@
+package onhardware.exception;
+
+public class EstoqueInsuficienteException extends RuntimeException {
+    public EstoqueInsuficienteException(Long idProduto) {
+        super("Estoque insuficiente para o produto " + idProduto + ".");
+    }
+}
@@ -0,0 +1,16 @@
+package onhardware.exception;
+
+public class IdempotenciaException extends RuntimeException {
+
+    // Código HTTP devolvido pelo IdempotenciaFilter
+    private final int status;
+
+    public IdempotenciaException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,7 @@
+package onhardware.exception;
+
+public class ProdutoForaDoCarrinhoException extends RuntimeException {
+    public ProdutoForaDoCarrinhoException(Long idProduto) {
+        super("Produto " + idProduto + " não está no carrinho.");
+    }
+}
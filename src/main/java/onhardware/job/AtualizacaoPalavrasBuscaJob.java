@@ -0,0 +1,29 @@
+package onhardware.job;
+
+import lombok.extern.slf4j.Slf4j;
+import onhardware.repository.ProdutoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+A correção de erros de digitação da busca compara o termo com as palavras do catálogo, guardadas
+na visão materializada palavras_busca. Este job a recalcula periodicamente para incluir as palavras
+de produtos novos ou alterados (a busca exata desses produtos funciona mesmo antes da atualização).
+ */
+@Slf4j
+@Component
+public class AtualizacaoPalavrasBuscaJob {
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Transactional
+    @Scheduled(cron = "${onhardware.busca.atualizacao-palavras-cron:-}")
+    public void atualizarPalavras() {
+        long inicio = System.currentTimeMillis();
+        produtoRepository.atualizarPalavras();
+        log.info("Vocabulário da busca atualizado em {} ms", System.currentTimeMillis() - inicio);
+    }
+}
@@ -0,0 +1,30 @@
+package onhardware.job;
+
+import onhardware.service.VendasService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/*
+Soma os pedidos novos aos totais de vendas por dia, produto e marca (VendasService), em lotes
+(uma transação por lote), até não sobrar pedido pendente. Os relatórios ficam atrasados no máximo
+um intervalo do cron em relação aos pedidos. Desligado com cron "-".
+ */
+@Component
+public class ContabilizacaoVendasJob {
+
+    @Autowired
+    private VendasService vendasService;
+
+    @Value("${onhardware.vendas.tamanho-lote}")
+    private int tamanhoLote;
+
+    @Scheduled(cron = "${onhardware.vendas.contabilizacao-cron:-}")
+    public void contabilizarPedidos() {
+        int contabilizados;
+        do {
+            contabilizados = vendasService.contabilizarPedidos(tamanhoLote);
+        } while (contabilizados == tamanhoLote);
+    }
+}
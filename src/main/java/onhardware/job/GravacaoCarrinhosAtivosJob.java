@@ -0,0 +1,22 @@
+package onhardware.job;
+
+import onhardware.service.CarrinhosAtivos;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/*
+Grava no banco, em lotes, as alterações de carrinhos acumuladas em memória pela camada de carrinhos ativos
+(CarrinhosAtivos). Com a camada desligada não há nada a gravar. Desligado com cron "-".
+ */
+@Component
+public class GravacaoCarrinhosAtivosJob {
+
+    @Autowired
+    private CarrinhosAtivos carrinhosAtivos;
+
+    @Scheduled(cron = "${onhardware.carrinho-ativo.gravacao-cron:-}")
+    public void gravarPendentes() {
+        carrinhosAtivos.gravarPendentes();
+    }
+}
@@ -0,0 +1,37 @@
+package onhardware.job;
+
+import lombok.extern.slf4j.Slf4j;
+import onhardware.service.EstoqueService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/*
+Devolve ao estoque as reservas vencidas de carrinhos abandonados, em lotes (uma transação por lote),
+até não sobrar nenhuma vencida. Desligado com cron "-".
+ */
+@Slf4j
+@Component
+public class LiberacaoReservasJob {
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Value("${onhardware.estoque.tamanho-lote-liberacao}")
+    private int tamanhoLote;
+
+    @Scheduled(cron = "${onhardware.estoque.liberacao-cron:-}")
+    public void liberarReservasVencidas() {
+        int total = 0;
+        int liberadas;
+        do {
+            liberadas = estoqueService.liberarReservasVencidas(tamanhoLote);
+            total += liberadas;
+        } while (liberadas == tamanhoLote);
+
+        if (total > 0) {
+            log.info("Liberação de reservas: {} reserva(s) vencida(s) devolvida(s) ao estoque", total);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package onhardware.job;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import onhardware.service.LimpezaCarrinhoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.function.IntUnaryOperator;
+
+/*
+Apaga carrinhos abandonados e arquiva os finalizados antigos (LimpezaCarrinhoService), em lotes pequenos,
+cada um em sua própria transação. Para não disputar o banco com as requisições:
+- roda de madrugada e espera onhardware.limpeza.pausa-entre-lotes entre um lote e outro;
+- se há requisições esperando conexão no pool, espera mais antes do próximo lote;
+- para ao atingir onhardware.limpeza.duracao-maxima e continua na próxima execução.
+Desligado com cron "-".
+ */
+@Slf4j
+@Component
+public class LimpezaCarrinhosJob {
+
+    @Autowired
+    private LimpezaCarrinhoService limpezaCarrinhoService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${onhardware.limpeza.tamanho-lote}")
+    private int tamanhoLote;
+
+    @Value("${onhardware.limpeza.pausa-entre-lotes}")
+    private Duration pausaEntreLotes;
+
+    @Value("${onhardware.limpeza.duracao-maxima}")
+    private Duration duracaoMaxima;
+
+    @Scheduled(cron = "${onhardware.limpeza.cron:-}")
+    public void limparCarrinhos() {
+        long prazo = System.nanoTime() + duracaoMaxima.toNanos();
+
+        int apagados = processarEmLotes(limpezaCarrinhoService::apagarAbandonados, prazo);
+        int arquivados = processarEmLotes(limpezaCarrinhoService::arquivarFinalizados, prazo);
+
+        if (apagados > 0 || arquivados > 0) {
+            log.info("Limpeza de carrinhos: {} abandonado(s) apagado(s), {} finalizado(s) arquivado(s)", apagados, arquivados);
+        }
+    }
+
+    private int processarEmLotes(IntUnaryOperator lote, long prazo) {
+        int total = 0;
+        int processados;
+        do {
+            processados = lote.applyAsInt(tamanhoLote);
+            total += processados;
+        } while (processados == tamanhoLote && aguardarProximoLote(prazo));
+        return total;
+    }
+
+    // Retorna false se o tempo da execução acabou (ou a thread foi interrompida).
+    private boolean aguardarProximoLote(long prazo) {
+        try {
+            Thread.sleep(pausaEntreLotes);
+            while (requisicoesAguardandoConexao() && System.nanoTime() < prazo) {
+                Thread.sleep(pausaEntreLotes.multipliedBy(10));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return System.nanoTime() < prazo;
+    }
+
+    private boolean requisicoesAguardandoConexao() {
+        try {
+            HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            return pool != null && pool.getThreadsAwaitingConnection() > 0;
+        } catch (SQLException e) {
+            // Pool que não é Hikari: segue só com a pausa fixa
+            return false;
+        }
+    }
+}
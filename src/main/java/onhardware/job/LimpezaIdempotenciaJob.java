@@ -0,0 +1,27 @@
+package onhardware.job;
+
+import lombok.extern.slf4j.Slf4j;
+import onhardware.service.RespostasIdempotentes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/*
+Apaga do banco as respostas de Idempotency-Key vencidas (onhardware.idempotencia.validade), quando elas são
+persistidas. Desligado com cron "-".
+ */
+@Slf4j
+@Component
+public class LimpezaIdempotenciaJob {
+
+    @Autowired
+    private RespostasIdempotentes respostasIdempotentes;
+
+    @Scheduled(cron = "${onhardware.idempotencia.limpeza-cron:-}")
+    public void removerVencidas() {
+        int removidas = respostasIdempotentes.removerVencidas();
+        if (removidas > 0) {
+            log.info("Idempotência: {} resposta(s) vencida(s) removida(s)", removidas);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package onhardware.job;
+
+import lombok.extern.slf4j.Slf4j;
+import onhardware.repository.CarrinhoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/*
+carrinhos e produtos_carrinho são particionados por mês de criação do carrinho (migração V2).
+Este job mantém criadas as partições dos próximos meses (onhardware.particoes.meses-a-frente), para nenhum
+carrinho novo cair na partição padrão, e remove as partições de meses passados que a limpeza já esvaziou.
+Roda também na inicialização. Desligado com cron "-" (não há partições no H2 dos testes).
+ */
+@Slf4j
+@Component
+public class ManutencaoParticoesJob {
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
+    @Value("${onhardware.particoes.manutencao-cron:-}")
+    private String cron;
+
+    @Value("${onhardware.particoes.meses-a-frente}")
+    private int mesesAFrente;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void manterNaInicializacao() {
+        if (!"-".equals(cron)) {
+            manterParticoes();
+        }
+    }
+
+    @Scheduled(cron = "${onhardware.particoes.manutencao-cron:-}")
+    public void manterParticoes() {
+        LocalDate hoje = LocalDate.now();
+        int criadas = carrinhoRepository.criarParticoes(hoje, hoje.plusMonths(mesesAFrente));
+        // Só meses já encerrados: o mês corrente continua recebendo carrinhos
+        int removidas = carrinhoRepository.removerParticoesVazias(hoje.withDayOfMonth(1));
+
+        if (criadas > 0 || removidas > 0) {
+            log.info("Partições de carrinhos: {} mês(es) criado(s), {} mês(es) vazio(s) removido(s)", criadas, removidas);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package onhardware.job;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import onhardware.service.CheckoutService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+Processa a fila de finalizações de compra (tabela checkouts). A cada execução retira lotes da fila e
+os distribui entre poucos trabalhadores, esperando o lote terminar antes de retirar o próximo.
+O pool pequeno e fixo limita as conexões usadas pelas finalizações, deixando o restante do pool do
+banco para as requisições de carrinho mesmo em picos de finalização.
+Uma finalização que falha sem registrar o status não interrompe as demais: fica PROCESSANDO e volta
+para a fila depois de onhardware.checkout.tempo-abandono.
+ */
+@Slf4j
+@Component
+public class ProcessamentoCheckoutJob {
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Value("${onhardware.checkout.trabalhadores}")
+    private int quantidadeTrabalhadores;
+
+    @Value("${onhardware.checkout.tamanho-lote}")
+    private int tamanhoLote;
+
+    private ExecutorService trabalhadores;
+
+    @PostConstruct
+    void iniciar() {
+        trabalhadores = Executors.newFixedThreadPool(quantidadeTrabalhadores, new CustomizableThreadFactory("checkout-"));
+    }
+
+    @PreDestroy
+    void encerrar() {
+        trabalhadores.shutdown();
+    }
+
+    @Scheduled(cron = "${onhardware.checkout.processamento-cron:-}")
+    public void processarFila() {
+        List<Long> ids;
+        do {
+            ids = checkoutService.reservarLote(tamanhoLote);
+
+            List<CompletableFuture<Void>> tarefas = new ArrayList<>();
+            for (Long id : ids) {
+                tarefas.add(CompletableFuture.runAsync(() -> checkoutService.processarCheckout(id), trabalhadores)
+                        .exceptionally(e -> {
+                            log.error("Falha ao processar o checkout {}; volta à fila quando for considerado abandonado.", id, e);
+                            return null;
+                        }));
+            }
+            CompletableFuture.allOf(tarefas.toArray(CompletableFuture[]::new)).join();
+        } while (ids.size() == tamanhoLote);
+    }
+}
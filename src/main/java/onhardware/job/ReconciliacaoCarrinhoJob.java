@@ -0,0 +1,33 @@
+package onhardware.job;
+
+import lombok.extern.slf4j.Slf4j;
+import onhardware.service.CarrinhoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/*
+O total dos carrinhos é mantido por diferença a cada alteração. Este job confere periodicamente
+se algum carrinho aberto ficou com o total divergente da soma dos itens e o corrige, em lotes de
+carrinhos bloqueados (CarrinhoService.reconciliarTotais()). Roda todo dia às 4h
+(onhardware.carrinho.reconciliacao-cron); "-" desliga.
+ */
+@Slf4j
+@Component
+public class ReconciliacaoCarrinhoJob {
+
+    @Autowired
+    private CarrinhoService carrinhoService;
+
+    @Value("${onhardware.carrinho.reconciliacao-lote}")
+    private int tamanhoLote;
+
+    @Scheduled(cron = "${onhardware.carrinho.reconciliacao-cron:-}")
+    public void reconciliarTotais() {
+        int corrigidos = carrinhoService.reconciliarTotais(tamanhoLote);
+        if (corrigidos > 0) {
+            log.warn("Reconciliação de carrinhos: {} carrinho(s) com total divergente foram corrigidos", corrigidos);
+        }
+    }
+}
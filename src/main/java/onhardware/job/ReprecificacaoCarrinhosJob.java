@@ -0,0 +1,33 @@
+package onhardware.job;
+
+import onhardware.service.ReprecificacaoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/*
+Leva os preços alterados aos itens dos carrinhos abertos (ReprecificacaoService), em lotes de produtos
+e, dentro deles, de itens (uma transação curta por lote de itens), até não sobrar produto marcado.
+Desligado com cron "-".
+ */
+@Component
+public class ReprecificacaoCarrinhosJob {
+
+    @Autowired
+    private ReprecificacaoService reprecificacaoService;
+
+    @Value("${onhardware.reprecificacao.produtos-por-lote}")
+    private int produtosPorLote;
+
+    @Value("${onhardware.reprecificacao.itens-por-lote}")
+    private int itensPorLote;
+
+    @Scheduled(cron = "${onhardware.reprecificacao.cron:-}")
+    public void reprecificarCarrinhos() {
+        int produtos;
+        do {
+            produtos = reprecificacaoService.reprecificarPendentes(produtosPorLote, itensPorLote);
+        } while (produtos == produtosPorLote);
+    }
+}
@@ -6,10 +6,11 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,7 +23,8 @@ import java.util.List;
 public class Carrinho {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "carrinhos_seq")
+    @SequenceGenerator(name = "carrinhos_seq", sequenceName = "carrinhos_seq", allocationSize = 50)
     private Long idCarrinho;
 
     /*
@@ -38,7 +40,7 @@ public class Carrinho {
     @Column(nullable = false)
     private BigDecimal valorTotalCarrinho = BigDecimal.ZERO;
 
-    @CreationTimestamp
+    // Chave de partição de carrinhos e produtos_carrinho (mês de criação); preenchida em registrarCriacao()
     @JsonFormat(pattern = "dd/MM/yyyy HH:mm:ss")
     @Column(nullable = false, updatable = false)
     private LocalDateTime dataRegistroCarrinho;
@@ -47,4 +49,25 @@ public class Carrinho {
     private LocalDateTime dataCompraFinalizada;
 
     private boolean finalizado = false;
+
+    // Atualizada também pelos comandos em massa de CarrinhoRepository, que não passam pelo Hibernate.
+    @UpdateTimestamp
+    @JsonFormat(pattern = "dd/MM/yyyy HH:mm:ss")
+    private LocalDateTime dataAtualizacaoCarrinho;
+
+    // Controle de concorrência otimista: gravações com versão desatualizada são rejeitadas.
+    @Version
+    private Long versao;
+
+    /*
+    Preenchida antes da gravação (e não no INSERT, como faria @CreationTimestamp): os itens gravados junto com
+    o carrinho copiam a data para a mesma partição. Truncada em microssegundos, a precisão da coluna, para a
+    cópia dos itens ser igual ao valor gravado no carrinho.
+     */
+    @PrePersist
+    void registrarCriacao() {
+        if (dataRegistroCarrinho == null) {
+            dataRegistroCarrinho = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        }
+    }
 }
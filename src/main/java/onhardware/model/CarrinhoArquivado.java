@@ -0,0 +1,42 @@
+package onhardware.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/*
+Carrinho finalizado movido para fora da tabela carrinhos por LimpezaCarrinhoService.
+Mantém o mesmo ID do carrinho original; gravado só por INSERT ... SELECT, nunca alterado.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "carrinhos_arquivados",
+        indexes = @Index(name = "idx_carrinhos_arquivados_data_registro", columnList = "dataRegistroCarrinho"))
+public class CarrinhoArquivado {
+
+    @Id
+    private Long idCarrinho;
+
+    @Column(nullable = false)
+    private BigDecimal valorTotalCarrinho;
+
+    @JsonFormat(pattern = "dd/MM/yyyy HH:mm:ss")
+    @Column(nullable = false)
+    private LocalDateTime dataRegistroCarrinho;
+
+    @JsonFormat(pattern = "dd/MM/yyyy HH:mm:ss")
+    private LocalDateTime dataCompraFinalizada;
+
+    @JsonFormat(pattern = "dd/MM/yyyy HH:mm:ss")
+    @Column(nullable = false)
+    private LocalDateTime dataArquivamento;
+}
@@ -0,0 +1,69 @@
+package onhardware.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/*
+Fila de finalização de compras (outbox): cada pedido de finalização vira uma linha, gravada na mesma
+transação que o valida, e é processada depois por ProcessamentoCheckoutJob.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "checkouts",
+        uniqueConstraints = @UniqueConstraint(name = "uk_checkouts_chave_idempotencia", columnNames = "chave_idempotencia"),
+        indexes = {
+                @Index(name = "idx_checkouts_status", columnList = "status, idCheckout"),
+                @Index(name = "idx_checkouts_carrinho", columnList = "idCarrinho")
+        })
+public class Checkout {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "checkouts_seq")
+    @SequenceGenerator(name = "checkouts_seq", sequenceName = "checkouts_seq", allocationSize = 50)
+    private Long idCheckout;
+
+    // Informada pelo cliente (cabeçalho Idempotency-Key) ou derivada do carrinho e da sua versão
+    @Column(nullable = false, length = 100)
+    private String chaveIdempotencia;
+
+    @Column(nullable = false)
+    private Long idCarrinho;
+
+    // Versão do carrinho no momento do pedido: alterações posteriores invalidam a finalização
+    @Column(nullable = false)
+    private Long versaoCarrinho;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StatusCheckout status;
+
+    private int tentativas;
+
+    @Column(length = 500)
+    private String mensagem;
+
+    private Long idPedido;
+
+    @CreationTimestamp
+    @JsonFormat(pattern = "dd/MM/yyyy HH:mm:ss")
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime dataRegistro;
+
+    @UpdateTimestamp
+    @JsonFormat(pattern = "dd/MM/yyyy HH:mm:ss")
+    private LocalDateTime dataAtualizacao;
+
+    @Version
+    private Long versao;
+}
@@ -0,0 +1,44 @@
+package onhardware.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/*
+Estoque disponível de um produto, dividido em fatias (linhas) independentes.
+Reservas simultâneas do mesmo produto caem em fatias diferentes e não disputam a mesma linha:
+em um lançamento concorrido, a fila de bloqueio se divide pelo número de fatias.
+Produto sem fatias não tem estoque controlado.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@IdClass(EstoqueFatia.Chave.class)
+@Table(name = "estoque_fatias")
+public class EstoqueFatia {
+
+    @Id
+    private Long idProduto;
+
+    @Id
+    private int fatia;
+
+    @Column(nullable = false)
+    private int disponivel;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Chave implements Serializable {
+
+        private Long idProduto;
+
+        private int fatia;
+    }
+}
@@ -0,0 +1,46 @@
+package onhardware.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "itens_pedido", indexes = @Index(name = "idx_itens_pedido_pedido", columnList = "pedido_id_pedido"))
+public class ItemPedido {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "itens_pedido_seq")
+    @SequenceGenerator(name = "itens_pedido_seq", sequenceName = "itens_pedido_seq", allocationSize = 50)
+    private Long idItemPedido;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(nullable = false)
+    private Pedido pedido;
+
+    // Cópia do produto na finalização: o pedido não muda se o produto for alterado depois
+    @Column(nullable = false)
+    private Long idProduto;
+
+    @Column(nullable = false)
+    private String nomeProduto;
+
+    @Column(nullable = false)
+    private String marcaProduto;
+
+    @Column(nullable = false)
+    private int quantidade;
+
+    @Column(nullable = false)
+    private BigDecimal precoUnitario;
+
+    @Column(nullable = false)
+    private BigDecimal precoTotal;
+}
@@ -0,0 +1,52 @@
+package onhardware.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Registro da compra finalizada: cópia dos itens e preços do carrinho no momento da finalização.
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "pedidos", uniqueConstraints = @UniqueConstraint(name = "uk_pedidos_carrinho", columnNames = "id_carrinho"))
+public class Pedido {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pedidos_seq")
+    @SequenceGenerator(name = "pedidos_seq", sequenceName = "pedidos_seq", allocationSize = 50)
+    private Long idPedido;
+
+    // Um carrinho gera no máximo um pedido (restrição única), mesmo com finalizações repetidas
+    @Column(nullable = false)
+    private Long idCarrinho;
+
+    @Column(nullable = false)
+    private Long idCheckout;
+
+    @OneToMany(mappedBy = "pedido", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @Builder.Default
+    private List<ItemPedido> itens = new ArrayList<>();
+
+    @Column(nullable = false)
+    private BigDecimal valorTotalPedido;
+
+    @CreationTimestamp
+    @JsonFormat(pattern = "dd/MM/yyyy HH:mm:ss")
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime dataRegistroPedido;
+
+    // Já somado aos totais de vendas (VendasService.contabilizarPedidos)
+    @Column(nullable = false)
+    private boolean contabilizado;
+}
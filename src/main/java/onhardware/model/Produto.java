@@ -7,6 +7,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -16,11 +17,12 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "produtos")
+@Table(name = "produtos", indexes = @Index(name = "idx_produtos_modelo_marca", columnList = "modeloProduto, marcaProduto"))
 public class Produto {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "produtos_seq")
+    @SequenceGenerator(name = "produtos_seq", sequenceName = "produtos_seq", allocationSize = 50)
     private Long idProduto;
 
     @Column(nullable = false)
@@ -42,4 +44,16 @@ public class Produto {
     @JsonFormat(pattern = "dd/MM/yyyy HH:mm:ss")
     @Column(nullable = false, updatable = false)
     private LocalDateTime dataRegistroProduto;
+
+    @UpdateTimestamp
+    @JsonFormat(pattern = "dd/MM/yyyy HH:mm:ss")
+    private LocalDateTime dataAtualizacaoProduto;
+
+    // Preço alterado e ainda não levado aos itens dos carrinhos abertos (ReprecificacaoService)
+    @Column(nullable = false)
+    private boolean reprecificacaoPendente;
+
+    // Avança a cada alteração: base do ETag das respostas e controle de concorrência otimista.
+    @Version
+    private Long versao;
 }
@@ -7,17 +7,22 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Data
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "produtos_carrinho")
+@Table(name = "produtos_carrinho", uniqueConstraints = @UniqueConstraint(
+        name = "uk_produtos_carrinho_carrinho_produto",
+        columnNames = {"carrinho_id_carrinho", "produto_id_produto", "data_registro_carrinho"}),
+        indexes = @Index(name = "idx_produtos_carrinho_produto", columnList = "produto_id_produto, id_produto_carrinho"))
 public class ProdutoCarrinho {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "produtos_carrinho_seq")
+    @SequenceGenerator(name = "produtos_carrinho_seq", sequenceName = "produtos_carrinho_seq", allocationSize = 50)
     private Long idProdutoCarrinho;
 
     // Muitos produtos podem estar relacionados a um mesmo produto.
@@ -35,4 +40,15 @@ public class ProdutoCarrinho {
 
     @Column(nullable = false)
     private BigDecimal precoTotal;
+
+    // Cópia da data de criação do carrinho: chave de partição da tabela (o item fica na partição do mês do carrinho).
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime dataRegistroCarrinho;
+
+    @PrePersist
+    void copiarDataRegistroCarrinho() {
+        if (dataRegistroCarrinho == null) {
+            dataRegistroCarrinho = carrinho.getDataRegistroCarrinho();
+        }
+    }
 }
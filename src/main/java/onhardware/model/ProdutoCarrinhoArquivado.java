@@ -0,0 +1,38 @@
+package onhardware.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/*
+Item de um carrinho arquivado (CarrinhoArquivado). Guarda só o ID do produto, sem chave estrangeira:
+o produto pode ser apagado do catálogo depois do arquivamento.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "produtos_carrinho_arquivados",
+        indexes = @Index(name = "idx_produtos_carrinho_arquivados_carrinho", columnList = "idCarrinho"))
+public class ProdutoCarrinhoArquivado {
+
+    @Id
+    private Long idProdutoCarrinho;
+
+    @Column(nullable = false)
+    private Long idCarrinho;
+
+    @Column(nullable = false)
+    private Long idProduto;
+
+    @Column(nullable = false)
+    private int quantidade;
+
+    @Column(nullable = false)
+    private BigDecimal precoTotal;
+}
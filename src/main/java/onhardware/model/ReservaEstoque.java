@@ -0,0 +1,38 @@
+package onhardware.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Quantidade de um produto separada para um carrinho até expiraEm (renovada a cada adição).
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "reservas_estoque",
+        uniqueConstraints = @UniqueConstraint(name = "uk_reservas_estoque_carrinho_produto", columnNames = {"id_carrinho", "id_produto"}),
+        indexes = @Index(name = "idx_reservas_estoque_expira_em", columnList = "expiraEm"))
+public class ReservaEstoque {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservas_estoque_seq")
+    @SequenceGenerator(name = "reservas_estoque_seq", sequenceName = "reservas_estoque_seq", allocationSize = 50)
+    private Long idReserva;
+
+    @Column(nullable = false)
+    private Long idCarrinho;
+
+    @Column(nullable = false)
+    private Long idProduto;
+
+    @Column(nullable = false)
+    private int quantidade;
+
+    @Column(nullable = false)
+    private LocalDateTime expiraEm;
+}
@@ -0,0 +1,48 @@
+package onhardware.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/*
+Resposta de um comando enviado com Idempotency-Key (IdempotenciaFilter), guardada para ser devolvida às
+repetições sem executar o comando de novo. Sem status, a requisição original ainda está em andamento.
+Gravada no banco só com onhardware.idempotencia.persistir=true; senão fica apenas em memória.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "respostas_idempotentes",
+        indexes = @Index(name = "idx_respostas_idempotentes_data_criacao", columnList = "dataCriacao"))
+public class RespostaIdempotente {
+
+    // Método, caminho e chave informada pelo cliente
+    @Id
+    @Column(length = 400)
+    private String chave;
+
+    // SHA-256 do corpo da requisição: a mesma chave com outro corpo é recusada
+    @Column(nullable = false, length = 64)
+    private String impressaoDigital;
+
+    private Integer status;
+
+    @Column(length = 100)
+    private String tipoConteudo;
+
+    @Column(length = 500)
+    private String location;
+
+    // bytea no PostgreSQL; o tamanho acompanha onhardware.idempotencia.tamanho-maximo-resposta
+    @Column(length = 1048576)
+    private byte[] corpo;
+
+    @Column(nullable = false)
+    private LocalDateTime dataCriacao;
+}
@@ -0,0 +1,8 @@
+package onhardware.model;
+
+public enum StatusCheckout {
+    PENDENTE,
+    PROCESSANDO,
+    CONCLUIDO,
+    FALHOU
+}
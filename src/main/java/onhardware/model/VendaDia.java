@@ -0,0 +1,35 @@
+package onhardware.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/*
+Totais de vendas por dia, mantidos por VendasService.contabilizarPedidos() à medida que os pedidos são
+registrados. As consultas de vendas leem só estas tabelas, sem percorrer pedidos ou produtos_carrinho.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "vendas_dia")
+public class VendaDia {
+
+    @Id
+    private LocalDate dia;
+
+    @Column(nullable = false)
+    private long pedidos;
+
+    @Column(nullable = false)
+    private long unidades;
+
+    @Column(nullable = false)
+    private BigDecimal valorTotal;
+}
@@ -0,0 +1,44 @@
+package onhardware.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Totais de vendas por marca e dia (ver VendaDia): poucas linhas por dia, mesmo com catálogo grande.
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@IdClass(VendaMarcaDia.Chave.class)
+@Table(name = "vendas_marca_dia")
+public class VendaMarcaDia {
+
+    @Id
+    private LocalDate dia;
+
+    @Id
+    private String marcaProduto;
+
+    @Column(nullable = false)
+    private long unidades;
+
+    @Column(nullable = false)
+    private BigDecimal valorTotal;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Chave implements Serializable {
+
+        private LocalDate dia;
+
+        private String marcaProduto;
+    }
+}
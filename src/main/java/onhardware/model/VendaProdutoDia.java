@@ -0,0 +1,50 @@
+package onhardware.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Totais de vendas por produto e dia (ver VendaDia). Nome e marca são os do pedido mais recente contabilizado.
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@IdClass(VendaProdutoDia.Chave.class)
+@Table(name = "vendas_produto_dia")
+public class VendaProdutoDia {
+
+    @Id
+    private LocalDate dia;
+
+    @Id
+    private Long idProduto;
+
+    @Column(nullable = false)
+    private String nomeProduto;
+
+    @Column(nullable = false)
+    private String marcaProduto;
+
+    @Column(nullable = false)
+    private long unidades;
+
+    @Column(nullable = false)
+    private BigDecimal valorTotal;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Chave implements Serializable {
+
+        private LocalDate dia;
+
+        private Long idProduto;
+    }
+}
@@ -0,0 +1,21 @@
+package onhardware.repository;
+
+import onhardware.DTO.CandidatoBuscaDTO;
+import onhardware.DTO.FiltroBuscaProdutoDTO;
+
+import java.util.List;
+import java.util.Optional;
+
+// Busca textual do catálogo (consultas nativas do PostgreSQL, ver BuscaProdutoRepositoryImpl).
+public interface BuscaProdutoRepository {
+
+    // Até "limite" produtos que atendem ao filtro, com a relevância em relação ao termo, do mais relevante ao menos
+    // (empate: ordem de cadastro)
+    List<CandidatoBuscaDTO> buscarCandidatos(FiltroBuscaProdutoDTO filtro, boolean filtrarMarca, int limite);
+
+    // Palavra do catálogo mais parecida com a informada (correção de erros de digitação)
+    Optional<String> buscarPalavraSemelhante(String palavra);
+
+    // Recalcula o vocabulário usado na correção (sem bloquear as buscas em andamento)
+    void atualizarPalavras();
+}
@@ -0,0 +1,128 @@
+package onhardware.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import onhardware.DTO.CandidatoBuscaDTO;
+import onhardware.DTO.FiltroBuscaProdutoDTO;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/*
+CLASSE -> BuscaProdutoRepositoryImpl
+
+- Texto: coluna gerada documento_busca (tsvector de nome, marca, modelo e especificação) com índice GIN;
+  a última palavra vale como prefixo ("rtx 40" acha "RTX 4090") e as anteriores, inteiras: um prefixo curto
+  expande para milhares de termos do índice (ex.: "rtx:*" pega cada "rtx-<número>" dos modelos), e com
+  prefixo em todas as palavras a varredura do GIN custava de 3 a 4 vezes mais
+- Erros de digitação: as palavras do catálogo ficam em palavras_busca (índice de trigramas do pg_trgm)
+- Marca e faixa de preço: filtros simples, atendidos pelo índice (marca_produto, preco_produto)
+- Devolve só ID, marca e relevância, já ordenados por relevância antes do limite: o índice é percorrido
+  uma única vez por busca e o serviço conta e monta as facetas em memória
+- Ordenar pela relevância obriga a calcular ts_rank_cd de todos os produtos encontrados: termos muito amplos
+  (centenas de milhares de produtos) ficam bem mais lentos que os específicos
+- Coluna, visão e índices são criados pela migração db/migration/V1__esquema_inicial.sql
+ */
+
+public class BuscaProdutoRepositoryImpl implements BuscaProdutoRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<CandidatoBuscaDTO> buscarCandidatos(FiltroBuscaProdutoDTO filtro, boolean filtrarMarca, int limite) {
+        Map<String, Object> parametros = new HashMap<>();
+        String where = montarWhere(filtro, filtrarMarca, parametros);
+
+        // Mais relevantes primeiro (empate: ordem de cadastro); sem termo não há relevância: ordem de cadastro
+        String sql = parametros.containsKey("consulta")
+                ? "SELECT id_produto, marca_produto, ts_rank_cd(documento_busca, to_tsquery('simple', :consulta)) AS relevancia "
+                + "FROM produtos" + where + " ORDER BY relevancia DESC, id_produto LIMIT :limite"
+                : "SELECT id_produto, marca_produto, 0 FROM produtos" + where + " ORDER BY id_produto LIMIT :limite";
+
+        Query query = entityManager.createNativeQuery(sql);
+        parametros.forEach(query::setParameter);
+        query.setParameter("limite", limite);
+
+        List<CandidatoBuscaDTO> candidatos = new ArrayList<>();
+        for (Object[] linha : (List<Object[]>) query.getResultList()) {
+            candidatos.add(CandidatoBuscaDTO.builder()
+                    .idProduto(((Number) linha[0]).longValue())
+                    .marcaProduto((String) linha[1])
+                    .relevancia(((Number) linha[2]).doubleValue())
+                    .build());
+        }
+        return candidatos;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<String> buscarPalavraSemelhante(String palavra) {
+        List<String> palavras = entityManager.createNativeQuery(
+                        "SELECT palavra FROM palavras_busca WHERE palavra % :palavra "
+                                + "ORDER BY similarity(palavra, :palavra) DESC, documentos DESC LIMIT 1")
+                .setParameter("palavra", palavra.toLowerCase(Locale.ROOT))
+                .getResultList();
+        return palavras.stream().findFirst();
+    }
+
+    @Override
+    public void atualizarPalavras() {
+        entityManager.createNativeQuery("REFRESH MATERIALIZED VIEW CONCURRENTLY palavras_busca").executeUpdate();
+    }
+
+    // Monta o WHERE só com os filtros informados (sem "OR :x IS NULL", que impede o uso dos índices)
+    private String montarWhere(FiltroBuscaProdutoDTO filtro, boolean filtrarMarca, Map<String, Object> parametros) {
+        List<String> condicoes = new ArrayList<>();
+
+        String consulta = montarConsultaPorPrefixo(filtro.getTermo());
+        if (consulta != null) {
+            condicoes.add("documento_busca @@ to_tsquery('simple', :consulta)");
+            parametros.put("consulta", consulta);
+        }
+        if (filtrarMarca && filtro.getMarcas() != null && !filtro.getMarcas().isEmpty()) {
+            condicoes.add("marca_produto IN (:marcas)");
+            parametros.put("marcas", filtro.getMarcas());
+        }
+        if (filtro.getPrecoMinimo() != null) {
+            condicoes.add("preco_produto >= :precoMinimo");
+            parametros.put("precoMinimo", filtro.getPrecoMinimo());
+        }
+        if (filtro.getPrecoMaximo() != null) {
+            condicoes.add("preco_produto <= :precoMaximo");
+            parametros.put("precoMaximo", filtro.getPrecoMaximo());
+        }
+
+        return condicoes.isEmpty() ? "" : " WHERE " + String.join(" AND ", condicoes);
+    }
+
+    // "placa RTX 40" -> "placa & rtx & 40:*" (apenas letras e números, para não quebrar a sintaxe do to_tsquery)
+    static String montarConsultaPorPrefixo(String termo) {
+        List<String> palavras = separarPalavras(termo);
+        if (palavras.isEmpty()) {
+            return null;
+        }
+        int ultima = palavras.size() - 1;
+        palavras.set(ultima, palavras.get(ultima) + ":*");
+        return String.join(" & ", palavras);
+    }
+
+    public static List<String> separarPalavras(String termo) {
+        List<String> palavras = new ArrayList<>();
+        if (termo == null) {
+            return palavras;
+        }
+        for (String palavra : termo.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!palavra.isEmpty()) {
+                palavras.add(palavra);
+            }
+        }
+        return palavras;
+    }
+}
@@ -0,0 +1,25 @@
+package onhardware.repository;
+
+import onhardware.model.CarrinhoArquivado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface CarrinhoArquivadoRepository extends JpaRepository<CarrinhoArquivado, Long> {
+
+    // Copia os carrinhos e seus itens para as tabelas de arquivo no próprio banco (INSERT ... SELECT), sem carregar entidades.
+    @Modifying(flushAutomatically = true)
+    @Query("insert into CarrinhoArquivado (idCarrinho, valorTotalCarrinho, dataRegistroCarrinho, dataCompraFinalizada, dataArquivamento) " +
+            "select c.idCarrinho, c.valorTotalCarrinho, c.dataRegistroCarrinho, c.dataCompraFinalizada, local datetime " +
+            "from Carrinho c where c.idCarrinho in :idsCarrinho")
+    int arquivarCarrinhos(@Param("idsCarrinho") Collection<Long> idsCarrinho);
+
+    @Modifying(flushAutomatically = true)
+    @Query("insert into ProdutoCarrinhoArquivado (idProdutoCarrinho, idCarrinho, idProduto, quantidade, precoTotal) " +
+            "select pc.idProdutoCarrinho, pc.carrinho.idCarrinho, pc.produto.idProduto, pc.quantidade, pc.precoTotal " +
+            "from ProdutoCarrinho pc where pc.carrinho.idCarrinho in :idsCarrinho")
+    int arquivarItens(@Param("idsCarrinho") Collection<Long> idsCarrinho);
+}
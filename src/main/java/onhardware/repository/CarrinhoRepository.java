@@ -1,8 +1,135 @@
 package onhardware.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import onhardware.DTO.CarrinhoResumoDTO;
+import onhardware.DTO.ItemCarrinhoResumoDTO;
+import onhardware.DTO.VersaoCarrinhoDTO;
 import onhardware.model.Carrinho;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface CarrinhoRepository extends JpaRepository<Carrinho, Long> {
 
+    String SOMA_ITENS = "(select coalesce(sum(pc.precoTotal), 0) from ProdutoCarrinho pc where pc.carrinho.idCarrinho = c.idCarrinho)";
+
+    // Carrega o carrinho, seus itens e os produtos dos itens em uma única consulta.
+    @EntityGraph(attributePaths = {"produtos", "produtos.produto"})
+    Optional<Carrinho> findComProdutosByIdCarrinho(Long idCarrinho);
+
+    // Mesmo plano de carga, para vários carrinhos de uma vez.
+    @EntityGraph(attributePaths = {"produtos", "produtos.produto"})
+    List<Carrinho> findComProdutosByIdCarrinhoInOrderByIdCarrinhoAsc(Collection<Long> idsCarrinho);
+
+    // Visão resumida (projeção): totais e quantidade de itens, sem carregar entidades.
+    String RESUMO = "select new onhardware.DTO.CarrinhoResumoDTO(c.idCarrinho, c.valorTotalCarrinho, count(pc), " +
+            "c.finalizado, c.dataCompraFinalizada) from Carrinho c left join c.produtos pc ";
+    String AGRUPAMENTO_RESUMO = " group by c.idCarrinho, c.valorTotalCarrinho, c.finalizado, c.dataCompraFinalizada";
+
+    @Query(RESUMO + "where c.idCarrinho = :idCarrinho" + AGRUPAMENTO_RESUMO)
+    Optional<CarrinhoResumoDTO> buscarResumo(@Param("idCarrinho") Long idCarrinho);
+
+    @Query(RESUMO + "where c.idCarrinho > :ultimoId" + AGRUPAMENTO_RESUMO + " order by c.idCarrinho")
+    List<CarrinhoResumoDTO> buscarResumosAPartirDe(@Param("ultimoId") Long ultimoId, Limit limite);
+
+    @Query("select new onhardware.DTO.ItemCarrinhoResumoDTO(p.idProduto, p.nomeProduto, pc.quantidade, pc.precoTotal) " +
+            "from ProdutoCarrinho pc join pc.produto p where pc.carrinho.idCarrinho = :idCarrinho order by pc.idProdutoCarrinho")
+    List<ItemCarrinhoResumoDTO> buscarItensResumo(@Param("idCarrinho") Long idCarrinho);
+
+    // Usado para percorrer os carrinhos em lotes sem carregar as entidades.
+    @Query("select c.idCarrinho from Carrinho c where c.idCarrinho > :ultimoId order by c.idCarrinho")
+    List<Long> buscarIdsAPartirDe(@Param("ultimoId") Long ultimoId, Limit limite);
+
+    // Mesmo percurso, só pelos carrinhos abertos (reconciliação dos totais).
+    @Query("select c.idCarrinho from Carrinho c where c.idCarrinho > :ultimoId and c.finalizado = false order by c.idCarrinho")
+    List<Long> buscarIdsAbertosAPartirDe(@Param("ultimoId") Long ultimoId, Limit limite);
+
+    // Validadores da resposta HTTP (ETag/Last-Modified): versão do carrinho e dos produtos dos itens, sem carregar entidades.
+    @Query("select new onhardware.DTO.VersaoCarrinhoDTO(c.versao, c.dataAtualizacaoCarrinho, coalesce(sum(p.versao), 0), " +
+            "max(p.dataAtualizacaoProduto)) from Carrinho c left join c.produtos pc left join pc.produto p " +
+            "where c.idCarrinho = :idCarrinho group by c.idCarrinho, c.versao, c.dataAtualizacaoCarrinho")
+    Optional<VersaoCarrinhoDTO> buscarVersao(@Param("idCarrinho") Long idCarrinho);
+
+    // Data de criação do carrinho (chave de partição), para os comandos seguintes irem direto à partição do mês.
+    @Query("select c.dataRegistroCarrinho from Carrinho c where c.idCarrinho = :idCarrinho")
+    Optional<LocalDateTime> buscarDataRegistro(@Param("idCarrinho") Long idCarrinho);
+
+    // Aplica só a diferença ao total (sem somar os itens) e avança a versão, invalidando cópias em memória.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Carrinho c set c.valorTotalCarrinho = c.valorTotalCarrinho + :diferenca, c.versao = c.versao + 1, " +
+            "c.dataAtualizacaoCarrinho = local datetime " +
+            "where c.idCarrinho = :idCarrinho and c.dataRegistroCarrinho = :dataRegistroCarrinho")
+    int somarAoTotal(@Param("idCarrinho") Long idCarrinho, @Param("dataRegistroCarrinho") LocalDateTime dataRegistroCarrinho,
+                     @Param("diferenca") BigDecimal diferenca);
+
+    // Conferência: refaz o total a partir dos itens, apenas se ele estiver divergente.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Carrinho c set c.valorTotalCarrinho = " + SOMA_ITENS + ", c.versao = c.versao + 1, " +
+            "c.dataAtualizacaoCarrinho = local datetime " +
+            "where c.idCarrinho = :idCarrinho and c.valorTotalCarrinho <> " + SOMA_ITENS)
+    int corrigirTotal(@Param("idCarrinho") Long idCarrinho);
+
+    // Mesma conferência, só para os carrinhos informados, já bloqueados por bloquearAbertos()
+    // (ReprecificacaoService e CarrinhoService.reconciliarTotais()).
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Carrinho c set c.valorTotalCarrinho = " + SOMA_ITENS + ", c.versao = c.versao + 1, " +
+            "c.dataAtualizacaoCarrinho = local datetime " +
+            "where c.idCarrinho in :idsCarrinho and c.valorTotalCarrinho <> " + SOMA_ITENS)
+    int corrigirTotais(@Param("idsCarrinho") Collection<Long> idsCarrinho);
+
+    // Bloqueia, até o fim da transação, os carrinhos informados que ainda estão abertos, em ordem de ID.
+    // Uma adição simultânea trava o item antes do carrinho e pode entrar em deadlock com a reprecificação;
+    // o banco aborta uma das duas e TransacaoComRetentativa a repete.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c.idCarrinho from Carrinho c where c.idCarrinho in :idsCarrinho and c.finalizado = false order by c.idCarrinho")
+    List<Long> bloquearAbertos(@Param("idsCarrinho") Collection<Long> idsCarrinho);
+
+    // Limpeza (LimpezaCarrinhoService): carrinhos abertos alterados pela última vez antes de :alteradoAntesDe, sem reserva de estoque
+    // pendente e sem finalização em andamento. SKIP LOCKED: carrinhos em uso agora ficam para a próxima execução.
+    // Criados antes da última alteração: o filtro na data de criação descarta as partições dos meses recentes.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select c from Carrinho c where c.finalizado = false and c.dataAtualizacaoCarrinho < :alteradoAntesDe " +
+            "and c.dataRegistroCarrinho < :alteradoAntesDe " +
+            "and not exists (select 1 from ReservaEstoque r where r.idCarrinho = c.idCarrinho) " +
+            "and not exists (select 1 from Checkout k where k.idCarrinho = c.idCarrinho " +
+            "and k.status in (onhardware.model.StatusCheckout.PENDENTE, onhardware.model.StatusCheckout.PROCESSANDO)) " +
+            "order by c.idCarrinho")
+    List<Carrinho> buscarAbandonados(@Param("alteradoAntesDe") LocalDateTime alteradoAntesDe, Limit limite);
+
+    // Carrinhos finalizados antes de :finalizadoAntesDe, prontos para o arquivo (mesmo corte de partições).
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select c from Carrinho c where c.finalizado = true and c.dataCompraFinalizada < :finalizadoAntesDe " +
+            "and c.dataRegistroCarrinho < :finalizadoAntesDe order by c.idCarrinho")
+    List<Carrinho> buscarFinalizadosAntesDe(@Param("finalizadoAntesDe") LocalDateTime finalizadoAntesDe, Limit limite);
+
+    // Os itens precisam ser apagados antes (ProdutoCarrinhoRepository.apagarDosCarrinhos).
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Carrinho c where c.idCarrinho in :idsCarrinho")
+    int apagarCarrinhos(@Param("idsCarrinho") Collection<Long> idsCarrinho);
+
+    // Manutenção das partições mensais (funções criadas na migração V2, só no PostgreSQL).
+    // Transação de escrita: as funções executam DDL (consultas de repositório são somente leitura por padrão).
+    @Transactional
+    @Query(value = "select criar_particoes_carrinhos(cast(:inicio as date), cast(:fim as date))", nativeQuery = true)
+    int criarParticoes(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    @Transactional
+    @Query(value = "select remover_particoes_carrinhos_vazias(cast(:antesDe as date))", nativeQuery = true)
+    int removerParticoesVazias(@Param("antesDe") LocalDate antesDe);
 }
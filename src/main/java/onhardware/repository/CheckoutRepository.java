@@ -0,0 +1,35 @@
+package onhardware.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import onhardware.model.Checkout;
+import onhardware.model.StatusCheckout;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface CheckoutRepository extends JpaRepository<Checkout, Long> {
+
+    Optional<Checkout> findByChaveIdempotencia(String chaveIdempotencia);
+
+    Optional<Checkout> findFirstByIdCarrinhoAndStatusInOrderByIdCheckoutDesc(Long idCarrinho, Collection<StatusCheckout> status);
+
+    long countByIdCarrinhoAndVersaoCarrinho(Long idCarrinho, Long versaoCarrinho);
+
+    // Próximo lote da fila: pendentes e processamentos abandonados (instância caiu no meio).
+    // SKIP LOCKED: várias instâncias disputam a fila sem esperar umas pelas outras.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select c from Checkout c where c.status = onhardware.model.StatusCheckout.PENDENTE " +
+            "or (c.status = onhardware.model.StatusCheckout.PROCESSANDO and c.dataAtualizacao < :abandonadoAntesDe) " +
+            "order by c.idCheckout")
+    List<Checkout> buscarParaProcessar(@Param("abandonadoAntesDe") LocalDateTime abandonadoAntesDe, Limit limite);
+}
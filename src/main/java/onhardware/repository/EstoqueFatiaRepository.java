@@ -0,0 +1,41 @@
+package onhardware.repository;
+
+import jakarta.persistence.LockModeType;
+import onhardware.model.EstoqueFatia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface EstoqueFatiaRepository extends JpaRepository<EstoqueFatia, EstoqueFatia.Chave> {
+
+    // Leitura sem bloqueio: candidatas à retirada (o UPDATE condicional confirma o saldo).
+    @Query("select f.fatia from EstoqueFatia f where f.idProduto = :idProduto and f.disponivel >= :quantidade")
+    List<Integer> buscarFatiasComSaldo(@Param("idProduto") Long idProduto, @Param("quantidade") int quantidade);
+
+    boolean existsByIdProduto(Long idProduto);
+
+    // Retirada atômica: só altera a fatia se ela ainda tiver saldo, então nunca fica negativa (sem venda a mais).
+    @Modifying
+    @Query("update EstoqueFatia f set f.disponivel = f.disponivel - :quantidade " +
+            "where f.idProduto = :idProduto and f.fatia = :fatia and f.disponivel >= :quantidade")
+    int retirar(@Param("idProduto") Long idProduto, @Param("fatia") int fatia, @Param("quantidade") int quantidade);
+
+    @Modifying
+    @Query("update EstoqueFatia f set f.disponivel = f.disponivel + :quantidade where f.idProduto = :idProduto and f.fatia = :fatia")
+    int devolver(@Param("idProduto") Long idProduto, @Param("fatia") int fatia, @Param("quantidade") int quantidade);
+
+    // Bloqueia todas as fatias do produto, sempre na mesma ordem (sem deadlock entre transações).
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<EstoqueFatia> findByIdProdutoOrderByFatia(Long idProduto);
+
+    @Modifying
+    @Query("delete from EstoqueFatia f where f.idProduto = :idProduto")
+    int apagarDoProduto(@Param("idProduto") Long idProduto);
+
+    @Query("select coalesce(sum(f.disponivel), 0) from EstoqueFatia f where f.idProduto = :idProduto")
+    long somarDisponivel(@Param("idProduto") Long idProduto);
+}
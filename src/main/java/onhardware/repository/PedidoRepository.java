@@ -0,0 +1,24 @@
+package onhardware.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import onhardware.model.Pedido;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface PedidoRepository extends JpaRepository<Pedido, Long> {
+
+    Optional<Pedido> findByIdCarrinho(Long idCarrinho);
+
+    // Próximo lote de pedidos a somar nos totais de vendas; SKIP LOCKED: instâncias diferentes pegam lotes diferentes.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select p from Pedido p where p.contabilizado = false order by p.idPedido")
+    List<Pedido> buscarNaoContabilizados(Limit limite);
+}
@@ -1,8 +1,76 @@
 package onhardware.repository;
 
+import jakarta.persistence.LockModeType;
+import onhardware.DTO.ItemReprecificacaoDTO;
 import onhardware.model.ProdutoCarrinho;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ProdutoCarrinhoRepository extends JpaRepository<ProdutoCarrinho, Long> {
 
+    // Soma quantidade e valor no próprio banco (UPDATE atômico); retorna 0 se o produto ainda não está no carrinho.
+    // A data de criação do carrinho limita o comando à partição do mês.
+    @Modifying(flushAutomatically = true)
+    @Query("update ProdutoCarrinho pc set pc.quantidade = pc.quantidade + :quantidade, pc.precoTotal = pc.precoTotal + :valor " +
+            "where pc.carrinho.idCarrinho = :idCarrinho and pc.dataRegistroCarrinho = :dataRegistroCarrinho " +
+            "and pc.produto.idProduto = :idProduto")
+    int somarQuantidade(@Param("idCarrinho") Long idCarrinho, @Param("dataRegistroCarrinho") LocalDateTime dataRegistroCarrinho,
+                        @Param("idProduto") Long idProduto, @Param("quantidade") int quantidade, @Param("valor") BigDecimal valor);
+
+    // Item com ID já definido (itens criados em memória por CarrinhosAtivos, que reserva os IDs da própria sequência).
+    @Modifying
+    @Query(value = "insert into produtos_carrinho (id_produto_carrinho, produto_id_produto, carrinho_id_carrinho, " +
+            "data_registro_carrinho, quantidade, preco_total) " +
+            "values (:idProdutoCarrinho, :idProduto, :idCarrinho, :dataRegistroCarrinho, :quantidade, :valor)", nativeQuery = true)
+    int inserirItem(@Param("idProdutoCarrinho") Long idProdutoCarrinho, @Param("idCarrinho") Long idCarrinho,
+                    @Param("dataRegistroCarrinho") LocalDateTime dataRegistroCarrinho, @Param("idProduto") Long idProduto,
+                    @Param("quantidade") int quantidade, @Param("valor") BigDecimal valor);
+
+    // Apaga o item que ficou sem quantidade depois de somar uma diferença negativa.
+    @Modifying
+    @Query("delete from ProdutoCarrinho pc where pc.carrinho.idCarrinho = :idCarrinho " +
+            "and pc.dataRegistroCarrinho = :dataRegistroCarrinho and pc.produto.idProduto = :idProduto and pc.quantidade <= 0")
+    int apagarSeVazio(@Param("idCarrinho") Long idCarrinho, @Param("dataRegistroCarrinho") LocalDateTime dataRegistroCarrinho,
+                      @Param("idProduto") Long idProduto);
+
+    // Início de um bloco de 50 IDs (incremento da sequência), como o otimizador pooled-lo do Hibernate faz.
+    @Transactional
+    @Query(value = "select nextval('produtos_carrinho_seq')", nativeQuery = true)
+    long reservarBlocoIds();
+
+    // Bloqueia o item até o fim da transação, para que o valor removido do total seja o valor realmente apagado.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<ProdutoCarrinho> findByIdProdutoCarrinhoAndCarrinhoIdCarrinho(Long idProdutoCarrinho, Long idCarrinho);
+
+    // Reprecificação: itens de carrinhos abertos cujo valor não bate com o preço atual, percorridos por (produto, item).
+    @Query("select new onhardware.DTO.ItemReprecificacaoDTO(p.idProduto, pc.idProdutoCarrinho, c.idCarrinho) " +
+            "from ProdutoCarrinho pc join pc.produto p join pc.carrinho c " +
+            "where p.idProduto in :idsProdutos and c.finalizado = false and pc.precoTotal <> p.precoProduto * pc.quantidade " +
+            "and (p.idProduto > :aposProduto or (p.idProduto = :aposProduto and pc.idProdutoCarrinho > :aposItem)) " +
+            "order by p.idProduto, pc.idProdutoCarrinho")
+    List<ItemReprecificacaoDTO> buscarItensComPrecoDesatualizado(@Param("idsProdutos") Collection<Long> idsProdutos,
+                                                                 @Param("aposProduto") Long aposProduto,
+                                                                 @Param("aposItem") Long aposItem, Limit limite);
+
+    // Valor dos itens refeito com o preço atual, no próprio banco; só nos carrinhos informados (abertos e bloqueados).
+    @Modifying(flushAutomatically = true)
+    @Query("update ProdutoCarrinho pc set pc.precoTotal = pc.quantidade * " +
+            "(select p.precoProduto from Produto p where p.idProduto = pc.produto.idProduto) " +
+            "where pc.idProdutoCarrinho in :idsItens and pc.carrinho.idCarrinho in :idsCarrinhos")
+    int reprecificar(@Param("idsItens") Collection<Long> idsItens, @Param("idsCarrinhos") Collection<Long> idsCarrinhos);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from ProdutoCarrinho pc where pc.carrinho.idCarrinho in :idsCarrinho")
+    int apagarDosCarrinhos(@Param("idsCarrinho") Collection<Long> idsCarrinho);
 }
@@ -1,8 +1,56 @@
 package onhardware.repository;
 
+import jakarta.persistence.QueryHint;
+import onhardware.DTO.ProdutoDTO;
+import onhardware.DTO.ProdutoResumoDTO;
 import onhardware.model.Produto;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface ProdutoRepository extends JpaRepository<Produto, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
+public interface ProdutoRepository extends JpaRepository<Produto, Long>, BuscaProdutoRepository {
+
+    // Usado pela importação para localizar, por lote, os produtos já cadastrados.
+    List<Produto> findByModeloProdutoIn(Collection<String> modelos);
+
+    // Projeções de leitura: o DTO é montado pela própria consulta, sem entidades no contexto de persistência
+    // (nem dirty checking). O resumo não traz modelo nem especificação.
+    String RESUMO = "select new onhardware.DTO.ProdutoResumoDTO(p.idProduto, p.nomeProduto, p.marcaProduto, p.precoProduto) from Produto p ";
+    String DETALHE = "select new onhardware.DTO.ProdutoDTO(p.idProduto, p.nomeProduto, p.marcaProduto, p.modeloProduto, " +
+            "p.especificacaoProduto, p.precoProduto, p.dataAtualizacaoProduto, p.versao) from Produto p ";
+
+    @Query(RESUMO + "order by p.idProduto")
+    List<ProdutoResumoDTO> listarResumos();
+
+    @Query(DETALHE + "order by p.idProduto")
+    List<ProdutoDTO> listarDetalhes();
+
+    // Paginação por keyset: busca a partir do último ID visto, sem OFFSET.
+    @Query(RESUMO + "where p.idProduto > :ultimoId order by p.idProduto")
+    List<ProdutoResumoDTO> buscarResumosAPartirDe(@Param("ultimoId") Long ultimoId, Limit limite);
+
+    @Query(DETALHE + "where p.idProduto > :ultimoId order by p.idProduto")
+    List<ProdutoDTO> buscarDetalhesAPartirDe(@Param("ultimoId") Long ultimoId, Limit limite);
+
+    // Produtos com preço alterado ainda não levado aos carrinhos abertos (ReprecificacaoService).
+    @Query(DETALHE + "where p.reprecificacaoPendente = true order by p.idProduto")
+    List<ProdutoDTO> buscarReprecificacaoPendente(Limit limite);
+
+    // Desmarca o produto só se ele não mudou de novo desde a leitura (versão): um preço mais novo fica para a próxima execução.
+    @Modifying
+    @Query("update Produto p set p.reprecificacaoPendente = false where p.idProduto = :idProduto and p.versao = :versao")
+    int concluirReprecificacao(@Param("idProduto") Long idProduto, @Param("versao") Long versao);
+
+    // Percorre o catálogo com cursor do JDBC (fetch size), sem carregar tudo em memória.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(DETALHE + "order by p.idProduto")
+    Stream<ProdutoDTO> streamDetalhes();
 }
@@ -0,0 +1,39 @@
+package onhardware.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import onhardware.model.ReservaEstoque;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ReservaEstoqueRepository extends JpaRepository<ReservaEstoque, Long> {
+
+    // Soma à reserva existente do carrinho e renova a validade; retorna 0 se ainda não há reserva.
+    @Modifying(flushAutomatically = true)
+    @Query("update ReservaEstoque r set r.quantidade = r.quantidade + :quantidade, r.expiraEm = :expiraEm " +
+            "where r.idCarrinho = :idCarrinho and r.idProduto = :idProduto")
+    int somarQuantidade(@Param("idCarrinho") Long idCarrinho, @Param("idProduto") Long idProduto,
+                        @Param("quantidade") int quantidade, @Param("expiraEm") LocalDateTime expiraEm);
+
+    Optional<ReservaEstoque> findByIdCarrinhoAndIdProduto(Long idCarrinho, Long idProduto);
+
+    List<ReservaEstoque> findByIdCarrinho(Long idCarrinho);
+
+    @Query("select coalesce(sum(r.quantidade), 0) from ReservaEstoque r where r.idProduto = :idProduto")
+    long somarReservado(@Param("idProduto") Long idProduto);
+
+    // Lote de reservas vencidas; SKIP LOCKED: instâncias diferentes liberam lotes diferentes.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select r from ReservaEstoque r where r.expiraEm < :agora order by r.idReserva")
+    List<ReservaEstoque> buscarVencidas(@Param("agora") LocalDateTime agora, Limit limite);
+}
@@ -0,0 +1,45 @@
+package onhardware.repository;
+
+import onhardware.model.RespostaIdempotente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+// Cada comando é uma transação curta própria: o filtro de idempotência roda fora das transações dos serviços.
+public interface RespostaIdempotenteRepository extends JpaRepository<RespostaIdempotente, String> {
+
+    // 1 se a chave ficou com esta requisição, 0 se outra (de qualquer instância) já a registrou
+    @Modifying
+    @Transactional
+    @Query(value = "insert into respostas_idempotentes (chave, impressao_digital, data_criacao) " +
+            "values (:chave, :impressaoDigital, :agora) on conflict do nothing", nativeQuery = true)
+    int reservar(@Param("chave") String chave, @Param("impressaoDigital") String impressaoDigital, @Param("agora") LocalDateTime agora);
+
+    // Requisição original que não terminou até o limite (instância caiu no meio): a chave passa para esta
+    @Modifying
+    @Transactional
+    @Query("update RespostaIdempotente r set r.dataCriacao = :agora " +
+            "where r.chave = :chave and r.status is null and r.dataCriacao < :limite")
+    int assumirAbandonada(@Param("chave") String chave, @Param("agora") LocalDateTime agora, @Param("limite") LocalDateTime limite);
+
+    @Modifying
+    @Transactional
+    @Query("update RespostaIdempotente r set r.status = :status, r.tipoConteudo = :tipoConteudo, r.location = :location, " +
+            "r.corpo = :corpo where r.chave = :chave")
+    int concluir(@Param("chave") String chave, @Param("status") int status, @Param("tipoConteudo") String tipoConteudo,
+                 @Param("location") String location, @Param("corpo") byte[] corpo);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RespostaIdempotente r where r.chave = :chave and r.status is null")
+    int liberar(@Param("chave") String chave);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RespostaIdempotente r where r.dataCriacao < :limite")
+    int apagarAnterioresA(@Param("limite") LocalDateTime limite);
+}
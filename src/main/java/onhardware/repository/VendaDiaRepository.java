@@ -0,0 +1,28 @@
+package onhardware.repository;
+
+import onhardware.DTO.ResumoVendasDTO;
+import onhardware.model.VendaDia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface VendaDiaRepository extends JpaRepository<VendaDia, LocalDate> {
+
+    // Soma ao total do dia no próprio banco (UPDATE atômico); retorna 0 se o dia ainda não tem linha.
+    @Modifying(flushAutomatically = true)
+    @Query("update VendaDia v set v.pedidos = v.pedidos + :pedidos, v.unidades = v.unidades + :unidades, " +
+            "v.valorTotal = v.valorTotal + :valor where v.dia = :dia")
+    int somar(@Param("dia") LocalDate dia, @Param("pedidos") long pedidos, @Param("unidades") long unidades,
+              @Param("valor") BigDecimal valor);
+
+    List<VendaDia> findByDiaBetweenOrderByDia(LocalDate inicio, LocalDate fim);
+
+    @Query("select new onhardware.DTO.ResumoVendasDTO(coalesce(sum(v.pedidos), 0), coalesce(sum(v.unidades), 0), " +
+            "coalesce(sum(v.valorTotal), 0)) from VendaDia v where v.dia between :inicio and :fim")
+    ResumoVendasDTO resumir(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+}
@@ -0,0 +1,27 @@
+package onhardware.repository;
+
+import onhardware.DTO.VendaMarcaDTO;
+import onhardware.model.VendaMarcaDia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface VendaMarcaDiaRepository extends JpaRepository<VendaMarcaDia, VendaMarcaDia.Chave> {
+
+    // Soma ao total da marca no dia; retorna 0 se ainda não há linha.
+    @Modifying(flushAutomatically = true)
+    @Query("update VendaMarcaDia v set v.unidades = v.unidades + :unidades, v.valorTotal = v.valorTotal + :valor " +
+            "where v.dia = :dia and v.marcaProduto = :marcaProduto")
+    int somar(@Param("dia") LocalDate dia, @Param("marcaProduto") String marcaProduto, @Param("unidades") long unidades,
+              @Param("valor") BigDecimal valor);
+
+    @Query("select new onhardware.DTO.VendaMarcaDTO(v.marcaProduto, sum(v.unidades), sum(v.valorTotal)) " +
+            "from VendaMarcaDia v where v.dia between :inicio and :fim " +
+            "group by v.marcaProduto order by sum(v.unidades) desc, v.marcaProduto")
+    List<VendaMarcaDTO> buscarPorMarca(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+}
@@ -0,0 +1,29 @@
+package onhardware.repository;
+
+import onhardware.DTO.VendaProdutoDTO;
+import onhardware.model.VendaProdutoDia;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface VendaProdutoDiaRepository extends JpaRepository<VendaProdutoDia, VendaProdutoDia.Chave> {
+
+    // Soma ao total do produto no dia e atualiza nome e marca; retorna 0 se ainda não há linha.
+    @Modifying(flushAutomatically = true)
+    @Query("update VendaProdutoDia v set v.unidades = v.unidades + :unidades, v.valorTotal = v.valorTotal + :valor, " +
+            "v.nomeProduto = :nomeProduto, v.marcaProduto = :marcaProduto where v.dia = :dia and v.idProduto = :idProduto")
+    int somar(@Param("dia") LocalDate dia, @Param("idProduto") Long idProduto, @Param("nomeProduto") String nomeProduto,
+              @Param("marcaProduto") String marcaProduto, @Param("unidades") long unidades, @Param("valor") BigDecimal valor);
+
+    // Produtos mais vendidos (em unidades) no período.
+    @Query("select new onhardware.DTO.VendaProdutoDTO(v.idProduto, max(v.nomeProduto), max(v.marcaProduto), sum(v.unidades), " +
+            "sum(v.valorTotal)) from VendaProdutoDia v where v.dia between :inicio and :fim " +
+            "group by v.idProduto order by sum(v.unidades) desc, v.idProduto")
+    List<VendaProdutoDTO> buscarMaisVendidos(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim, Limit limite);
+}
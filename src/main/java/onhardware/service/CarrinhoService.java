@@ -1,27 +1,46 @@
 package onhardware.service;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import onhardware.DTO.CarrinhoDTO;
+import onhardware.DTO.CarrinhoResumoDTO;
+import onhardware.DTO.OperacaoCarrinhoDTO;
 import onhardware.DTO.ProdutoCarrinhoDTO;
+import onhardware.DTO.ProdutoDTO;
+import onhardware.DTO.VersaoCarrinhoDTO;
 import onhardware.exception.CarrinhoException;
-import onhardware.exception.ProdutoCarrinhoException;
 import onhardware.exception.ProdutoException;
+import onhardware.exception.ProdutoForaDoCarrinhoException;
+import onhardware.exception.QuantidadeInvalidaException;
 import onhardware.model.Carrinho;
 import onhardware.model.ProdutoCarrinho;
 import onhardware.model.Produto;
 import onhardware.repository.CarrinhoRepository;
 import onhardware.repository.ProdutoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class CarrinhoService {
 
+    private static final int TAMANHO_LOTE_CARRINHOS = 500;
+
+    private static final String METRICA_OPERACAO = "onhardware.carrinho.operacao";
+    private static final String METRICA_ITENS = "onhardware.carrinho.itens";
+
     @Autowired
     private CarrinhoRepository carrinhoRepository;
 
@@ -34,6 +53,18 @@ public class CarrinhoService {
     @Autowired
     private ProdutoService produtoService;
 
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private TransacaoComRetentativa transacaoComRetentativa;
+
+    @Autowired
+    private CarrinhosAtivos carrinhosAtivos;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     public Carrinho paraEntity(CarrinhoDTO carrinhoDTO) {
         Carrinho carrinho = Carrinho.builder()
                 .idCarrinho(carrinhoDTO.getIdCarrinho())
@@ -67,6 +98,7 @@ public class CarrinhoService {
                 .build();
     }
 
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "cadastrar"}, histogram = true)
     public CarrinhoDTO cadastrarCarrinho() {
         Carrinho carrinho = new Carrinho();
         carrinho.setProdutos(new ArrayList<>());
@@ -77,19 +109,74 @@ public class CarrinhoService {
         return paraDTO(carrinhoSalvo);
     }
 
+    /*
+    METODO -> listarTodosCarrinhos()
+
+    - Percorre os IDs dos carrinhos em lotes
+    - Para cada lote, carrega carrinhos, itens e produtos em uma única consulta
+    - Evita uma consulta por carrinho e uma por item (N+1)
+     */
+
+    @Transactional(readOnly = true)
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "listar"}, histogram = true)
     public List<CarrinhoDTO> listarTodosCarrinhos() {
-        List<Carrinho> carrinhos = carrinhoRepository.findAll();
         List<CarrinhoDTO> carrinhoDTOs = new ArrayList<>();
 
-        for (Carrinho carrinho : carrinhos) {
-            carrinhoDTOs.add(paraDTO(carrinho));
+        List<Long> ids = carrinhoRepository.buscarIdsAPartirDe(0L, Limit.of(TAMANHO_LOTE_CARRINHOS));
+        while (!ids.isEmpty()) {
+            for (Carrinho carrinho : carrinhoRepository.findComProdutosByIdCarrinhoInOrderByIdCarrinhoAsc(ids)) {
+                carrinhoDTOs.add(paraDTO(carrinho));
+            }
+
+            if (ids.size() < TAMANHO_LOTE_CARRINHOS) {
+                break;
+            }
+            ids = carrinhoRepository.buscarIdsAPartirDe(ids.get(ids.size() - 1), Limit.of(TAMANHO_LOTE_CARRINHOS));
         }
 
         return carrinhoDTOs;
     }
 
+    /*
+    METODOS -> listarResumosCarrinhos() / buscarResumoCarrinhoPorId()
+
+    - Visão RESUMO: os DTOs são montados pelas próprias consultas (projeções), sem carregar entidades
+    - Listagem: totais e quantidade de itens, em lotes de carrinhos
+    - Busca: o mesmo resumo mais ID, nome, quantidade e preço de cada item (duas consultas)
+     */
+
+    @Transactional(readOnly = true)
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "listar-resumo"}, histogram = true)
+    public List<CarrinhoResumoDTO> listarResumosCarrinhos() {
+        List<CarrinhoResumoDTO> resumos = new ArrayList<>();
+
+        List<CarrinhoResumoDTO> lote = carrinhoRepository.buscarResumosAPartirDe(0L, Limit.of(TAMANHO_LOTE_CARRINHOS));
+        resumos.addAll(lote);
+        while (lote.size() == TAMANHO_LOTE_CARRINHOS) {
+            lote = carrinhoRepository.buscarResumosAPartirDe(lote.get(lote.size() - 1).getIdCarrinho(), Limit.of(TAMANHO_LOTE_CARRINHOS));
+            resumos.addAll(lote);
+        }
+
+        return resumos;
+    }
+
+    @Transactional(readOnly = true)
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "buscar-resumo"}, histogram = true)
+    public CarrinhoResumoDTO buscarResumoCarrinhoPorId(Long id) {
+        Optional<CarrinhoResumoDTO> optionalResumo = carrinhoRepository.buscarResumo(id);
+        if (optionalResumo.isEmpty()) {
+            throw new CarrinhoException(id);
+        }
+
+        CarrinhoResumoDTO resumo = optionalResumo.get();
+        resumo.setItens(carrinhoRepository.buscarItensResumo(id));
+        return resumo;
+    }
+
+    @Transactional(readOnly = true)
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "buscar"}, histogram = true)
     public CarrinhoDTO buscarCarrinhoPorId(Long id) {
-        Optional<Carrinho> optionalCarrinho = carrinhoRepository.findById(id);
+        Optional<Carrinho> optionalCarrinho = carrinhoRepository.findComProdutosByIdCarrinho(id);
         if (optionalCarrinho.isEmpty()) {
             throw new CarrinhoException(id);
         }
@@ -97,105 +184,323 @@ public class CarrinhoService {
         return paraDTO(optionalCarrinho.get());
     }
 
+    // Validadores da resposta HTTP: uma consulta agregada, sem carregar o carrinho nem os itens.
+    // Lida no principal: com a versão atrasada da réplica, um 304 confirmaria um carrinho que já mudou.
+    @Transactional
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "versao"}, histogram = true)
+    public VersaoCarrinhoDTO buscarVersaoCarrinho(Long id) {
+        Optional<VersaoCarrinhoDTO> optionalVersao = carrinhoRepository.buscarVersao(id);
+        if (optionalVersao.isEmpty()) {
+            throw new CarrinhoException(id);
+        }
+
+        return optionalVersao.get();
+    }
+
+    // Com a camada de carrinhos ativos: leva ao banco o que está só em memória, antes das consultas (fora de transação).
+    public void gravarAlteracoesEmMemoria(Long idCarrinho) {
+        carrinhosAtivos.gravar(idCarrinho);
+    }
+
+    public void gravarAlteracoesEmMemoria() {
+        carrinhosAtivos.gravarPendentes();
+    }
+
+    @Transactional
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "deletar"}, histogram = true)
     public void deletarCarrinhoPorId(Long id) {
-        Optional<Carrinho> optionalCarrinho = carrinhoRepository.findById(id);
+        carrinhosAtivos.esquecer(id);
+        Optional<Carrinho> optionalCarrinho = carrinhoRepository.findComProdutosByIdCarrinho(id);
         if (optionalCarrinho.isEmpty()) {
             throw new CarrinhoException(id);
         }
 
-        carrinhoRepository.deleteById(id);
+        estoqueService.liberarCarrinho(id);
+        carrinhoRepository.delete(optionalCarrinho.get());
     }
 
     /*
     METOTODO - > adicionarProduto()
 
-    - Acha o carrinho e o produto
-    - Vê se o produto já está no carrinho
-    - Se sim: soma a quantidade
-    - Se não: cria um novo produto e coloca no carrinho
-    - Salva tudo
+    - Confere se o carrinho existe e acha o produto
+    - Soma a quantidade no item do carrinho, ou cria o item, com um único comando no banco
+    - Soma ao total do carrinho apenas o valor acrescentado (sem recalcular todos os itens)
+    - Em caso de conflito com outra requisição, repete a operação
     - Converte e devolve o carrinho atualizado
+    - Com a camada de carrinhos ativos, altera só a memória (CarrinhosAtivos); vai ao banco na hora apenas a reserva
+      de produtos com estoque controlado
      */
 
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "adicionar"}, histogram = true)
     public CarrinhoDTO adicionarProduto(Long idCarrinho, Long idProduto, int quantidade) {
         if (quantidade <= 0) {
             throw new IllegalArgumentException("A quantidade deve ser maior que zero.");
         }
 
-        // Buscar carrinho
-        Optional<Carrinho> optionalCarrinho = carrinhoRepository.findById(idCarrinho);
-        if (optionalCarrinho.isEmpty()) {
-            throw new CarrinhoException(idCarrinho);
-        }
-        Carrinho carrinho = optionalCarrinho.get();
-
-        // Buscar produto
-        Optional<Produto> optionalProduto = produtoRepository.findById(idProduto);
-        if (optionalProduto.isEmpty()) {
-            throw new ProdutoException(idProduto);
-        }
-        Produto produto = optionalProduto.get();
-
-        // Verifica se o produto já existe no carrinho
-        ProdutoCarrinho produtoExistente = buscarProdutoCarrinho(carrinho.getProdutos(), idProduto);
-
-        if (produtoExistente != null) {
-            int novaQuantidade = produtoExistente.getQuantidade() + quantidade;
-            produtoExistente.setQuantidade(novaQuantidade);
-            produtoExistente.setPrecoTotal(produto.getPrecoProduto().multiply(new BigDecimal(novaQuantidade)));
+        CarrinhoDTO carrinhoDTO = carrinhosAtivos.habilitado()
+                ? adicionarProdutoEmMemoria(idCarrinho, idProduto, quantidade)
+                : transacaoComRetentativa.executar(() -> adicionarProdutoNaTransacao(idCarrinho, idProduto, quantidade));
+        registrarTamanhoCarrinho("adicionar", carrinhoDTO);
+        return carrinhoDTO;
+    }
 
-        } else {
-            ProdutoCarrinho novoProduto = ProdutoCarrinho.builder()
-                    .produto(produto)
-                    .quantidade(quantidade)
-                    .precoTotal(produto.getPrecoProduto().multiply(new BigDecimal(quantidade)))
-                    .carrinho(carrinho)
-                    .build();
+    private CarrinhoDTO adicionarProdutoEmMemoria(Long idCarrinho, Long idProduto, int quantidade) {
+        ProdutoDTO produtoDTO = produtoService.buscarProdutoPorId(idProduto);
+        carrinhosAtivos.carregar(idCarrinho);
 
-            carrinho.getProdutos().add(novoProduto);
+        // Reserva antes de alterar a memória: sem estoque, o carrinho fica como estava
+        if (!estoqueService.possuiEstoqueControlado(idProduto)) {
+            return carrinhosAtivos.adicionar(idCarrinho, produtoDTO, quantidade);
         }
+        transacaoComRetentativa.executar(() -> {
+            estoqueService.reservar(idCarrinho, idProduto, quantidade);
+            return null;
+        });
+        try {
+            return carrinhosAtivos.adicionar(idCarrinho, produtoDTO, quantidade);
+        } catch (RuntimeException e) {
+            // A reserva já foi gravada: sem o item no carrinho, ela volta ao estoque agora (e não só ao vencer)
+            transacaoComRetentativa.executar(() -> {
+                estoqueService.liberar(idCarrinho, idProduto, quantidade);
+                return null;
+            });
+            throw e;
+        }
+    }
 
+    private CarrinhoDTO adicionarProdutoNaTransacao(Long idCarrinho, Long idProduto, int quantidade) {
+        // Buscar carrinho (só a data de criação: com ela os comandos seguintes vão direto à partição do mês)
+        Optional<LocalDateTime> dataRegistroCarrinho = carrinhoRepository.buscarDataRegistro(idCarrinho);
+        if (dataRegistroCarrinho.isEmpty()) {
+            throw new CarrinhoException(idCarrinho);
+        }
 
-        carrinho.setValorTotalCarrinho(calcularValorTotalCarrinho(carrinho.getProdutos()));
+        // Buscar produto (pelo cache; a associação usa apenas uma referência, sem consulta ao banco)
+        ProdutoDTO produtoDTO = produtoService.buscarProdutoPorId(idProduto);
 
-        Carrinho carrinhoAtualizado = carrinhoRepository.save(carrinho);
+        BigDecimal valorAdicionado = produtoCarrinhoService.adicionarQuantidade(idCarrinho, dataRegistroCarrinho.get(), idProduto,
+                produtoDTO.getPrecoProduto(), quantidade);
+        carrinhoRepository.somarAoTotal(idCarrinho, dataRegistroCarrinho.get(), valorAdicionado);
+        CarrinhoDTO carrinhoDTO = paraDTO(carrinhoRepository.findComProdutosByIdCarrinho(idCarrinho).orElseThrow(() -> new CarrinhoException(idCarrinho)));
 
-        return paraDTO(carrinhoAtualizado);
+        // Por último: a fatia de estoque do produto fica bloqueada só até o commit
+        estoqueService.reservar(idCarrinho, idProduto, quantidade);
+        return carrinhoDTO;
     }
 
     /*
     METODO -> removerProduto()
 
-    - Busca o carrinho pelo ID
-    - Busca o produto do carrinho pelo ID do produto
-    - Se não encontrar o carrinho ou o produto, lança exceção
-    - Remove o produto da lista de produtos do carrinho
+    - Busca e bloqueia o produto do carrinho pelo ID
+    - Se não encontrar o produto no carrinho, lança exceção
     - Deleta o produto do banco de dados
-    - Atualiza o total do carrinho somando os preços dos produtos restantes
-    - Salva o carrinho atualizado
+    - Desconta do total do carrinho apenas o valor do produto removido
     - Converte e retorna o DTO do carrinho atualizado
     */
 
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "remover"}, histogram = true)
     public CarrinhoDTO removerProduto(Long idCarrinho, Long idProdutoCarrinho) {
-        Optional<Carrinho> optionalCarrinho = carrinhoRepository.findById(idCarrinho);
+        if (carrinhosAtivos.habilitado()) {
+            return removerProdutoEmMemoria(idCarrinho, idProdutoCarrinho);
+        }
+        return transacaoComRetentativa.executar(() -> removerProdutoNaTransacao(idCarrinho, idProdutoCarrinho));
+    }
+
+    private CarrinhoDTO removerProdutoEmMemoria(Long idCarrinho, Long idProdutoCarrinho) {
+        ProdutoCarrinhoDTO itemRemovido = carrinhosAtivos.remover(idCarrinho, idProdutoCarrinho);
+
+        Long idProduto = itemRemovido.getProdutoDTO().getIdProduto();
+        if (estoqueService.possuiEstoqueControlado(idProduto)) {
+            transacaoComRetentativa.executar(() -> {
+                estoqueService.liberar(idCarrinho, idProduto, itemRemovido.getQuantidade());
+                return null;
+            });
+        }
+        return carrinhosAtivos.buscar(idCarrinho);
+    }
+
+    private CarrinhoDTO removerProdutoNaTransacao(Long idCarrinho, Long idProdutoCarrinho) {
+        if (!carrinhoRepository.existsById(idCarrinho)) {
+            throw new CarrinhoException(idCarrinho);
+        }
+
+        ProdutoCarrinho itemRemovido = produtoCarrinhoService.removerItem(idCarrinho, idProdutoCarrinho);
+        carrinhoRepository.somarAoTotal(idCarrinho, itemRemovido.getDataRegistroCarrinho(), itemRemovido.getPrecoTotal().negate());
+        CarrinhoDTO carrinhoDTO = paraDTO(carrinhoRepository.findComProdutosByIdCarrinho(idCarrinho).orElseThrow(() -> new CarrinhoException(idCarrinho)));
+
+        estoqueService.liberar(idCarrinho, itemRemovido.getProduto().getIdProduto(), itemRemovido.getQuantidade());
+        return carrinhoDTO;
+    }
+
+    /*
+    METODO -> recalcularTotal()
+
+    - Conferência sob demanda do total mantido de forma incremental
+    - Refaz a soma dos itens no banco e corrige o total apenas se estiver divergente
+     */
+
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "recalcular"}, histogram = true)
+    public CarrinhoDTO recalcularTotal(Long idCarrinho) {
+        carrinhosAtivos.descarregar(idCarrinho);
+        return transacaoComRetentativa.executar(() -> {
+            if (!carrinhoRepository.existsById(idCarrinho)) {
+                throw new CarrinhoException(idCarrinho);
+            }
+
+            carrinhoRepository.corrigirTotal(idCarrinho);
+            return paraDTO(carrinhoRepository.findComProdutosByIdCarrinho(idCarrinho).orElseThrow(() -> new CarrinhoException(idCarrinho)));
+        });
+    }
+
+    /*
+    METODO -> reconciliarTotais()
+
+    - Conferência de todos os carrinhos abertos (ReconciliacaoCarrinhoJob), percorridos por ID em lotes
+    - Cada lote, em uma transação curta, bloqueia os carrinhos que continuam abertos e só então refaz os totais
+      divergentes: uma adição simultânea espera o commit, em vez de ter a sua diferença sobrescrita por uma soma
+      lida antes dela
+    - Devolve quantos carrinhos foram corrigidos
+     */
+
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "reconciliar"}, histogram = true)
+    public int reconciliarTotais(int tamanhoLote) {
+        int corrigidos = 0;
+        List<Long> ids = carrinhoRepository.buscarIdsAbertosAPartirDe(0L, Limit.of(tamanhoLote));
+        while (!ids.isEmpty()) {
+            List<Long> lote = ids;
+            corrigidos += transacaoComRetentativa.executar(() -> {
+                List<Long> abertos = carrinhoRepository.bloquearAbertos(lote);
+                return abertos.isEmpty() ? 0 : carrinhoRepository.corrigirTotais(abertos);
+            });
+            if (ids.size() < tamanhoLote) {
+                break;
+            }
+            ids = carrinhoRepository.buscarIdsAbertosAPartirDe(ids.get(ids.size() - 1), Limit.of(tamanhoLote));
+        }
+        return corrigidos;
+    }
+
+    /*
+    METODO -> aplicarOperacoes()
+
+    - Carrega o carrinho (com itens e produtos) uma única vez
+    - Carrega de uma vez todos os produtos citados nas operações (findAllById)
+    - Aplica as operações em memória, na ordem recebida
+    - Recalcula o total uma única vez e grava tudo em uma só transação
+     */
+
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "lote"}, histogram = true)
+    public CarrinhoDTO aplicarOperacoes(Long idCarrinho, List<OperacaoCarrinhoDTO> operacoes) {
+        // Operações em lote vão direto ao banco: o que estava em memória é gravado antes
+        carrinhosAtivos.descarregar(idCarrinho);
+        CarrinhoDTO carrinhoDTO = transacaoComRetentativa.executar(() -> aplicarOperacoesNaTransacao(idCarrinho, operacoes));
+        registrarTamanhoCarrinho("lote", carrinhoDTO);
+        return carrinhoDTO;
+    }
+
+    private CarrinhoDTO aplicarOperacoesNaTransacao(Long idCarrinho, List<OperacaoCarrinhoDTO> operacoes) {
+        Optional<Carrinho> optionalCarrinho = carrinhoRepository.findComProdutosByIdCarrinho(idCarrinho);
         if (optionalCarrinho.isEmpty()) {
             throw new CarrinhoException(idCarrinho);
         }
         Carrinho carrinho = optionalCarrinho.get();
 
-        ProdutoCarrinho produtoParaRemover = buscarProdutoCarrinhoPorId(carrinho.getProdutos(), idProdutoCarrinho);
-        if (produtoParaRemover == null) {
-            throw new ProdutoCarrinhoException(idProdutoCarrinho);
+        Set<Long> idsProdutos = new HashSet<>();
+        for (OperacaoCarrinhoDTO operacao : operacoes) {
+            if (operacao.getTipo() != OperacaoCarrinhoDTO.TipoOperacao.REMOVER) {
+                idsProdutos.add(operacao.getIdProduto());
+            }
         }
 
-        carrinho.getProdutos().remove(produtoParaRemover);
+        Map<Long, Produto> produtos = new HashMap<>();
+        for (Produto produto : produtoRepository.findAllById(idsProdutos)) {
+            produtos.put(produto.getIdProduto(), produto);
+        }
+        for (Long idProduto : idsProdutos) {
+            if (!produtos.containsKey(idProduto)) {
+                throw new ProdutoException(idProduto);
+            }
+        }
 
-        produtoCarrinhoService.deletarPorId(idProdutoCarrinho);
+        Map<Long, ProdutoCarrinho> itensPorProduto = new HashMap<>();
+        Map<Long, Integer> diferencas = new HashMap<>();
+        for (ProdutoCarrinho item : carrinho.getProdutos()) {
+            itensPorProduto.put(item.getProduto().getIdProduto(), item);
+            diferencas.put(item.getProduto().getIdProduto(), -item.getQuantidade());
+        }
+
+        for (OperacaoCarrinhoDTO operacao : operacoes) {
+            ProdutoCarrinho item = itensPorProduto.get(operacao.getIdProduto());
+
+            switch (operacao.getTipo()) {
+                case ADICIONAR -> {
+                    if (operacao.getQuantidade() <= 0) {
+                        throw new QuantidadeInvalidaException("A quantidade deve ser maior que zero.");
+                    }
+                    int quantidadeAtual = item == null ? 0 : item.getQuantidade();
+                    definirQuantidade(carrinho, itensPorProduto, produtos.get(operacao.getIdProduto()), quantidadeAtual + operacao.getQuantidade());
+                }
+                case DEFINIR_QUANTIDADE ->
+                        definirQuantidade(carrinho, itensPorProduto, produtos.get(operacao.getIdProduto()), operacao.getQuantidade());
+                case REMOVER -> {
+                    if (item == null) {
+                        throw new ProdutoForaDoCarrinhoException(operacao.getIdProduto());
+                    }
+                    carrinho.getProdutos().remove(item);
+                    itensPorProduto.remove(operacao.getIdProduto());
+                }
+            }
+        }
 
         carrinho.setValorTotalCarrinho(calcularValorTotalCarrinho(carrinho.getProdutos()));
+        // Mudanças só nos itens não alteram o carrinho em si; marcá-lo garante que a versão (e o ETag) avance
+        carrinho.setDataAtualizacaoCarrinho(LocalDateTime.now());
+
+        Carrinho carrinhoAtualizado = carrinhoRepository.saveAndFlush(carrinho);
+        CarrinhoDTO carrinhoDTO = paraDTO(carrinhoAtualizado);
 
-        Carrinho carrinhoAtualizado = carrinhoRepository.save(carrinho);
-        return paraDTO(carrinhoAtualizado);
+        // Estoque por último: reserva o que aumentou e libera o que diminuiu, produto a produto
+        for (ProdutoCarrinho item : carrinhoAtualizado.getProdutos()) {
+            diferencas.merge(item.getProduto().getIdProduto(), item.getQuantidade(), Integer::sum);
+        }
+        for (Map.Entry<Long, Integer> diferenca : diferencas.entrySet()) {
+            if (diferenca.getValue() > 0) {
+                estoqueService.reservar(idCarrinho, diferenca.getKey(), diferenca.getValue());
+            } else if (diferenca.getValue() < 0) {
+                estoqueService.liberar(idCarrinho, diferenca.getKey(), -diferenca.getValue());
+            }
+        }
+        return carrinhoDTO;
+    }
+
+    // Cria, atualiza ou remove (quantidade zero) o item do produto no carrinho.
+    private void definirQuantidade(Carrinho carrinho, Map<Long, ProdutoCarrinho> itensPorProduto, Produto produto, int quantidade) {
+        ProdutoCarrinho item = itensPorProduto.get(produto.getIdProduto());
+
+        if (quantidade == 0) {
+            if (item != null) {
+                carrinho.getProdutos().remove(item);
+                itensPorProduto.remove(produto.getIdProduto());
+            }
+            return;
+        }
+
+        BigDecimal precoTotal = produto.getPrecoProduto().multiply(BigDecimal.valueOf(quantidade));
+        if (item != null) {
+            item.setQuantidade(quantidade);
+            item.setPrecoTotal(precoTotal);
+            return;
+        }
+
+        ProdutoCarrinho novoItem = ProdutoCarrinho.builder()
+                .produto(produto)
+                .quantidade(quantidade)
+                .precoTotal(precoTotal)
+                .carrinho(carrinho)
+                .dataRegistroCarrinho(carrinho.getDataRegistroCarrinho())
+                .build();
+        carrinho.getProdutos().add(novoItem);
+        itensPorProduto.put(produto.getIdProduto(), novoItem);
     }
 
     public ProdutoCarrinho buscarProdutoCarrinho(List<ProdutoCarrinho> produtos, Long idProduto) {
@@ -225,18 +530,16 @@ public class CarrinhoService {
         return total;
     }
 
-    public CarrinhoDTO finalizarCompra(Long id) {
-        Optional<Carrinho> optionalCarrinho = carrinhoRepository.findById(id);
-        if (optionalCarrinho.isEmpty()) {
-            throw new CarrinhoException(id);
-        }
-        Carrinho carrinho = optionalCarrinho.get();
-
-        carrinho.setDataCompraFinalizada(LocalDateTime.now());
-        carrinho.setFinalizado(true);
-
-        Carrinho carrinhoFinalizado = carrinhoRepository.save(carrinho);
-
-        return paraDTO(carrinhoFinalizado);
+    // Distribuição da quantidade de itens dos carrinhos após cada alteração
+    private void registrarTamanhoCarrinho(String operacao, CarrinhoDTO carrinhoDTO) {
+        DistributionSummary.builder(METRICA_ITENS)
+                .description("Quantidade de itens no carrinho após a operação")
+                .baseUnit("itens")
+                .tag("operacao", operacao)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(1000.0)
+                .register(meterRegistry)
+                .record(carrinhoDTO.getProdutos().size());
     }
 }
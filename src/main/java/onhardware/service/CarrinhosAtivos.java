@@ -0,0 +1,608 @@
+package onhardware.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import onhardware.DTO.CarrinhoDTO;
+import onhardware.DTO.ProdutoCarrinhoDTO;
+import onhardware.DTO.ProdutoDTO;
+import onhardware.exception.CarrinhoException;
+import onhardware.exception.ProdutoCarrinhoException;
+import onhardware.model.Carrinho;
+import onhardware.model.ProdutoCarrinho;
+import onhardware.repository.CarrinhoRepository;
+import onhardware.repository.ProdutoCarrinhoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/*
+CLASSE -> CarrinhosAtivos
+
+- Camada opcional (onhardware.carrinho-ativo.habilitado) que mantém em memória os carrinhos em uso:
+  adicionar e remover produtos alteram só a memória e respondem sem esperar o banco
+- Os carrinhos ficam divididos em segmentos, cada um com a sua trava (o ID decide o segmento):
+  operações em carrinhos diferentes raramente disputam a mesma trava
+- Cada segmento guarda no máximo maximo-carrinhos / segmentos carrinhos; passando disso, sai o usado há mais tempo,
+  e o que ele tiver de alteração pendente é gravado na próxima gravação
+- As alterações se acumulam como diferenças por produto (várias adições do mesmo produto viram um só UPDATE),
+  gravadas em lotes por GravacaoCarrinhosAtivosJob. Por serem somas, gravações de instâncias diferentes não se perdem
+- Finalização da compra, leituras e operações que vão direto ao banco gravam o carrinho antes (gravar/descarregar)
+- IDs de itens novos vêm da mesma sequência usada pelo Hibernate, em blocos, para o item já nascer com o ID definitivo
+- A cópia em memória é da instância: com várias instâncias, as requisições de um carrinho devem ir sempre para a mesma
+ */
+
+@Slf4j
+@Component
+public class CarrinhosAtivos {
+
+    // Mesmo incremento da sequência produtos_carrinho_seq (allocationSize de ProdutoCarrinho)
+    private static final int BLOCO_IDS = 50;
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
+    @Autowired
+    private ProdutoCarrinhoRepository produtoCarrinhoRepository;
+
+    @Autowired
+    private ProdutoCarrinhoService produtoCarrinhoService;
+
+    @Autowired
+    private TransacaoComRetentativa transacaoComRetentativa;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${onhardware.carrinho-ativo.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${onhardware.carrinho-ativo.maximo-carrinhos:100000}")
+    private int maximoCarrinhos;
+
+    @Value("${onhardware.carrinho-ativo.segmentos:64}")
+    private int quantidadeSegmentos;
+
+    @Value("${onhardware.carrinho-ativo.tamanho-lote-gravacao:200}")
+    private int tamanhoLote;
+
+    private Segmento[] segmentos;
+
+    private int carrinhosPorSegmento;
+
+    // Carrinhos com alterações ainda não gravadas (estejam no segmento ou já fora dele)
+    private final Map<Long, CarrinhoAtivo> pendentes = new ConcurrentHashMap<>();
+
+    // Carrinhos que saíram do segmento com alterações pendentes ou em gravação: voltam daqui, não do banco
+    private final Map<Long, CarrinhoAtivo> aguardandoGravacao = new ConcurrentHashMap<>();
+
+    private long proximoId;
+
+    private long limiteIds;
+
+    private Counter carrinhosGravados;
+
+    @PostConstruct
+    void iniciar() {
+        segmentos = new Segmento[quantidadeSegmentos];
+        for (int i = 0; i < quantidadeSegmentos; i++) {
+            segmentos[i] = new Segmento();
+        }
+        carrinhosPorSegmento = Math.max(1, maximoCarrinhos / quantidadeSegmentos);
+
+        Gauge.builder("onhardware.carrinho.ativos", this, CarrinhosAtivos::quantidadeEmMemoria)
+                .description("Carrinhos mantidos em memória pela camada de carrinhos ativos")
+                .register(meterRegistry);
+        carrinhosGravados = Counter.builder("onhardware.carrinho.ativos.gravados")
+                .description("Gravações de carrinhos com alterações acumuladas em memória")
+                .register(meterRegistry);
+    }
+
+    // Ao desligar a aplicação, nada do que está só em memória pode ficar para trás.
+    @PreDestroy
+    void encerrar() {
+        if (habilitado) {
+            gravarPendentes();
+        }
+    }
+
+    public boolean habilitado() {
+        return habilitado;
+    }
+
+    // Garante o carrinho em memória (lendo do banco se preciso); lança CarrinhoException se ele não existe.
+    public void carregar(Long idCarrinho) {
+        alterar(idCarrinho, carrinho -> null);
+    }
+
+    public CarrinhoDTO buscar(Long idCarrinho) {
+        return alterar(idCarrinho, CarrinhoAtivo::paraDTO);
+    }
+
+    /*
+    METODO -> adicionar()
+
+    - Soma quantidade e valor no item em memória (ou cria o item, com um ID da sequência)
+    - Acumula a mesma diferença para a próxima gravação
+    - Devolve o carrinho como ficou
+     */
+
+    public CarrinhoDTO adicionar(Long idCarrinho, ProdutoDTO produtoDTO, int quantidade) {
+        return alterar(idCarrinho, carrinho -> {
+            BigDecimal valor = produtoDTO.getPrecoProduto().multiply(BigDecimal.valueOf(quantidade));
+
+            ProdutoCarrinhoDTO item = carrinho.itens.get(produtoDTO.getIdProduto());
+            if (item == null) {
+                // Removido e adicionado de novo antes da gravação: mantém o ID que o item tem no banco
+                Pendencia pendencia = carrinho.pendencias.get(produtoDTO.getIdProduto());
+                item = ProdutoCarrinhoDTO.builder()
+                        .idProdutoCarrinho(pendencia != null ? pendencia.idProdutoCarrinho : novoIdItem())
+                        .quantidade(0)
+                        .precoTotal(BigDecimal.ZERO)
+                        .build();
+                carrinho.itens.put(produtoDTO.getIdProduto(), item);
+            }
+            item.setProdutoDTO(produtoDTO);
+            item.setQuantidade(item.getQuantidade() + quantidade);
+            item.setPrecoTotal(item.getPrecoTotal().add(valor));
+
+            registrar(carrinho, produtoDTO.getIdProduto(), item.getIdProdutoCarrinho(), quantidade, valor);
+            return carrinho.paraDTO();
+        });
+    }
+
+    // Tira o item da memória e devolve como ele estava (para o estoque reservado ser liberado).
+    public ProdutoCarrinhoDTO remover(Long idCarrinho, Long idProdutoCarrinho) {
+        return alterar(idCarrinho, carrinho -> {
+            Iterator<Map.Entry<Long, ProdutoCarrinhoDTO>> itens = carrinho.itens.entrySet().iterator();
+            while (itens.hasNext()) {
+                Map.Entry<Long, ProdutoCarrinhoDTO> entrada = itens.next();
+                ProdutoCarrinhoDTO item = entrada.getValue();
+                if (item.getIdProdutoCarrinho().equals(idProdutoCarrinho)) {
+                    itens.remove();
+                    registrar(carrinho, entrada.getKey(), idProdutoCarrinho, -item.getQuantidade(), item.getPrecoTotal().negate());
+                    return item;
+                }
+            }
+            throw new ProdutoCarrinhoException(idProdutoCarrinho);
+        });
+    }
+
+    // Leva ao banco as alterações pendentes do carrinho, que continua em memória.
+    public void gravar(Long idCarrinho) {
+        gravarCarrinho(idCarrinho, false);
+    }
+
+    // Leva ao banco as alterações pendentes e tira o carrinho da memória: a operação seguinte altera o banco diretamente.
+    public void descarregar(Long idCarrinho) {
+        gravarCarrinho(idCarrinho, true);
+    }
+
+    // Carrinho excluído: o que estava pendente não tem mais onde ser gravado.
+    public void esquecer(Long idCarrinho) {
+        if (!habilitado) {
+            return;
+        }
+
+        Segmento segmento = segmento(idCarrinho);
+        segmento.trava.lock();
+        try {
+            segmento.carrinhos.remove(idCarrinho);
+            aguardandoGravacao.remove(idCarrinho);
+            pendentes.remove(idCarrinho);
+        } finally {
+            segmento.trava.unlock();
+        }
+    }
+
+    /*
+    METODO -> gravarPendentes()
+
+    - Retira as diferenças acumuladas dos carrinhos pendentes, em lotes de tamanho-lote-gravacao
+    - Grava cada lote em uma transação (um UPDATE por item alterado e um no total de cada carrinho)
+    - Se o lote falhar, grava carrinho a carrinho: um carrinho apagado por outro caminho tem as diferenças descartadas,
+      os demais voltam a ficar pendentes se o banco falhar
+     */
+
+    public int gravarPendentes() {
+        if (!habilitado) {
+            return 0;
+        }
+
+        int gravados = 0;
+        List<Gravacao> lote;
+        do {
+            lote = coletar();
+            if (!lote.isEmpty()) {
+                gravarLote(lote);
+                gravados += lote.size();
+            }
+        } while (lote.size() == tamanhoLote);
+        return gravados;
+    }
+
+    /*
+    METODO -> gravarCarrinho()
+
+    - Sob a trava do segmento, espera a gravação do carrinho que estiver em andamento (do lote ou de outra requisição):
+      ao voltar, tudo o que estava pendente na chamada já está no banco
+    - Sem nada pendente, volta sem ir ao banco; gravações de carrinhos diferentes não esperam umas pelas outras
+     */
+
+    private void gravarCarrinho(Long idCarrinho, boolean retirarDaMemoria) {
+        if (!habilitado) {
+            return;
+        }
+
+        Segmento segmento = segmento(idCarrinho);
+        CarrinhoAtivo carrinho;
+        Gravacao gravacao;
+        segmento.trava.lock();
+        try {
+            while (true) {
+                carrinho = Optional.ofNullable(segmento.carrinhos.get(idCarrinho)).orElse(aguardandoGravacao.get(idCarrinho));
+                if (carrinho == null || !carrinho.gravando) {
+                    break;
+                }
+                segmento.gravacaoConcluida.awaitUninterruptibly();
+            }
+            if (carrinho == null || (carrinho.pendencias.isEmpty() && !retirarDaMemoria)) {
+                return;
+            }
+            pendentes.remove(idCarrinho, carrinho);
+            gravacao = retirarPendencias(carrinho);
+        } finally {
+            segmento.trava.unlock();
+        }
+
+        if (gravacao != null) {
+            try {
+                transacaoComRetentativa.executar(() -> {
+                    gravarNoBanco(gravacao);
+                    return null;
+                });
+                carrinhosGravados.increment();
+            } catch (RuntimeException e) {
+                devolver(gravacao);
+                throw e;
+            }
+        }
+        concluir(carrinho, retirarDaMemoria);
+    }
+
+    private List<Gravacao> coletar() {
+        List<Gravacao> lote = new ArrayList<>();
+        Iterator<CarrinhoAtivo> carrinhos = pendentes.values().iterator();
+        while (lote.size() < tamanhoLote && carrinhos.hasNext()) {
+            CarrinhoAtivo carrinho = carrinhos.next();
+
+            Segmento segmento = segmento(carrinho.idCarrinho);
+            segmento.trava.lock();
+            try {
+                // Em gravação por outra requisição: o que chegou depois fica pendente para a próxima coleta
+                if (carrinho.gravando) {
+                    continue;
+                }
+                carrinhos.remove();
+                Gravacao gravacao = retirarPendencias(carrinho);
+                if (gravacao != null) {
+                    lote.add(gravacao);
+                }
+            } finally {
+                segmento.trava.unlock();
+            }
+        }
+        return lote;
+    }
+
+    private void gravarLote(List<Gravacao> lote) {
+        try {
+            transacaoComRetentativa.executar(() -> {
+                for (Gravacao gravacao : lote) {
+                    gravarNoBanco(gravacao);
+                }
+                return null;
+            });
+            for (Gravacao gravacao : lote) {
+                concluir(gravacao.carrinho, false);
+            }
+            carrinhosGravados.increment(lote.size());
+        } catch (RuntimeException e) {
+            log.warn("Gravação de {} carrinho(s) ativo(s) falhou; gravando um a um: {}", lote.size(), e.getMessage());
+            for (Gravacao gravacao : lote) {
+                gravarSozinho(gravacao);
+            }
+        }
+    }
+
+    private void gravarSozinho(Gravacao gravacao) {
+        try {
+            transacaoComRetentativa.executar(() -> {
+                gravarNoBanco(gravacao);
+                return null;
+            });
+            concluir(gravacao.carrinho, false);
+            carrinhosGravados.increment();
+        } catch (CarrinhoException | DataIntegrityViolationException e) {
+            log.warn("Carrinho {} não pôde ser gravado e saiu da memória (excluído ou alterado por outro caminho): {}",
+                    gravacao.carrinho.idCarrinho, e.getMessage());
+            esquecer(gravacao.carrinho.idCarrinho);
+            concluir(gravacao.carrinho, true);
+        } catch (RuntimeException e) {
+            log.warn("Carrinho {} continua pendente de gravação: {}", gravacao.carrinho.idCarrinho, e.getMessage());
+            devolver(gravacao);
+        }
+    }
+
+    /*
+    METODO -> gravarNoBanco()
+
+    - Cada diferença é somada no item com o mesmo UPDATE atômico da adição síncrona
+    - Item que não existe no banco é inserido com o ID já usado em memória
+    - Item que ficou sem quantidade é apagado
+    - O total do carrinho recebe a soma das diferenças (e a versão avança)
+     */
+
+    private void gravarNoBanco(Gravacao gravacao) {
+        CarrinhoAtivo carrinho = gravacao.carrinho;
+        BigDecimal diferencaTotal = BigDecimal.ZERO;
+        boolean alterado = false;
+
+        for (Map.Entry<Long, Pendencia> entrada : gravacao.pendencias.entrySet()) {
+            Long idProduto = entrada.getKey();
+            Pendencia pendencia = entrada.getValue();
+            // Adicionado e removido antes da gravação: nada a fazer no banco
+            if (pendencia.quantidade == 0 && pendencia.valor.signum() == 0) {
+                continue;
+            }
+            alterado = true;
+
+            int atualizados = produtoCarrinhoRepository.somarQuantidade(carrinho.idCarrinho, carrinho.dataRegistroCarrinho,
+                    idProduto, pendencia.quantidade, pendencia.valor);
+            if (atualizados == 0 && pendencia.quantidade > 0) {
+                produtoCarrinhoRepository.inserirItem(pendencia.idProdutoCarrinho, carrinho.idCarrinho, carrinho.dataRegistroCarrinho,
+                        idProduto, pendencia.quantidade, pendencia.valor);
+            } else if (pendencia.quantidade < 0) {
+                produtoCarrinhoRepository.apagarSeVazio(carrinho.idCarrinho, carrinho.dataRegistroCarrinho, idProduto);
+            }
+            diferencaTotal = diferencaTotal.add(pendencia.valor);
+        }
+
+        if (alterado && carrinhoRepository.somarAoTotal(carrinho.idCarrinho, carrinho.dataRegistroCarrinho, diferencaTotal) == 0) {
+            throw new CarrinhoException(carrinho.idCarrinho);
+        }
+    }
+
+    // Executa a operação com o carrinho sob a trava do segmento; a leitura do banco, quando precisa, fica fora da trava.
+    private <T> T alterar(Long idCarrinho, Function<CarrinhoAtivo, T> operacao) {
+        Segmento segmento = segmento(idCarrinho);
+        CarrinhoAtivo lido = null;
+        while (true) {
+            segmento.trava.lock();
+            try {
+                CarrinhoAtivo carrinho = segmento.carrinhos.get(idCarrinho);
+                if (carrinho == null) {
+                    carrinho = aguardandoGravacao.remove(idCarrinho);
+                    if (carrinho == null) {
+                        carrinho = lido;
+                    }
+                    if (carrinho != null) {
+                        colocar(segmento, carrinho);
+                    }
+                }
+                if (carrinho != null) {
+                    return operacao.apply(carrinho);
+                }
+            } finally {
+                segmento.trava.unlock();
+            }
+            lido = lerDoBanco(idCarrinho);
+        }
+    }
+
+    private CarrinhoAtivo lerDoBanco(Long idCarrinho) {
+        Optional<Carrinho> optionalCarrinho = carrinhoRepository.findComProdutosByIdCarrinho(idCarrinho);
+        if (optionalCarrinho.isEmpty()) {
+            throw new CarrinhoException(idCarrinho);
+        }
+        Carrinho carrinho = optionalCarrinho.get();
+
+        CarrinhoAtivo carrinhoAtivo = new CarrinhoAtivo(carrinho.getIdCarrinho(), carrinho.getDataRegistroCarrinho());
+        carrinhoAtivo.valorTotal = carrinho.getValorTotalCarrinho();
+        carrinhoAtivo.finalizado = carrinho.isFinalizado();
+        carrinhoAtivo.dataCompraFinalizada = carrinho.getDataCompraFinalizada();
+        for (ProdutoCarrinho item : carrinho.getProdutos()) {
+            carrinhoAtivo.itens.put(item.getProduto().getIdProduto(), produtoCarrinhoService.paraDTO(item));
+        }
+        return carrinhoAtivo;
+    }
+
+    // Chamado com a trava do segmento. O carrinho que sai ainda com algo a gravar fica em aguardandoGravacao.
+    private void colocar(Segmento segmento, CarrinhoAtivo carrinho) {
+        segmento.carrinhos.put(carrinho.idCarrinho, carrinho);
+        if (segmento.carrinhos.size() <= carrinhosPorSegmento) {
+            return;
+        }
+
+        Iterator<CarrinhoAtivo> maisAntigo = segmento.carrinhos.values().iterator();
+        CarrinhoAtivo retirado = maisAntigo.next();
+        maisAntigo.remove();
+        if (!retirado.pendencias.isEmpty() || retirado.gravando) {
+            aguardandoGravacao.put(retirado.idCarrinho, retirado);
+        }
+    }
+
+    // Chamado com a trava do segmento.
+    private void registrar(CarrinhoAtivo carrinho, Long idProduto, Long idProdutoCarrinho, int quantidade, BigDecimal valor) {
+        Pendencia pendencia = carrinho.pendencias.computeIfAbsent(idProduto, id -> new Pendencia(idProdutoCarrinho));
+        pendencia.quantidade += quantidade;
+        pendencia.valor = pendencia.valor.add(valor);
+        carrinho.valorTotal = carrinho.valorTotal.add(valor);
+        pendentes.put(carrinho.idCarrinho, carrinho);
+    }
+
+    // Chamado com a trava do segmento. As diferenças saem do carrinho; novas alterações acumulam em um mapa novo.
+    private Gravacao retirarPendencias(CarrinhoAtivo carrinho) {
+        if (carrinho.pendencias.isEmpty()) {
+            return null;
+        }
+
+        Gravacao gravacao = new Gravacao(carrinho, carrinho.pendencias);
+        carrinho.pendencias = new HashMap<>();
+        carrinho.gravando = true;
+        return gravacao;
+    }
+
+    // Gravação concluída: o carrinho que já tinha saído do segmento e não tem nada novo deixa a memória.
+    private void concluir(CarrinhoAtivo carrinho, boolean retirarDaMemoria) {
+        Segmento segmento = segmento(carrinho.idCarrinho);
+        segmento.trava.lock();
+        try {
+            carrinho.gravando = false;
+            segmento.gravacaoConcluida.signalAll();
+            if (carrinho.pendencias.isEmpty()) {
+                aguardandoGravacao.remove(carrinho.idCarrinho, carrinho);
+                if (retirarDaMemoria) {
+                    segmento.carrinhos.remove(carrinho.idCarrinho, carrinho);
+                }
+            }
+        } finally {
+            segmento.trava.unlock();
+        }
+    }
+
+    // Gravação que falhou: as diferenças voltam a se somar às que chegaram nesse meio-tempo.
+    private void devolver(Gravacao gravacao) {
+        CarrinhoAtivo carrinho = gravacao.carrinho;
+        Segmento segmento = segmento(carrinho.idCarrinho);
+        segmento.trava.lock();
+        try {
+            for (Map.Entry<Long, Pendencia> entrada : gravacao.pendencias.entrySet()) {
+                Pendencia devolvida = entrada.getValue();
+                Pendencia pendencia = carrinho.pendencias.computeIfAbsent(entrada.getKey(), id -> new Pendencia(devolvida.idProdutoCarrinho));
+                pendencia.idProdutoCarrinho = devolvida.idProdutoCarrinho;
+                pendencia.quantidade += devolvida.quantidade;
+                pendencia.valor = pendencia.valor.add(devolvida.valor);
+            }
+            carrinho.gravando = false;
+            segmento.gravacaoConcluida.signalAll();
+            pendentes.put(carrinho.idCarrinho, carrinho);
+        } finally {
+            segmento.trava.unlock();
+        }
+    }
+
+    // Um acesso ao banco a cada BLOCO_IDS itens novos; o Hibernate usa a mesma sequência sem repetir IDs (pooled-lo).
+    private synchronized long novoIdItem() {
+        if (proximoId == limiteIds) {
+            proximoId = produtoCarrinhoRepository.reservarBlocoIds();
+            limiteIds = proximoId + BLOCO_IDS;
+        }
+        return proximoId++;
+    }
+
+    private Segmento segmento(Long idCarrinho) {
+        return segmentos[Math.floorMod(Long.hashCode(idCarrinho), segmentos.length)];
+    }
+
+    private double quantidadeEmMemoria() {
+        int quantidade = aguardandoGravacao.size();
+        for (Segmento segmento : segmentos) {
+            quantidade += segmento.carrinhos.size();
+        }
+        return quantidade;
+    }
+
+    private static class Segmento {
+
+        private final ReentrantLock trava = new ReentrantLock();
+
+        // Sinalizada ao fim de cada gravação de um carrinho do segmento (quem espera confere o próprio carrinho)
+        private final Condition gravacaoConcluida = trava.newCondition();
+
+        // Ordem de acesso: o primeiro é o usado há mais tempo
+        private final LinkedHashMap<Long, CarrinhoAtivo> carrinhos = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    private static class CarrinhoAtivo {
+
+        private final Long idCarrinho;
+
+        private final LocalDateTime dataRegistroCarrinho;
+
+        private BigDecimal valorTotal;
+
+        private boolean finalizado;
+
+        private LocalDateTime dataCompraFinalizada;
+
+        // Itens por ID do produto
+        private final Map<Long, ProdutoCarrinhoDTO> itens = new LinkedHashMap<>();
+
+        // Diferenças ainda não gravadas, por ID do produto
+        private Map<Long, Pendencia> pendencias = new HashMap<>();
+
+        // Diferenças retiradas e ainda não gravadas: ninguém mais grava este carrinho até a gravação terminar
+        private boolean gravando;
+
+        private CarrinhoAtivo(Long idCarrinho, LocalDateTime dataRegistroCarrinho) {
+            this.idCarrinho = idCarrinho;
+            this.dataRegistroCarrinho = dataRegistroCarrinho;
+        }
+
+        // Cópia: o chamador recebe um retrato do carrinho, que continua mudando em memória.
+        private CarrinhoDTO paraDTO() {
+            List<ProdutoCarrinhoDTO> produtos = new ArrayList<>();
+            for (ProdutoCarrinhoDTO item : itens.values()) {
+                produtos.add(ProdutoCarrinhoDTO.builder()
+                        .idProdutoCarrinho(item.getIdProdutoCarrinho())
+                        .produtoDTO(item.getProdutoDTO())
+                        .quantidade(item.getQuantidade())
+                        .precoTotal(item.getPrecoTotal())
+                        .build());
+            }
+
+            return CarrinhoDTO.builder()
+                    .idCarrinho(idCarrinho)
+                    .valorTotalCarrinho(valorTotal)
+                    .produtos(produtos)
+                    .dataCompraFinalizada(dataCompraFinalizada)
+                    .finalizado(finalizado)
+                    .build();
+        }
+    }
+
+    private static class Pendencia {
+
+        private Long idProdutoCarrinho;
+
+        private int quantidade;
+
+        private BigDecimal valor = BigDecimal.ZERO;
+
+        private Pendencia(Long idProdutoCarrinho) {
+            this.idProdutoCarrinho = idProdutoCarrinho;
+        }
+    }
+
+    private record Gravacao(CarrinhoAtivo carrinho, Map<Long, Pendencia> pendencias) {
+    }
+}
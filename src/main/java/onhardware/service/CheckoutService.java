@@ -0,0 +1,304 @@
+package onhardware.service;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import onhardware.DTO.CheckoutDTO;
+import onhardware.exception.CarrinhoException;
+import onhardware.exception.CheckoutException;
+import onhardware.exception.EstoqueInsuficienteException;
+import onhardware.model.Carrinho;
+import onhardware.model.Checkout;
+import onhardware.model.ItemPedido;
+import onhardware.model.Pedido;
+import onhardware.model.ProdutoCarrinho;
+import onhardware.model.StatusCheckout;
+import onhardware.repository.CarrinhoRepository;
+import onhardware.repository.CheckoutRepository;
+import onhardware.repository.PedidoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+
+/*
+CLASSE -> CheckoutService
+
+- A requisição de finalização só valida o carrinho e grava o pedido na fila (tabela checkouts), respondendo 202
+- ProcessamentoCheckoutJob retira lotes da fila e processa cada finalização em etapas, em uma única transação:
+  revalidação de preços, confirmação das reservas de estoque, registro do pedido e fechamento do carrinho
+- Repetir a finalização não gera outro pedido: a chave de idempotência devolve o mesmo checkout e
+  cada carrinho gera no máximo um pedido
+ */
+
+@Slf4j
+@Service
+public class CheckoutService {
+
+    private static final String METRICA_OPERACAO = "onhardware.checkout.operacao";
+    private static final String METRICA_PROCESSADOS = "onhardware.checkout.processados";
+
+    // Um carrinho com finalização em andamento ou concluída não aceita outra
+    private static final EnumSet<StatusCheckout> STATUS_ATIVOS =
+            EnumSet.of(StatusCheckout.PENDENTE, StatusCheckout.PROCESSANDO, StatusCheckout.CONCLUIDO);
+
+    @Autowired
+    private CheckoutRepository checkoutRepository;
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private TransacaoComRetentativa transacaoComRetentativa;
+
+    @Autowired
+    private CarrinhosAtivos carrinhosAtivos;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${onhardware.checkout.maximo-tentativas}")
+    private int maximoTentativas;
+
+    @Value("${onhardware.checkout.tempo-abandono}")
+    private Duration tempoAbandono;
+
+    public CheckoutDTO paraDTO(Checkout checkout) {
+        return CheckoutDTO.builder()
+                .idCheckout(checkout.getIdCheckout())
+                .idCarrinho(checkout.getIdCarrinho())
+                .status(checkout.getStatus())
+                .mensagem(checkout.getMensagem())
+                .idPedido(checkout.getIdPedido())
+                .dataRegistro(checkout.getDataRegistro())
+                .dataAtualizacao(checkout.getDataAtualizacao())
+                .build();
+    }
+
+    /*
+    METODO -> solicitarCheckout()
+
+    - Mesma chave de idempotência: devolve o checkout já registrado, sem validar de novo
+    - Carrinho com finalização em andamento ou concluída: devolve essa finalização
+    - Valida o carrinho (existe, não finalizado, com itens) e grava o checkout PENDENTE
+    - Sem chave informada, usa o carrinho, a sua versão e o número da tentativa: cliques repetidos sobre o mesmo
+      carrinho viram um só pedido, e uma finalização que falhou pode ser pedida de novo
+    - Com a camada de carrinhos ativos, o que estava só em memória é gravado antes, de forma síncrona
+     */
+
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "solicitar"}, histogram = true)
+    public CheckoutDTO solicitarCheckout(Long idCarrinho, String chaveIdempotencia) {
+        carrinhosAtivos.descarregar(idCarrinho);
+        try {
+            return transactionTemplate.execute(status -> solicitarCheckoutNaTransacao(idCarrinho, chaveIdempotencia));
+        } catch (DataIntegrityViolationException e) {
+            // Duas requisições com a mesma chave ao mesmo tempo: a restrição única barra a segunda, que devolve a primeira
+            return transactionTemplate.execute(status -> solicitarCheckoutNaTransacao(idCarrinho, chaveIdempotencia));
+        }
+    }
+
+    private CheckoutDTO solicitarCheckoutNaTransacao(Long idCarrinho, String chaveIdempotencia) {
+        if (chaveIdempotencia != null) {
+            Optional<Checkout> optionalExistente = checkoutRepository.findByChaveIdempotencia(chaveIdempotencia);
+            if (optionalExistente.isPresent()) {
+                return paraDTO(optionalExistente.get());
+            }
+        }
+
+        Optional<Checkout> optionalAtivo = checkoutRepository.findFirstByIdCarrinhoAndStatusInOrderByIdCheckoutDesc(idCarrinho, STATUS_ATIVOS);
+        if (optionalAtivo.isPresent()) {
+            return paraDTO(optionalAtivo.get());
+        }
+
+        Optional<Carrinho> optionalCarrinho = carrinhoRepository.findComProdutosByIdCarrinho(idCarrinho);
+        if (optionalCarrinho.isEmpty()) {
+            throw new CarrinhoException(idCarrinho);
+        }
+        Carrinho carrinho = optionalCarrinho.get();
+
+        if (carrinho.isFinalizado()) {
+            throw new CheckoutException("A compra deste carrinho já foi finalizada.");
+        }
+        if (carrinho.getProdutos().isEmpty()) {
+            throw new CheckoutException("Não é possível finalizar um carrinho vazio.");
+        }
+
+        // A tentativa entra na chave derivada: um checkout FALHOU sobre a mesma versão não impede tentar de novo,
+        // e cliques simultâneos contam as mesmas tentativas e caem na mesma chave
+        String chave = chaveIdempotencia != null
+                ? chaveIdempotencia
+                : "carrinho-" + idCarrinho + "-v" + carrinho.getVersao() + "-t"
+                        + (checkoutRepository.countByIdCarrinhoAndVersaoCarrinho(idCarrinho, carrinho.getVersao()) + 1);
+
+        Checkout checkout = checkoutRepository.saveAndFlush(Checkout.builder()
+                .chaveIdempotencia(chave)
+                .idCarrinho(idCarrinho)
+                .versaoCarrinho(carrinho.getVersao())
+                .status(StatusCheckout.PENDENTE)
+                .build());
+
+        return paraDTO(checkout);
+    }
+
+    @Transactional(readOnly = true)
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "buscar"}, histogram = true)
+    public CheckoutDTO buscarCheckoutPorId(Long id) {
+        Optional<Checkout> optionalCheckout = checkoutRepository.findById(id);
+        if (optionalCheckout.isEmpty()) {
+            throw new CheckoutException("Checkout não encontrado.");
+        }
+
+        return paraDTO(optionalCheckout.get());
+    }
+
+    /*
+    METODO -> reservarLote()
+
+    - Retira da fila até "tamanho" checkouts (pendentes ou abandonados) e os marca como PROCESSANDO
+    - As linhas ficam bloqueadas só durante esta transação curta; outras instâncias pulam as bloqueadas
+     */
+
+    @Transactional
+    public List<Long> reservarLote(int tamanho) {
+        List<Long> ids = new ArrayList<>();
+        for (Checkout checkout : checkoutRepository.buscarParaProcessar(LocalDateTime.now().minus(tempoAbandono), Limit.of(tamanho))) {
+            checkout.setStatus(StatusCheckout.PROCESSANDO);
+            checkout.setTentativas(checkout.getTentativas() + 1);
+            ids.add(checkout.getIdCheckout());
+        }
+        return ids;
+    }
+
+    /*
+    METODO -> processarCheckout()
+
+    - Executa as etapas em uma única transação: ou tudo é gravado, ou nada (e o checkout volta para a fila)
+    - Falha de regra (carrinho alterado, vazio...): o checkout termina como FALHOU, com a mensagem
+    - Falha técnica: o checkout volta a PENDENTE, até o máximo de tentativas
+     */
+
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "processar"}, histogram = true)
+    public void processarCheckout(Long idCheckout) {
+        try {
+            if (transacaoComRetentativa.executar(() -> processarCheckoutNaTransacao(idCheckout))) {
+                meterRegistry.counter(METRICA_PROCESSADOS, "status", StatusCheckout.CONCLUIDO.name()).increment();
+            }
+        } catch (CheckoutException | CarrinhoException | EstoqueInsuficienteException e) {
+            registrarFalha(idCheckout, e.getMessage(), true);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao processar o checkout {}: {}", idCheckout, e.getMessage());
+            registrarFalha(idCheckout, "Erro ao processar a finalização.", false);
+        }
+    }
+
+    // Devolve false quando o checkout já foi tratado (por outra instância, por exemplo).
+    private boolean processarCheckoutNaTransacao(Long idCheckout) {
+        Checkout checkout = checkoutRepository.findById(idCheckout).orElseThrow();
+        if (checkout.getStatus() != StatusCheckout.PROCESSANDO) {
+            return false;
+        }
+
+        // Pedido já registrado para o carrinho (outra finalização, ou esta antes de uma queda): só aponta para ele
+        Optional<Pedido> optionalPedido = pedidoRepository.findByIdCarrinho(checkout.getIdCarrinho());
+        if (optionalPedido.isPresent()) {
+            concluir(checkout, optionalPedido.get(), null);
+            return true;
+        }
+
+        Carrinho carrinho = carrinhoRepository.findComProdutosByIdCarrinho(checkout.getIdCarrinho())
+                .orElseThrow(() -> new CarrinhoException(checkout.getIdCarrinho()));
+        if (!carrinho.getVersao().equals(checkout.getVersaoCarrinho())) {
+            throw new CheckoutException("O carrinho foi alterado depois do pedido de finalização.");
+        }
+
+        int precosAlterados = revalidarPrecos(carrinho);
+        estoqueService.confirmarReservas(carrinho);
+        Pedido pedido = registrarPedido(checkout, carrinho);
+        fecharCarrinho(carrinho);
+
+        concluir(checkout, pedido, precosAlterados > 0 ? precosAlterados + " item(ns) com preço atualizado." : null);
+        return true;
+    }
+
+    // Etapa 1: os itens guardam o preço do momento em que foram adicionados; vale o preço atual do produto.
+    private int revalidarPrecos(Carrinho carrinho) {
+        int alterados = 0;
+        BigDecimal total = BigDecimal.ZERO;
+        for (ProdutoCarrinho item : carrinho.getProdutos()) {
+            BigDecimal precoAtual = item.getProduto().getPrecoProduto().multiply(BigDecimal.valueOf(item.getQuantidade()));
+            if (precoAtual.compareTo(item.getPrecoTotal()) != 0) {
+                item.setPrecoTotal(precoAtual);
+                alterados++;
+            }
+            total = total.add(item.getPrecoTotal());
+        }
+        carrinho.setValorTotalCarrinho(total);
+        return alterados;
+    }
+
+    // Etapa 3 (a etapa 2 é EstoqueService.confirmarReservas()): cópia dos itens e preços; os INSERTs dos itens vão em lote (hibernate.jdbc.batch_size).
+    private Pedido registrarPedido(Checkout checkout, Carrinho carrinho) {
+        Pedido pedido = Pedido.builder()
+                .idCarrinho(carrinho.getIdCarrinho())
+                .idCheckout(checkout.getIdCheckout())
+                .valorTotalPedido(carrinho.getValorTotalCarrinho())
+                .build();
+
+        for (ProdutoCarrinho item : carrinho.getProdutos()) {
+            pedido.getItens().add(ItemPedido.builder()
+                    .pedido(pedido)
+                    .idProduto(item.getProduto().getIdProduto())
+                    .nomeProduto(item.getProduto().getNomeProduto())
+                    .marcaProduto(item.getProduto().getMarcaProduto())
+                    .quantidade(item.getQuantidade())
+                    .precoUnitario(item.getProduto().getPrecoProduto())
+                    .precoTotal(item.getPrecoTotal())
+                    .build());
+        }
+
+        return pedidoRepository.save(pedido);
+    }
+
+    // Etapa 4
+    private void fecharCarrinho(Carrinho carrinho) {
+        carrinho.setFinalizado(true);
+        carrinho.setDataCompraFinalizada(LocalDateTime.now());
+    }
+
+    private void concluir(Checkout checkout, Pedido pedido, String mensagem) {
+        checkout.setStatus(StatusCheckout.CONCLUIDO);
+        checkout.setIdPedido(pedido.getIdPedido());
+        checkout.setMensagem(mensagem);
+    }
+
+    private void registrarFalha(Long idCheckout, String mensagem, boolean definitiva) {
+        StatusCheckout status = transacaoComRetentativa.executar(() -> {
+            Checkout checkout = checkoutRepository.findById(idCheckout).orElseThrow();
+            boolean esgotado = definitiva || checkout.getTentativas() >= maximoTentativas;
+            checkout.setStatus(esgotado ? StatusCheckout.FALHOU : StatusCheckout.PENDENTE);
+            checkout.setMensagem(mensagem);
+            return checkout.getStatus();
+        });
+        meterRegistry.counter(METRICA_PROCESSADOS, "status", status.name()).increment();
+    }
+}
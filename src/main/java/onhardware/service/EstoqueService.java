@@ -0,0 +1,278 @@
+package onhardware.service;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import onhardware.DTO.EstoqueDTO;
+import onhardware.exception.EstoqueInsuficienteException;
+import onhardware.exception.ProdutoException;
+import onhardware.model.Carrinho;
+import onhardware.model.EstoqueFatia;
+import onhardware.model.ProdutoCarrinho;
+import onhardware.model.ReservaEstoque;
+import onhardware.repository.EstoqueFatiaRepository;
+import onhardware.repository.ProdutoRepository;
+import onhardware.repository.ReservaEstoqueRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+CLASSE -> EstoqueService
+
+- O estoque de cada produto fica dividido em fatias (EstoqueFatia); cada reserva retira de uma só fatia,
+  sorteada entre as que têm saldo, com um UPDATE condicional (disponivel >= quantidade)
+- Reservas e liberações participam da transação do carrinho: a alteração do carrinho e a do estoque
+  são gravadas juntas ou não são gravadas
+- Nos métodos do carrinho a reserva é o último comando antes do commit, para a fatia ficar bloqueada o menor tempo possível
+- Reservas vencem (onhardware.estoque.validade-reserva) e são devolvidas ao estoque por LiberacaoReservasJob;
+  a finalização da compra reserva de novo o que tiver vencido e consome as reservas
+ */
+
+@Slf4j
+@Service
+public class EstoqueService {
+
+    public static final String CACHE_ESTOQUE_CONTROLADO = "estoque-controlado";
+
+    private static final String METRICA_OPERACAO = "onhardware.estoque.operacao";
+
+    @Autowired
+    private EstoqueFatiaRepository estoqueFatiaRepository;
+
+    @Autowired
+    private ReservaEstoqueRepository reservaEstoqueRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Value("${onhardware.estoque.fatias}")
+    private int quantidadeFatias;
+
+    @Value("${onhardware.estoque.validade-reserva}")
+    private Duration validadeReserva;
+
+    /*
+    METODO -> definirEstoque()
+
+    - Bloqueia as fatias atuais do produto e redistribui a quantidade disponível igualmente entre elas
+    - Na primeira definição, cria as fatias (onhardware.estoque.fatias)
+    - As reservas já feitas não mudam: a quantidade informada é a disponível além delas
+     */
+
+    @CacheEvict(value = CACHE_ESTOQUE_CONTROLADO, key = "#idProduto")
+    @Transactional
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "definir"}, histogram = true)
+    public EstoqueDTO definirEstoque(Long idProduto, long disponivel) {
+        if (!produtoRepository.existsById(idProduto)) {
+            throw new ProdutoException(idProduto);
+        }
+
+        List<EstoqueFatia> fatias = estoqueFatiaRepository.findByIdProdutoOrderByFatia(idProduto);
+        if (fatias.isEmpty()) {
+            for (int fatia = 0; fatia < quantidadeFatias; fatia++) {
+                fatias.add(EstoqueFatia.builder().idProduto(idProduto).fatia(fatia).build());
+            }
+        }
+
+        for (int i = 0; i < fatias.size(); i++) {
+            // O resto da divisão vai para as primeiras fatias
+            fatias.get(i).setDisponivel((int) (disponivel / fatias.size() + (i < disponivel % fatias.size() ? 1 : 0)));
+        }
+        estoqueFatiaRepository.saveAll(fatias);
+
+        return EstoqueDTO.builder()
+                .idProduto(idProduto)
+                .disponivel(disponivel)
+                .reservado(reservaEstoqueRepository.somarReservado(idProduto))
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "consultar"}, histogram = true)
+    public EstoqueDTO consultarEstoque(Long idProduto) {
+        if (!produtoRepository.existsById(idProduto)) {
+            throw new ProdutoException(idProduto);
+        }
+
+        return EstoqueDTO.builder()
+                .idProduto(idProduto)
+                .disponivel(estoqueFatiaRepository.somarDisponivel(idProduto))
+                .reservado(reservaEstoqueRepository.somarReservado(idProduto))
+                .build();
+    }
+
+    // Se o produto tem fatias; pelo cache, para a camada de carrinhos ativos só ir ao banco quando houver o que reservar.
+    // Lida no principal, como toda consulta que preenche cache.
+    @Cacheable(value = CACHE_ESTOQUE_CONTROLADO, key = "#idProduto")
+    @Transactional
+    public boolean possuiEstoqueControlado(Long idProduto) {
+        return estoqueFatiaRepository.existsByIdProduto(idProduto);
+    }
+
+    /*
+    METODO -> reservar()
+
+    - Produto sem estoque controlado (sem fatias): não reserva
+    - Sorteia uma fatia com saldo e tenta retirar; se outra transação esvaziou a fatia antes, tenta a próxima
+    - Nenhuma fatia tem saldo sozinha: se a soma das fatias não basta, lança EstoqueInsuficienteException sem bloquear;
+      se basta, junta o saldo de várias (bloqueando todas)
+    - Soma a quantidade à reserva do carrinho e renova a validade
+     */
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reservar(Long idCarrinho, Long idProduto, int quantidade) {
+        if (!retirar(idProduto, quantidade)) {
+            return;
+        }
+
+        LocalDateTime expiraEm = LocalDateTime.now().plus(validadeReserva);
+        if (reservaEstoqueRepository.somarQuantidade(idCarrinho, idProduto, quantidade, expiraEm) == 0) {
+            reservaEstoqueRepository.saveAndFlush(ReservaEstoque.builder()
+                    .idCarrinho(idCarrinho)
+                    .idProduto(idProduto)
+                    .quantidade(quantidade)
+                    .expiraEm(expiraEm)
+                    .build());
+        }
+    }
+
+    // Devolve false se o produto não tem estoque controlado.
+    private boolean retirar(Long idProduto, int quantidade) {
+        List<Integer> candidatas = estoqueFatiaRepository.buscarFatiasComSaldo(idProduto, quantidade);
+        if (!candidatas.isEmpty()) {
+            int inicio = ThreadLocalRandom.current().nextInt(candidatas.size());
+            for (int i = 0; i < candidatas.size(); i++) {
+                int fatia = candidatas.get((inicio + i) % candidatas.size());
+                if (estoqueFatiaRepository.retirar(idProduto, fatia, quantidade) == 1) {
+                    return true;
+                }
+            }
+        }
+
+        // Esgotado: recusa pela soma, sem bloquear nada (produto sem fatias não tem estoque controlado)
+        if (estoqueFatiaRepository.somarDisponivel(idProduto) < quantidade) {
+            if (!estoqueFatiaRepository.existsByIdProduto(idProduto)) {
+                return false;
+            }
+            throw new EstoqueInsuficienteException(idProduto);
+        }
+
+        // Saldo suficiente, mas espalhado: junta as fatias, bloqueadas até o fim da transação
+        List<EstoqueFatia> fatias = estoqueFatiaRepository.findByIdProdutoOrderByFatia(idProduto);
+        if (fatias.isEmpty()) {
+            return false;
+        }
+
+        int restante = quantidade;
+        for (EstoqueFatia fatia : fatias) {
+            int retirado = Math.min(restante, fatia.getDisponivel());
+            fatia.setDisponivel(fatia.getDisponivel() - retirado);
+            restante -= retirado;
+        }
+        if (restante > 0) {
+            throw new EstoqueInsuficienteException(idProduto);
+        }
+        estoqueFatiaRepository.flush();
+        return true;
+    }
+
+    /*
+    METODO -> liberar()
+
+    - Devolve ao estoque até "quantidade" da reserva do carrinho (o que já venceu e foi liberado não volta duas vezes)
+    - A devolução vai para uma fatia sorteada
+     */
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void liberar(Long idCarrinho, Long idProduto, int quantidade) {
+        Optional<ReservaEstoque> optionalReserva = reservaEstoqueRepository.findByIdCarrinhoAndIdProduto(idCarrinho, idProduto);
+        if (optionalReserva.isEmpty()) {
+            return;
+        }
+        ReservaEstoque reserva = optionalReserva.get();
+
+        int liberado = Math.min(quantidade, reserva.getQuantidade());
+        if (liberado == reserva.getQuantidade()) {
+            reservaEstoqueRepository.delete(reserva);
+        } else {
+            reserva.setQuantidade(reserva.getQuantidade() - liberado);
+        }
+        devolver(idProduto, liberado);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void liberarCarrinho(Long idCarrinho) {
+        for (ReservaEstoque reserva : reservaEstoqueRepository.findByIdCarrinho(idCarrinho)) {
+            reservaEstoqueRepository.delete(reserva);
+            devolver(reserva.getIdProduto(), reserva.getQuantidade());
+        }
+    }
+
+    /*
+    METODO -> confirmarReservas()
+
+    - Usado na finalização da compra
+    - Reserva o que faltar para cobrir cada item (reserva vencida e liberada, por exemplo)
+    - Apaga as reservas do carrinho: a quantidade sai do estoque de vez
+     */
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void confirmarReservas(Carrinho carrinho) {
+        List<ReservaEstoque> reservas = reservaEstoqueRepository.findByIdCarrinho(carrinho.getIdCarrinho());
+
+        for (ProdutoCarrinho item : carrinho.getProdutos()) {
+            Long idProduto = item.getProduto().getIdProduto();
+            int reservado = 0;
+            for (ReservaEstoque reserva : reservas) {
+                if (reserva.getIdProduto().equals(idProduto)) {
+                    reservado = reserva.getQuantidade();
+                }
+            }
+            if (item.getQuantidade() > reservado) {
+                retirar(idProduto, item.getQuantidade() - reservado);
+            }
+        }
+
+        reservaEstoqueRepository.deleteAll(reservas);
+    }
+
+    /*
+    METODO -> liberarReservasVencidas()
+
+    - Devolve ao estoque um lote de reservas vencidas e as apaga
+    - Os itens continuam no carrinho; a finalização tenta reservá-los de novo
+     */
+
+    @Transactional
+    public int liberarReservasVencidas(int tamanhoLote) {
+        List<ReservaEstoque> vencidas = reservaEstoqueRepository.buscarVencidas(LocalDateTime.now(), Limit.of(tamanhoLote));
+        for (ReservaEstoque reserva : vencidas) {
+            reservaEstoqueRepository.delete(reserva);
+            devolver(reserva.getIdProduto(), reserva.getQuantidade());
+        }
+        return vencidas.size();
+    }
+
+    private void devolver(Long idProduto, int quantidade) {
+        if (quantidade <= 0) {
+            return;
+        }
+        // Se as fatias foram apagadas (produto deixou de ter estoque controlado), não há para onde devolver
+        int fatia = ThreadLocalRandom.current().nextInt(quantidadeFatias);
+        if (estoqueFatiaRepository.devolver(idProduto, fatia, quantidade) == 0) {
+            estoqueFatiaRepository.findByIdProdutoOrderByFatia(idProduto).stream().findFirst()
+                    .ifPresent(primeira -> estoqueFatiaRepository.devolver(idProduto, primeira.getFatia(), quantidade));
+        }
+    }
+}
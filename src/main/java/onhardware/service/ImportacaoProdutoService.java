@@ -0,0 +1,270 @@
+package onhardware.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import onhardware.DTO.ErroImportacaoDTO;
+import onhardware.DTO.ProdutoDTO;
+import onhardware.DTO.ResultadoImportacaoDTO;
+import onhardware.model.Produto;
+import onhardware.repository.ProdutoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class ImportacaoProdutoService {
+
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private static final int MAXIMO_ERROS_REPORTADOS = 100;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${onhardware.importacao.tamanho-lote:1000}")
+    private int tamanhoLote;
+
+    /*
+    METODO -> importar()
+
+    - Lê o arquivo registro a registro (CSV com cabeçalho ou NDJSON), sem carregá-lo inteiro; no CSV, um campo
+      entre aspas pode ocupar várias linhas (LeitorCsv)
+    - Valida cada registro com as mesmas regras do ProdutoDTO
+    - Junta os registros válidos em lotes e grava cada lote em uma transação
+    - Produtos com a mesma marca e modelo são atualizados; os demais são criados
+    - Devolve o resumo com as linhas que falharam
+    - Se a gravação de um lote falhar, os lotes anteriores continuam gravados: a importação para e devolve o que
+      foi gravado, com a última linha já processada, para o cliente reenviar o restante
+     */
+
+    public ResultadoImportacaoDTO importar(InputStream corpo, MediaType tipoConteudo) {
+        boolean csv = TEXT_CSV.isCompatibleWith(tipoConteudo);
+        ResultadoImportacaoDTO resultado = ResultadoImportacaoDTO.builder()
+                .erros(new ArrayList<>())
+                .build();
+
+        try (BufferedReader leitor = new BufferedReader(new InputStreamReader(corpo, StandardCharsets.UTF_8))) {
+            LeitorCsv leitorCsv = csv ? new LeitorCsv(leitor) : null;
+            List<String> cabecalho = csv ? lerCabecalhoCsv(leitorCsv) : null;
+            long numeroLinha = 0;
+            if (csv) {
+                resultado.setUltimaLinhaGravada(leitorCsv.linhasLidas());
+            }
+            Map<String, ProdutoDTO> lote = new LinkedHashMap<>();
+
+            String registro;
+            while ((registro = csv ? leitorCsv.proximoRegistro() : leitor.readLine()) != null) {
+                numeroLinha = csv ? leitorCsv.linhaInicial() : numeroLinha + 1;
+                if (registro.isBlank()) {
+                    continue;
+                }
+                resultado.setLinhasLidas(resultado.getLinhasLidas() + 1);
+
+                ProdutoDTO produtoDTO;
+                try {
+                    produtoDTO = csv ? lerRegistroCsv(cabecalho, registro) : objectMapper.readValue(registro, ProdutoDTO.class);
+                } catch (JsonProcessingException | IllegalArgumentException e) {
+                    registrarErro(resultado, numeroLinha, "Linha mal formatada.");
+                    continue;
+                }
+                // NDJSON com a linha "null": não é um produto
+                if (produtoDTO == null) {
+                    registrarErro(resultado, numeroLinha, "Linha mal formatada.");
+                    continue;
+                }
+
+                Set<ConstraintViolation<ProdutoDTO>> violacoes = validator.validate(produtoDTO);
+                if (!violacoes.isEmpty()) {
+                    registrarErro(resultado, numeroLinha, violacoes.stream()
+                            .map(ConstraintViolation::getMessage)
+                            .sorted()
+                            .collect(Collectors.joining(" ")));
+                    continue;
+                }
+
+                // Dentro do mesmo lote, a última ocorrência de uma marca/modelo prevalece.
+                lote.put(chave(produtoDTO.getMarcaProduto(), produtoDTO.getModeloProduto()), produtoDTO);
+                if (lote.size() >= tamanhoLote) {
+                    if (!gravarLote(lote, resultado, csv ? leitorCsv.linhasLidas() : numeroLinha)) {
+                        return resultado;
+                    }
+                    log.info("Importação de produtos: {} linhas lidas, {} criados, {} atualizados, {} com erro",
+                            resultado.getLinhasLidas(), resultado.getProdutosCriados(),
+                            resultado.getProdutosAtualizados(), resultado.getLinhasComErro());
+                }
+            }
+
+            long ultimaLinha = csv ? leitorCsv.linhasLidas() : numeroLinha;
+            if (!lote.isEmpty() && !gravarLote(lote, resultado, ultimaLinha)) {
+                return resultado;
+            }
+            resultado.setUltimaLinhaGravada(ultimaLinha);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.info("Importação de produtos concluída: {} linhas lidas, {} criados, {} atualizados, {} com erro",
+                resultado.getLinhasLidas(), resultado.getProdutosCriados(),
+                resultado.getProdutosAtualizados(), resultado.getLinhasComErro());
+        return resultado;
+    }
+
+    // false se o lote (que vai até ultimaLinha do arquivo) não pôde ser gravado: o resultado fica marcado como interrompido
+    private boolean gravarLote(Map<String, ProdutoDTO> lote, ResultadoImportacaoDTO resultado, long ultimaLinha) {
+        List<Long> idsAtualizados;
+        try {
+            idsAtualizados = transactionTemplate.execute(status -> gravarProdutos(lote));
+        } catch (RuntimeException e) {
+            log.error("Importação de produtos interrompida: falha ao gravar o lote até a linha {}; {} criados e {} atualizados antes dele",
+                    ultimaLinha, resultado.getProdutosCriados(), resultado.getProdutosAtualizados(), e);
+            resultado.setInterrompida(true);
+            resultado.setMotivoInterrupcao("Falha ao gravar o lote das linhas " + (resultado.getUltimaLinhaGravada() + 1)
+                    + " a " + ultimaLinha + ". Reenvie o arquivo a partir da linha " + (resultado.getUltimaLinhaGravada() + 1) + ".");
+            return false;
+        }
+
+        Cache cache = cacheManager.getCache(ProdutoService.CACHE_PRODUTOS);
+        if (cache != null) {
+            for (Long id : idsAtualizados) {
+                cache.evict(id);
+            }
+        }
+
+        resultado.setProdutosAtualizados(resultado.getProdutosAtualizados() + idsAtualizados.size());
+        resultado.setProdutosCriados(resultado.getProdutosCriados() + lote.size() - idsAtualizados.size());
+        resultado.setUltimaLinhaGravada(ultimaLinha);
+        lote.clear();
+        return true;
+    }
+
+    private List<Long> gravarProdutos(Map<String, ProdutoDTO> lote) {
+        Set<String> modelos = lote.values().stream()
+                .map(ProdutoDTO::getModeloProduto)
+                .collect(Collectors.toSet());
+
+        Map<String, Produto> existentes = new HashMap<>();
+        for (Produto produto : produtoRepository.findByModeloProdutoIn(modelos)) {
+            existentes.put(chave(produto.getMarcaProduto(), produto.getModeloProduto()), produto);
+        }
+
+        List<Produto> produtos = new ArrayList<>();
+        List<Long> atualizados = new ArrayList<>();
+        for (Map.Entry<String, ProdutoDTO> entrada : lote.entrySet()) {
+            ProdutoDTO produtoDTO = entrada.getValue();
+            Produto produto = existentes.get(entrada.getKey());
+
+            if (produto == null) {
+                produtos.add(Produto.builder()
+                        .nomeProduto(produtoDTO.getNomeProduto())
+                        .marcaProduto(produtoDTO.getMarcaProduto())
+                        .modeloProduto(produtoDTO.getModeloProduto())
+                        .especificacaoProduto(produtoDTO.getEspecificacaoProduto())
+                        .precoProduto(produtoDTO.getPrecoProduto())
+                        .build());
+            } else {
+                produto.setNomeProduto(produtoDTO.getNomeProduto());
+                produto.setEspecificacaoProduto(produtoDTO.getEspecificacaoProduto());
+                if (produto.getPrecoProduto().compareTo(produtoDTO.getPrecoProduto()) != 0) {
+                    produto.setReprecificacaoPendente(true);
+                }
+                produto.setPrecoProduto(produtoDTO.getPrecoProduto());
+                produtos.add(produto);
+                atualizados.add(produto.getIdProduto());
+            }
+        }
+
+        produtoRepository.saveAll(produtos);
+        entityManager.flush();
+        // A requisição mantém o mesmo EntityManager aberto; sem limpar, ele cresceria a cada lote.
+        entityManager.clear();
+        return atualizados;
+    }
+
+    private List<String> lerCabecalhoCsv(LeitorCsv leitorCsv) throws IOException {
+        String registro = leitorCsv.proximoRegistro();
+        if (registro == null) {
+            return List.of();
+        }
+        // Remove o BOM que algumas planilhas gravam no início do arquivo.
+        if (registro.startsWith("\uFEFF")) {
+            registro = registro.substring(1);
+        }
+
+        List<String> cabecalho = new ArrayList<>();
+        for (String coluna : LeitorCsv.separarColunas(registro)) {
+            cabecalho.add(coluna.trim());
+        }
+        return cabecalho;
+    }
+
+    private ProdutoDTO lerRegistroCsv(List<String> cabecalho, String registro) {
+        List<String> colunas = LeitorCsv.separarColunas(registro);
+        Map<String, String> valores = new HashMap<>();
+        for (int i = 0; i < cabecalho.size() && i < colunas.size(); i++) {
+            valores.put(cabecalho.get(i), colunas.get(i).trim());
+        }
+
+        String preco = valores.get("precoProduto");
+        return ProdutoDTO.builder()
+                .nomeProduto(valores.get("nomeProduto"))
+                .marcaProduto(valores.get("marcaProduto"))
+                .modeloProduto(valores.get("modeloProduto"))
+                .especificacaoProduto(valores.get("especificacaoProduto"))
+                .precoProduto(preco == null || preco.isEmpty() ? null : new BigDecimal(preco))
+                .build();
+    }
+
+    private void registrarErro(ResultadoImportacaoDTO resultado, long linha, String mensagem) {
+        resultado.setLinhasComErro(resultado.getLinhasComErro() + 1);
+        if (resultado.getErros().size() < MAXIMO_ERROS_REPORTADOS) {
+            resultado.getErros().add(ErroImportacaoDTO.builder()
+                    .linha(linha)
+                    .mensagem(mensagem)
+                    .build());
+        }
+    }
+
+    private String chave(String marca, String modelo) {
+        return marca + "\u0000" + modelo;
+    }
+}
@@ -0,0 +1,98 @@
+package onhardware.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+CLASSE -> LeitorCsv
+
+- Lê o CSV registro a registro: um campo entre aspas pode conter quebras de linha, então um registro
+  pode ocupar várias linhas do arquivo
+- Guarda a linha do arquivo em que o registro começou, para os erros da importação apontarem a linha certa
+- Aspas sem fechamento consomem o restante do arquivo; separarColunas recusa esse registro
+ */
+
+class LeitorCsv {
+
+    private final BufferedReader leitor;
+    private long linhasLidas;
+    private long linhaInicial;
+
+    LeitorCsv(BufferedReader leitor) {
+        this.leitor = leitor;
+    }
+
+    // Próximo registro, com as quebras de linha internas aos campos entre aspas; null no fim do arquivo
+    String proximoRegistro() throws IOException {
+        String linha = leitor.readLine();
+        if (linha == null) {
+            return null;
+        }
+        linhasLidas++;
+        linhaInicial = linhasLidas;
+
+        StringBuilder registro = new StringBuilder(linha);
+        // Aspas duplicadas ("") não mudam a paridade: número ímpar de aspas = campo ainda aberto
+        boolean entreAspas = contarAspas(linha) % 2 == 1;
+        while (entreAspas && (linha = leitor.readLine()) != null) {
+            linhasLidas++;
+            registro.append('\n').append(linha);
+            entreAspas ^= contarAspas(linha) % 2 == 1;
+        }
+        return registro.toString();
+    }
+
+    long linhaInicial() {
+        return linhaInicial;
+    }
+
+    long linhasLidas() {
+        return linhasLidas;
+    }
+
+    // Separa as colunas de um registro, aceitando campos entre aspas com vírgulas, quebras de linha e aspas duplicadas ("").
+    static List<String> separarColunas(String registro) {
+        List<String> colunas = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+
+        for (int i = 0; i < registro.length(); i++) {
+            char c = registro.charAt(i);
+            if (entreAspas) {
+                if (c == '"' && i + 1 < registro.length() && registro.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreAspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == ',') {
+                colunas.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        if (entreAspas) {
+            throw new IllegalArgumentException("Campo entre aspas sem fechamento.");
+        }
+        colunas.add(atual.toString());
+
+        return colunas;
+    }
+
+    private static int contarAspas(String linha) {
+        int aspas = 0;
+        for (int i = 0; i < linha.length(); i++) {
+            if (linha.charAt(i) == '"') {
+                aspas++;
+            }
+        }
+        return aspas;
+    }
+}
@@ -0,0 +1,105 @@
+package onhardware.service;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import onhardware.model.Carrinho;
+import onhardware.repository.CarrinhoArquivadoRepository;
+import onhardware.repository.CarrinhoRepository;
+import onhardware.repository.ProdutoCarrinhoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+CLASSE -> LimpezaCarrinhoService
+
+- Mantém as tabelas carrinhos/produtos_carrinho só com os carrinhos em uso
+- Carrinhos abertos abandonados (sem alteração há onhardware.limpeza.abandonados-apos) são apagados
+- Carrinhos finalizados há mais de onhardware.limpeza.finalizados-apos são copiados para
+  carrinhos_arquivados/produtos_carrinho_arquivados e apagados das tabelas principais
+  (o pedido continua registrado em pedidos)
+- Cada método trata um lote em uma transação curta; quem repete os lotes e controla o ritmo é LimpezaCarrinhosJob
+ */
+
+@Service
+public class LimpezaCarrinhoService {
+
+    private static final String METRICA_OPERACAO = "onhardware.limpeza.operacao";
+    private static final String METRICA_CARRINHOS = "onhardware.limpeza.carrinhos";
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
+    @Autowired
+    private ProdutoCarrinhoRepository produtoCarrinhoRepository;
+
+    @Autowired
+    private CarrinhoArquivadoRepository carrinhoArquivadoRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${onhardware.limpeza.abandonados-apos}")
+    private Duration abandonadosApos;
+
+    @Value("${onhardware.limpeza.finalizados-apos}")
+    private Duration finalizadosApos;
+
+    /*
+    METODO -> apagarAbandonados()
+
+    - Apaga um lote de carrinhos abertos abandonados e seus itens
+    - Carrinhos com reserva de estoque ainda não devolvida ou com finalização em andamento ficam de fora
+    - Retorna a quantidade de carrinhos apagados
+     */
+
+    @Transactional
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "apagar-abandonados"}, histogram = true)
+    public int apagarAbandonados(int tamanhoLote) {
+        List<Long> ids = carrinhoRepository.buscarAbandonados(LocalDateTime.now().minus(abandonadosApos), Limit.of(tamanhoLote))
+                .stream().map(Carrinho::getIdCarrinho).toList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        int itens = produtoCarrinhoRepository.apagarDosCarrinhos(ids);
+        int carrinhos = carrinhoRepository.apagarCarrinhos(ids);
+
+        meterRegistry.counter(METRICA_CARRINHOS, "acao", "apagados").increment(carrinhos);
+        meterRegistry.counter(METRICA_CARRINHOS + ".itens", "acao", "apagados").increment(itens);
+        return carrinhos;
+    }
+
+    /*
+    METODO -> arquivarFinalizados()
+
+    - Copia um lote de carrinhos finalizados (e seus itens) para as tabelas de arquivo e os apaga das principais
+    - Cópia e remoção na mesma transação: o carrinho está sempre em uma das duas tabelas
+    - Retorna a quantidade de carrinhos arquivados
+     */
+
+    @Transactional
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "arquivar-finalizados"}, histogram = true)
+    public int arquivarFinalizados(int tamanhoLote) {
+        List<Long> ids = carrinhoRepository.buscarFinalizadosAntesDe(LocalDateTime.now().minus(finalizadosApos), Limit.of(tamanhoLote))
+                .stream().map(Carrinho::getIdCarrinho).toList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        carrinhoArquivadoRepository.arquivarCarrinhos(ids);
+        int itens = carrinhoArquivadoRepository.arquivarItens(ids);
+        produtoCarrinhoRepository.apagarDosCarrinhos(ids);
+        int carrinhos = carrinhoRepository.apagarCarrinhos(ids);
+
+        meterRegistry.counter(METRICA_CARRINHOS, "acao", "arquivados").increment(carrinhos);
+        meterRegistry.counter(METRICA_CARRINHOS + ".itens", "acao", "arquivados").increment(itens);
+        return carrinhos;
+    }
+}
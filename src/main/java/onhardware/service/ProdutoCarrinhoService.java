@@ -1,18 +1,34 @@
 package onhardware.service;
 
 import onhardware.DTO.ProdutoCarrinhoDTO;
+import onhardware.DTO.ProdutoDTO;
 import onhardware.model.Carrinho;
+import onhardware.model.Produto;
 import onhardware.model.ProdutoCarrinho;
+import onhardware.exception.ProdutoCarrinhoException;
+import onhardware.repository.CarrinhoRepository;
 import onhardware.repository.ProdutoCarrinhoRepository;
+import onhardware.repository.ProdutoRepository;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 @Service
 public class ProdutoCarrinhoService {
 
     @Autowired
     private ProdutoCarrinhoRepository produtoCarrinhoRepository;
 
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
     @Autowired
     private ProdutoService produtoService;
 
@@ -29,12 +45,62 @@ public class ProdutoCarrinhoService {
     public ProdutoCarrinhoDTO paraDTO(ProdutoCarrinho produtoCarrinho) {
         return ProdutoCarrinhoDTO.builder()
                 .idProdutoCarrinho(produtoCarrinho.getIdProdutoCarrinho())
-                .produtoDTO(produtoService.paraDTO(produtoCarrinho.getProduto()))
+                .produtoDTO(produtoParaDTO(produtoCarrinho.getProduto()))
                 .quantidade(produtoCarrinho.getQuantidade())
                 .precoTotal(produtoCarrinho.getPrecoTotal())
                 .build();
     }
 
+    // Referências ainda não carregadas (proxy) são resolvidas pelo cache de produtos, sem ir ao banco.
+    private ProdutoDTO produtoParaDTO(Produto produto) {
+        if (Hibernate.isInitialized(produto)) {
+            return produtoService.paraDTO(produto);
+        }
+        return produtoService.buscarProdutoPorId(produto.getIdProduto());
+    }
+
+    /*
+    METODO -> adicionarQuantidade()
+
+    - Tenta somar quantidade e valor no item existente com um único UPDATE
+    - Se o produto ainda não está no carrinho, insere o item
+    - Se outra requisição inserir o mesmo item ao mesmo tempo, a restrição única barra a duplicata
+      e a operação é repetida (ver TransacaoComRetentativa), caindo no UPDATE
+    - Devolve o valor acrescentado, para ser aplicado ao total do carrinho
+     */
+
+    public BigDecimal adicionarQuantidade(Long idCarrinho, LocalDateTime dataRegistroCarrinho, Long idProduto,
+                                          BigDecimal precoUnitario, int quantidade) {
+        BigDecimal valor = precoUnitario.multiply(BigDecimal.valueOf(quantidade));
+
+        int atualizados = produtoCarrinhoRepository.somarQuantidade(idCarrinho, dataRegistroCarrinho, idProduto, quantidade, valor);
+        if (atualizados == 0) {
+            ProdutoCarrinho novoProduto = ProdutoCarrinho.builder()
+                    .produto(produtoRepository.getReferenceById(idProduto))
+                    .quantidade(quantidade)
+                    .precoTotal(valor)
+                    .carrinho(carrinhoRepository.getReferenceById(idCarrinho))
+                    .dataRegistroCarrinho(dataRegistroCarrinho)
+                    .build();
+            produtoCarrinhoRepository.saveAndFlush(novoProduto);
+        }
+
+        return valor;
+    }
+
+    // Apaga o item (bloqueado até o fim da transação) e o devolve, com o valor que ele somava no carrinho.
+    public ProdutoCarrinho removerItem(Long idCarrinho, Long idProdutoCarrinho) {
+        Optional<ProdutoCarrinho> optionalItem = produtoCarrinhoRepository.findByIdProdutoCarrinhoAndCarrinhoIdCarrinho(idProdutoCarrinho, idCarrinho);
+        if (optionalItem.isEmpty()) {
+            throw new ProdutoCarrinhoException(idProdutoCarrinho);
+        }
+        ProdutoCarrinho item = optionalItem.get();
+
+        produtoCarrinhoRepository.delete(item);
+        produtoCarrinhoRepository.flush();
+        return item;
+    }
+
     public void deletarPorId(Long idProdutoCarrinho) {
         produtoCarrinhoRepository.deleteById(idProdutoCarrinho);
     }
@@ -1,22 +1,64 @@
 package onhardware.service;
 
+import io.micrometer.core.annotation.Timed;
+import onhardware.DTO.CandidatoBuscaDTO;
+import onhardware.DTO.FacetaDTO;
+import onhardware.DTO.FiltroBuscaProdutoDTO;
+import onhardware.DTO.PaginaProdutoDTO;
 import onhardware.DTO.ProdutoDTO;
+import onhardware.DTO.ProdutoResumoDTO;
+import onhardware.DTO.ResultadoBuscaProdutoDTO;
+import onhardware.DTO.Visao;
+import onhardware.exception.CursorInvalidoException;
 import onhardware.exception.ProdutoException;
 import onhardware.model.Produto;
+import onhardware.repository.BuscaProdutoRepositoryImpl;
+import onhardware.repository.EstoqueFatiaRepository;
 import onhardware.repository.ProdutoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 public class ProdutoService {
 
+    public static final String CACHE_PRODUTOS = "produtos";
+
+    private static final String METRICA_OPERACAO = "onhardware.produto.operacao";
+
+    public static final int TAMANHO_PAGINA_PADRAO = 50;
+    public static final int TAMANHO_PAGINA_MAXIMO = 500;
+
+    public static final int TAMANHO_PAGINA_BUSCA_PADRAO = 20;
+    private static final int TAMANHO_PAGINA_BUSCA_MAXIMO = 100;
+    private static final int QUANTIDADE_FACETAS = 20;
+    // Termos muito comuns encontram centenas de milhares de produtos; a busca considera no máximo estes
+    public static final int LIMITE_CANDIDATOS_BUSCA = 10_000;
+
     @Autowired
     private ProdutoRepository produtoRepository;
 
+    @Autowired
+    private EstoqueFatiaRepository estoqueFatiaRepository;
+
     public Produto paraEntity(ProdutoDTO produtoDTO) {
         return Produto.builder()
                 // .idProduto(produtoDTO.getIdProduto())
@@ -36,9 +78,12 @@ public class ProdutoService {
                 .modeloProduto(produto.getModeloProduto())
                 .especificacaoProduto(produto.getEspecificacaoProduto())
                 .precoProduto(produto.getPrecoProduto())
+                .dataAtualizacaoProduto(produto.getDataAtualizacaoProduto())
+                .versao(produto.getVersao())
                 .build();
     }
 
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "cadastrar"}, histogram = true)
     public ProdutoDTO cadastrarProduto(ProdutoDTO produtoDTO) {
         Produto produto = paraEntity(produtoDTO);
         Produto produtoSalvo = produtoRepository.save(produto);
@@ -46,26 +91,246 @@ public class ProdutoService {
         return paraDTO(produtoSalvo);
     }
 
+    // Listagens montam os DTOs direto na consulta (projeção), sem carregar entidades
+    @Transactional(readOnly = true)
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "listar"}, histogram = true)
     public List<ProdutoDTO> listarTodosProdutos() {
-        List<Produto> produtos = produtoRepository.findAll();
-        List<ProdutoDTO> produtoDTOs = new ArrayList<>();
+        return produtoRepository.listarDetalhes();
+    }
+
+    @Transactional(readOnly = true)
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "listar-resumo"}, histogram = true)
+    public List<ProdutoResumoDTO> listarResumosProdutos() {
+        return produtoRepository.listarResumos();
+    }
+
+    /*
+    METODO -> listarProdutosPaginado()
+
+    - Decodifica o cursor (último ID da página anterior)
+    - Busca um produto a mais que o tamanho pedido, só para saber se existe próxima página
+    - Na visão RESUMO busca só ID, nome, marca e preço
+    - Monta o cursor da próxima página a partir do último ID retornado
+     */
+
+    @Transactional(readOnly = true)
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "listar-paginado"}, histogram = true)
+    public PaginaProdutoDTO<?> listarProdutosPaginado(String cursor, int tamanho, Visao visao) {
+        int tamanhoPagina = Math.max(1, Math.min(tamanho, TAMANHO_PAGINA_MAXIMO));
+        Long ultimoId = decodificarCursor(cursor);
+
+        if (visao == Visao.RESUMO) {
+            List<ProdutoResumoDTO> produtos = produtoRepository.buscarResumosAPartirDe(ultimoId, Limit.of(tamanhoPagina + 1));
+            return montarPagina(produtos, tamanhoPagina, ProdutoResumoDTO::getIdProduto);
+        }
+
+        List<ProdutoDTO> produtos = produtoRepository.buscarDetalhesAPartirDe(ultimoId, Limit.of(tamanhoPagina + 1));
+        return montarPagina(produtos, tamanhoPagina, ProdutoDTO::getIdProduto);
+    }
+
+    private <T> PaginaProdutoDTO<T> montarPagina(List<T> produtos, int tamanhoPagina, Function<T, Long> id) {
+        boolean possuiProximaPagina = produtos.size() > tamanhoPagina;
+        if (possuiProximaPagina) {
+            produtos = produtos.subList(0, tamanhoPagina);
+        }
+
+        String proximoCursor = null;
+        if (possuiProximaPagina) {
+            proximoCursor = codificarCursor(id.apply(produtos.get(produtos.size() - 1)));
+        }
+
+        return PaginaProdutoDTO.<T>builder()
+                .produtos(produtos)
+                .proximoCursor(proximoCursor)
+                .possuiProximaPagina(possuiProximaPagina)
+                .build();
+    }
+
+    /*
+    METODO -> buscarProdutos()
+
+    - Busca por termo (palavras por prefixo), marcas e faixa de preço, usando os índices do PostgreSQL
+    - Se o termo não encontrar nada, troca as palavras com erro de digitação pelas mais parecidas do catálogo e busca de novo
+    - Percorre o índice uma vez (no máximo LIMITE_CANDIDATOS_BUSCA produtos, os mais relevantes, só ID, marca e
+      relevância) e, em memória, conta e monta as facetas por marca
+    - Carrega do banco apenas os produtos da página pedida
+    - Acima de LIMITE_CANDIDATOS_BUSCA produtos, total e facetas são indicativos (totalExato = false)
+     */
+
+    @Transactional(readOnly = true)
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "buscar-texto"}, histogram = true)
+    public ResultadoBuscaProdutoDTO buscarProdutos(FiltroBuscaProdutoDTO filtro, int pagina, int tamanho) {
+        if (filtro.getPrecoMinimo() != null && filtro.getPrecoMaximo() != null
+                && filtro.getPrecoMinimo().compareTo(filtro.getPrecoMaximo()) > 0) {
+            throw new IllegalArgumentException("O preço mínimo não pode ser maior que o preço máximo.");
+        }
+
+        int tamanhoPagina = Math.max(1, Math.min(tamanho, TAMANHO_PAGINA_BUSCA_MAXIMO));
+        int numeroPagina = Math.max(0, pagina);
+        long deslocamento = (long) numeroPagina * tamanhoPagina;
+        if (deslocamento >= LIMITE_CANDIDATOS_BUSCA) {
+            throw new IllegalArgumentException("Página além do limite da busca. Refine os filtros.");
+        }
+
+        // Candidatos sem o filtro de marca: as facetas mostram todas as marcas do termo e da faixa de preço
+        String termoCorrigido = null;
+        List<CandidatoBuscaDTO> candidatos = produtoRepository.buscarCandidatos(filtro, false, LIMITE_CANDIDATOS_BUSCA + 1);
+        if (candidatos.isEmpty()) {
+            termoCorrigido = corrigirTermo(filtro.getTermo());
+            if (termoCorrigido != null) {
+                // Cópia com o termo corrigido: o filtro recebido é de quem chamou e fica como veio
+                filtro = FiltroBuscaProdutoDTO.builder()
+                        .termo(termoCorrigido)
+                        .marcas(filtro.getMarcas())
+                        .precoMinimo(filtro.getPrecoMinimo())
+                        .precoMaximo(filtro.getPrecoMaximo())
+                        .build();
+                candidatos = produtoRepository.buscarCandidatos(filtro, false, LIMITE_CANDIDATOS_BUSCA + 1);
+            }
+        }
+
+        List<CandidatoBuscaDTO> encontrados = candidatos;
+        if (filtro.getMarcas() != null && !filtro.getMarcas().isEmpty()) {
+            if (candidatos.size() > LIMITE_CANDIDATOS_BUSCA) {
+                // A amostra sem marca foi cortada e pode não conter todos os produtos das marcas pedidas
+                encontrados = produtoRepository.buscarCandidatos(filtro, true, LIMITE_CANDIDATOS_BUSCA + 1);
+            } else {
+                Set<String> marcas = new HashSet<>(filtro.getMarcas());
+                encontrados = new ArrayList<>();
+                for (CandidatoBuscaDTO candidato : candidatos) {
+                    if (marcas.contains(candidato.getMarcaProduto())) {
+                        encontrados.add(candidato);
+                    }
+                }
+            }
+        }
 
-        for (Produto produto : produtos) {
-            produtoDTOs.add(paraDTO(produto));
+        boolean totalExato = encontrados.size() <= LIMITE_CANDIDATOS_BUSCA;
+        if (!totalExato) {
+            encontrados = encontrados.subList(0, LIMITE_CANDIDATOS_BUSCA);
         }
 
+        return ResultadoBuscaProdutoDTO.builder()
+                .produtos(carregarPagina(encontrados, (int) deslocamento, tamanhoPagina))
+                .totalProdutos(encontrados.size())
+                .totalExato(totalExato)
+                .termoCorrigido(termoCorrigido)
+                .pagina(numeroPagina)
+                .tamanho(tamanhoPagina)
+                .facetasMarca(contarPorMarca(candidatos.subList(0, Math.min(candidatos.size(), LIMITE_CANDIDATOS_BUSCA))))
+                .build();
+    }
+
+    // Os candidatos já vêm por relevância (empate: ordem de cadastro): carrega só os produtos da página, em uma consulta
+    private List<ProdutoDTO> carregarPagina(List<CandidatoBuscaDTO> encontrados, int deslocamento, int tamanhoPagina) {
+        if (deslocamento >= encontrados.size()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> ids = new ArrayList<>();
+        for (CandidatoBuscaDTO candidato : encontrados.subList(deslocamento, Math.min(encontrados.size(), deslocamento + tamanhoPagina))) {
+            ids.add(candidato.getIdProduto());
+        }
+
+        Map<Long, Produto> produtos = new HashMap<>();
+        for (Produto produto : produtoRepository.findAllById(ids)) {
+            produtos.put(produto.getIdProduto(), produto);
+        }
+
+        List<ProdutoDTO> produtoDTOs = new ArrayList<>();
+        for (Long id : ids) {
+            Produto produto = produtos.get(id);
+            if (produto != null) {
+                produtoDTOs.add(paraDTO(produto));
+            }
+        }
         return produtoDTOs;
     }
 
+    private List<FacetaDTO> contarPorMarca(List<CandidatoBuscaDTO> candidatos) {
+        Map<String, Long> quantidades = new HashMap<>();
+        for (CandidatoBuscaDTO candidato : candidatos) {
+            quantidades.merge(candidato.getMarcaProduto(), 1L, Long::sum);
+        }
+
+        List<FacetaDTO> facetas = new ArrayList<>();
+        for (Map.Entry<String, Long> quantidade : quantidades.entrySet()) {
+            facetas.add(FacetaDTO.builder()
+                    .valor(quantidade.getKey())
+                    .quantidade(quantidade.getValue())
+                    .build());
+        }
+        facetas.sort(Comparator.comparingLong(FacetaDTO::getQuantidade).reversed().thenComparing(FacetaDTO::getValor));
+        return facetas.size() > QUANTIDADE_FACETAS ? facetas.subList(0, QUANTIDADE_FACETAS) : facetas;
+    }
+
+    // Troca cada palavra (com letras) pela mais parecida do catálogo; null se nada mudar
+    private String corrigirTermo(String termo) {
+        List<String> palavras = BuscaProdutoRepositoryImpl.separarPalavras(termo);
+        List<String> corrigidas = new ArrayList<>();
+        boolean corrigiu = false;
+
+        for (String palavra : palavras) {
+            String corrigida = palavra;
+            if (palavra.length() >= 3 && !palavra.chars().allMatch(Character::isDigit)) {
+                corrigida = produtoRepository.buscarPalavraSemelhante(palavra).orElse(palavra);
+            }
+            corrigiu |= !corrigida.equals(palavra);
+            corrigidas.add(corrigida);
+        }
+
+        return corrigiu ? String.join(" ", corrigidas) : null;
+    }
+
+    // Entrega o catálogo produto a produto; os DTOs vêm da projeção, sem entidades acumulando na memória.
+    @Transactional(readOnly = true)
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "exportar"}, histogram = true)
+    public void exportarProdutos(Consumer<ProdutoDTO> consumidor) {
+        try (Stream<ProdutoDTO> produtos = produtoRepository.streamDetalhes()) {
+            produtos.forEach(consumidor);
+        }
+    }
+
+    private String codificarCursor(Long idProduto) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(idProduto.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Long decodificarCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return Long.parseLong(valor);
+        } catch (IllegalArgumentException e) {
+            throw new CursorInvalidoException(cursor);
+        }
+    }
+
+    // As fatias do produto são apagadas junto: a camada de carrinhos ativos não pode continuar achando que ele tem estoque controlado.
+    @Caching(evict = {
+            @CacheEvict(value = CACHE_PRODUTOS, key = "#id"),
+            @CacheEvict(value = EstoqueService.CACHE_ESTOQUE_CONTROLADO, key = "#id")
+    })
+    @Transactional
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "deletar"}, histogram = true)
     public void deletarProdutoPorId(Long id) {
         Optional<Produto> optionalProduto = produtoRepository.findById(id);
         if (optionalProduto.isEmpty()) {
             throw new ProdutoException(id);
         }
 
+        estoqueFatiaRepository.apagarDoProduto(id);
         produtoRepository.deleteById(id);
     }
 
+    // Produtos mudam pouco: a busca por ID é servida pelo cache e invalidada na atualização e na exclusão.
+    // Lida no principal: uma réplica atrasada logo após a invalidação deixaria o preço antigo no cache.
+    @Cacheable(value = CACHE_PRODUTOS, key = "#id")
+    @Transactional
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "buscar"}, histogram = true)
     public ProdutoDTO buscarProdutoPorId(Long id) {
         Optional<Produto> optionalProduto = produtoRepository.findById(id);
         if (optionalProduto.isEmpty()) {
@@ -75,6 +340,9 @@ public class ProdutoService {
         return paraDTO(optionalProduto.get());
     }
 
+    @CacheEvict(value = CACHE_PRODUTOS, key = "#id")
+    @Transactional
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "atualizar"}, histogram = true)
     public ProdutoDTO atualizarProdutoPorId(Long id, ProdutoDTO produtoDTO) {
         Optional<Produto> optionalProduto = produtoRepository.findById(id);
         if (optionalProduto.isEmpty()) {
@@ -86,6 +354,10 @@ public class ProdutoService {
         produto.setMarcaProduto(produtoDTO.getMarcaProduto());
         produto.setModeloProduto(produtoDTO.getModeloProduto());
         produto.setEspecificacaoProduto(produtoDTO.getEspecificacaoProduto());
+        // Itens dos carrinhos abertos recebem o preço novo depois (ReprecificacaoService)
+        if (produto.getPrecoProduto().compareTo(produtoDTO.getPrecoProduto()) != 0) {
+            produto.setReprecificacaoPendente(true);
+        }
         produto.setPrecoProduto(produtoDTO.getPrecoProduto());
         Produto produtoSalvo = produtoRepository.save(produto);
 
@@ -0,0 +1,138 @@
+package onhardware.service;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import onhardware.DTO.ItemReprecificacaoDTO;
+import onhardware.DTO.ProdutoDTO;
+import onhardware.repository.CarrinhoRepository;
+import onhardware.repository.ProdutoCarrinhoRepository;
+import onhardware.repository.ProdutoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/*
+CLASSE -> ReprecificacaoService
+
+- Mudança de preço (atualização do produto ou importação do catálogo) só marca o produto (reprecificacaoPendente)
+- reprecificarPendentes(), chamado por ReprecificacaoCarrinhosJob, leva o preço novo aos itens dos carrinhos abertos
+  e corrige o total desses carrinhos com comandos sobre conjuntos de linhas, sem carregar carrinhos nem itens
+- Os itens são percorridos em lotes por (produto, item), cada lote em uma transação curta: uma tabela de preços inteira
+  vira muitos lotes pequenos, e nenhum deles bloqueia mais que os carrinhos e itens que altera
+- Carrinhos mantidos em memória (CarrinhosAtivos) são descarregados antes de cada lote
+- Carrinhos finalizados ficam com o preço da compra
+ */
+
+@Service
+public class ReprecificacaoService {
+
+    private static final String METRICA_OPERACAO = "onhardware.reprecificacao.operacao";
+    private static final String METRICA_ITENS = "onhardware.reprecificacao.itens";
+    private static final String METRICA_CARRINHOS = "onhardware.reprecificacao.carrinhos";
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ProdutoCarrinhoRepository produtoCarrinhoRepository;
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
+    @Autowired
+    private TransacaoComRetentativa transacaoComRetentativa;
+
+    @Autowired
+    private CarrinhosAtivos carrinhosAtivos;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /*
+    METODO -> reprecificarPendentes()
+
+    - Pega até produtosPorLote produtos marcados, com a versão lida
+    - Percorre os itens desses produtos com valor desatualizado em carrinhos abertos, itensPorLote por vez
+    - Desmarca cada produto que não mudou de novo nesse meio-tempo
+    - Devolve quantos produtos foram lidos (igual ao lote: ainda pode haver mais)
+     */
+
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "reprecificar"}, histogram = true)
+    public int reprecificarPendentes(int produtosPorLote, int itensPorLote) {
+        List<ProdutoDTO> produtos = produtoRepository.buscarReprecificacaoPendente(Limit.of(produtosPorLote));
+        if (produtos.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> idsProdutos = new ArrayList<>();
+        for (ProdutoDTO produto : produtos) {
+            idsProdutos.add(produto.getIdProduto());
+        }
+
+        Long aposProduto = 0L;
+        Long aposItem = 0L;
+        List<ItemReprecificacaoDTO> itens;
+        do {
+            itens = produtoCarrinhoRepository.buscarItensComPrecoDesatualizado(idsProdutos, aposProduto, aposItem, Limit.of(itensPorLote));
+            if (itens.isEmpty()) {
+                break;
+            }
+
+            // Carrinhos em memória gravam o que têm pendente antes: a próxima operação já lê o preço e o total novos
+            for (ItemReprecificacaoDTO item : itens) {
+                carrinhosAtivos.descarregar(item.getIdCarrinho());
+            }
+
+            List<ItemReprecificacaoDTO> lote = itens;
+            transacaoComRetentativa.executar(() -> reprecificarItens(lote));
+
+            ItemReprecificacaoDTO ultimo = itens.get(itens.size() - 1);
+            aposProduto = ultimo.getIdProduto();
+            aposItem = ultimo.getIdProdutoCarrinho();
+        } while (itens.size() == itensPorLote);
+
+        transacaoComRetentativa.executar(() -> {
+            for (ProdutoDTO produto : produtos) {
+                produtoRepository.concluirReprecificacao(produto.getIdProduto(), produto.getVersao());
+            }
+            return null;
+        });
+        return produtos.size();
+    }
+
+    /*
+    METODO -> reprecificarItens()
+
+    - Bloqueia os carrinhos do lote que continuam abertos (finalizados no meio-tempo ficam de fora)
+    - Uma adição simultânea a um desses carrinhos pode entrar em deadlock com o lote: quem for abortado pelo banco
+      é repetido por TransacaoComRetentativa
+    - Refaz o valor dos itens com o preço atual em um único UPDATE
+    - Refaz o total apenas dos carrinhos em que ele mudou, em outro UPDATE (a versão avança e o ETag muda)
+     */
+
+    private Void reprecificarItens(List<ItemReprecificacaoDTO> itens) {
+        Set<Long> idsCarrinhos = new TreeSet<>();
+        List<Long> idsItens = new ArrayList<>();
+        for (ItemReprecificacaoDTO item : itens) {
+            idsCarrinhos.add(item.getIdCarrinho());
+            idsItens.add(item.getIdProdutoCarrinho());
+        }
+
+        List<Long> abertos = carrinhoRepository.bloquearAbertos(idsCarrinhos);
+        if (abertos.isEmpty()) {
+            return null;
+        }
+
+        int itensReprecificados = produtoCarrinhoRepository.reprecificar(idsItens, abertos);
+        int carrinhosCorrigidos = carrinhoRepository.corrigirTotais(abertos);
+
+        meterRegistry.counter(METRICA_ITENS).increment(itensReprecificados);
+        meterRegistry.counter(METRICA_CARRINHOS).increment(carrinhosCorrigidos);
+        return null;
+    }
+}
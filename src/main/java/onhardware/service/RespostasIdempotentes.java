@@ -0,0 +1,200 @@
+package onhardware.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import onhardware.exception.IdempotenciaException;
+import onhardware.model.RespostaIdempotente;
+import onhardware.repository.RespostaIdempotenteRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+CLASSE -> RespostasIdempotentes
+
+- Guarda as respostas dos comandos enviados com Idempotency-Key (IdempotenciaFilter) por onhardware.idempotencia.validade
+- Em memória (Caffeine), limitada pelo tamanho das respostas guardadas (memoria-maxima): uma repetição custa
+  uma consulta ao mapa, sem transação nem acesso ao carrinho
+- Com onhardware.idempotencia.persistir, as chaves também vão para o banco (respostas_idempotentes): repetições que
+  chegam a outra instância ou depois de um reinício continuam reconhecidas, e a mesma chave em duas instâncias
+  ao mesmo tempo executa o comando uma única vez
+- A chave fica reservada enquanto a requisição original está em andamento; se ela falhar, a chave é liberada
+  e a próxima repetição executa o comando de novo
+ */
+
+@Component
+public class RespostasIdempotentes {
+
+    // Custo fixo aproximado de cada resposta em memória, além do corpo e da chave
+    private static final int BYTES_POR_RESPOSTA = 200;
+
+    @Autowired
+    private RespostaIdempotenteRepository respostaIdempotenteRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${onhardware.idempotencia.validade:24h}")
+    private Duration validade;
+
+    @Value("${onhardware.idempotencia.memoria-maxima:64MB}")
+    private DataSize memoriaMaxima;
+
+    @Value("${onhardware.idempotencia.persistir:false}")
+    private boolean persistir;
+
+    @Value("${onhardware.idempotencia.tempo-maximo-processamento:1m}")
+    private Duration tempoMaximoProcessamento;
+
+    private Cache<String, RespostaIdempotente> concluidas;
+
+    // Chave -> impressão digital das requisições em andamento nesta instância
+    private final Map<String, String> emAndamento = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void iniciar() {
+        concluidas = Caffeine.newBuilder()
+                .maximumWeight(memoriaMaxima.toBytes())
+                .weigher((String chave, RespostaIdempotente resposta) -> BYTES_POR_RESPOSTA + chave.length() * 2
+                        + (resposta.getCorpo() == null ? 0 : resposta.getCorpo().length))
+                .expireAfterWrite(validade)
+                .build();
+
+        Gauge.builder("onhardware.idempotencia.respostas", concluidas, Cache::estimatedSize)
+                .description("Respostas de comandos com Idempotency-Key guardadas em memória")
+                .register(meterRegistry);
+    }
+
+    /*
+    METODO -> reservar()
+
+    - Resposta já guardada para a chave: devolve-a, para ser repetida ao cliente
+    - Chave livre: fica reservada para esta requisição (em memória e, se persistir, no banco) e devolve vazio
+    - Mesma chave com outro corpo: IdempotenciaException 422
+    - Mesma chave com a requisição original ainda em andamento: IdempotenciaException 409
+     */
+
+    public Optional<RespostaIdempotente> reservar(String chave, String impressaoDigital) {
+        RespostaIdempotente concluida = concluidas.getIfPresent(chave);
+        if (concluida != null) {
+            return Optional.of(conferir(concluida, impressaoDigital));
+        }
+
+        String outra = emAndamento.putIfAbsent(chave, impressaoDigital);
+        if (outra != null) {
+            throw emAndamento(outra, impressaoDigital);
+        }
+
+        // A resposta pode ter sido guardada entre a consulta ao cache e a reserva
+        concluida = concluidas.getIfPresent(chave);
+        if (concluida != null) {
+            emAndamento.remove(chave);
+            return Optional.of(conferir(concluida, impressaoDigital));
+        }
+
+        if (persistir) {
+            try {
+                return reservarNoBanco(chave, impressaoDigital);
+            } catch (RuntimeException e) {
+                emAndamento.remove(chave);
+                throw e;
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Exceções lançadas aqui liberam a reserva em memória (reservar)
+    private Optional<RespostaIdempotente> reservarNoBanco(String chave, String impressaoDigital) {
+        LocalDateTime agora = LocalDateTime.now();
+        if (respostaIdempotenteRepository.reservar(chave, impressaoDigital, agora) == 1) {
+            return Optional.empty();
+        }
+
+        Optional<RespostaIdempotente> optionalRegistrada = respostaIdempotenteRepository.findById(chave);
+        if (optionalRegistrada.isEmpty()) {
+            // Liberada por outra instância nesse meio-tempo
+            throw new IdempotenciaException(409, "Requisição com esta Idempotency-Key em andamento. Tente novamente em instantes.");
+        }
+        RespostaIdempotente registrada = optionalRegistrada.get();
+
+        if (registrada.getStatus() != null) {
+            emAndamento.remove(chave);
+            concluidas.put(chave, registrada);
+            return Optional.of(conferir(registrada, impressaoDigital));
+        }
+
+        if (!registrada.getImpressaoDigital().equals(impressaoDigital)
+                || respostaIdempotenteRepository.assumirAbandonada(chave, agora, agora.minus(tempoMaximoProcessamento)) == 0) {
+            throw emAndamento(registrada.getImpressaoDigital(), impressaoDigital);
+        }
+        return Optional.empty();
+    }
+
+    // Guarda a resposta da requisição que reservou a chave e a deixa disponível para as repetições
+    public void concluir(String chave, int status, String tipoConteudo, String location, byte[] corpo) {
+        String impressaoDigital = emAndamento.get(chave);
+        if (impressaoDigital == null) {
+            return;
+        }
+
+        try {
+            if (persistir) {
+                respostaIdempotenteRepository.concluir(chave, status, tipoConteudo, location, corpo);
+            }
+            concluidas.put(chave, RespostaIdempotente.builder()
+                    .chave(chave)
+                    .impressaoDigital(impressaoDigital)
+                    .status(status)
+                    .tipoConteudo(tipoConteudo)
+                    .location(location)
+                    .corpo(corpo)
+                    .dataCriacao(LocalDateTime.now())
+                    .build());
+        } finally {
+            emAndamento.remove(chave);
+        }
+    }
+
+    // A requisição falhou ou a resposta não deve ser repetida: a próxima com a mesma chave executa o comando
+    public void liberar(String chave) {
+        try {
+            if (persistir) {
+                respostaIdempotenteRepository.liberar(chave);
+            }
+        } finally {
+            emAndamento.remove(chave);
+        }
+    }
+
+    // Chamado por LimpezaIdempotenciaJob; em memória o próprio Caffeine descarta as vencidas
+    public int removerVencidas() {
+        if (!persistir) {
+            return 0;
+        }
+        return respostaIdempotenteRepository.apagarAnterioresA(LocalDateTime.now().minus(validade));
+    }
+
+    private RespostaIdempotente conferir(RespostaIdempotente resposta, String impressaoDigital) {
+        if (!resposta.getImpressaoDigital().equals(impressaoDigital)) {
+            throw new IdempotenciaException(422, "Idempotency-Key já usada em outra requisição, com outro corpo.");
+        }
+        return resposta;
+    }
+
+    private IdempotenciaException emAndamento(String impressaoOriginal, String impressaoDigital) {
+        if (!impressaoOriginal.equals(impressaoDigital)) {
+            return new IdempotenciaException(422, "Idempotency-Key já usada em outra requisição, com outro corpo.");
+        }
+        return new IdempotenciaException(409, "Requisição com esta Idempotency-Key em andamento. Tente novamente em instantes.");
+    }
+}
@@ -0,0 +1,85 @@
+package onhardware.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/*
+Executa uma operação em uma transação própria e a repete, um número limitado de vezes,
+quando ela perde uma disputa com outra requisição: versão do carrinho desatualizada (@Version),
+bloqueio não obtido ou linha duplicada barrada por uma das restrições únicas que duas requisições simultâneas
+disputam (item e reserva de um carrinho, pedido do carrinho, chaves dos consolidados de vendas).
+Outras violações de unicidade, como a da chave primária de um ID gerado, não são disputa: são relançadas.
+ */
+@Component
+public class TransacaoComRetentativa {
+
+    private static final String VIOLACAO_UNICIDADE = "23505";
+
+    // Nome da restrição na mensagem do banco; no PostgreSQL, a violação em uma partição traz o nome do índice da partição
+    private static final Pattern RESTRICOES_DISPUTADAS = Pattern.compile(
+            "uk_produtos_carrinho_carrinho_produto"
+                    + "|produtos_carrinho_\\w+_carrinho_id_carrinho_produto_id_\\w*key"
+                    + "|uk_reservas_estoque_carrinho_produto"
+                    + "|uk_pedidos_carrinho"
+                    + "|vendas_\\w+_pkey|primary key on public\\.vendas_",
+            Pattern.CASE_INSENSITIVE);
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${onhardware.carrinho.maximo-tentativas:10}")
+    private int maximoTentativas;
+
+    public <T> T executar(Supplier<T> operacao) {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return transactionTemplate.execute(status -> operacao.get());
+            } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                if (tentativa >= maximoTentativas || !conflitoConcorrente(e)) {
+                    throw e;
+                }
+                // O EntityManager da requisição (open-in-view) guardaria as entidades desatualizadas.
+                entityManager.clear();
+                aguardar(tentativa, e);
+            }
+        }
+    }
+
+    private boolean conflitoConcorrente(RuntimeException e) {
+        if (e instanceof ConcurrencyFailureException) {
+            return true;
+        }
+        // Violação de unicidade (SQLState 23505), inclusive quando chega embrulhada em um lote JDBC.
+        for (Throwable causa = e.getCause(); causa != null; causa = causa.getCause()) {
+            if (causa instanceof SQLException sqlException && VIOLACAO_UNICIDADE.equals(sqlException.getSQLState())
+                    && sqlException.getMessage() != null && RESTRICOES_DISPUTADAS.matcher(sqlException.getMessage()).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Espera crescente com variação aleatória, para que as requisições em disputa não colidam de novo.
+    private void aguardar(int tentativa, RuntimeException conflito) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(10, 50) * tentativa);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflito;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package onhardware.service;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import onhardware.DTO.ResumoVendasDTO;
+import onhardware.DTO.VendaDiaDTO;
+import onhardware.DTO.VendaMarcaDTO;
+import onhardware.DTO.VendaProdutoDTO;
+import onhardware.model.ItemPedido;
+import onhardware.model.Pedido;
+import onhardware.model.VendaDia;
+import onhardware.model.VendaMarcaDia;
+import onhardware.model.VendaProdutoDia;
+import onhardware.repository.PedidoRepository;
+import onhardware.repository.VendaDiaRepository;
+import onhardware.repository.VendaMarcaDiaRepository;
+import onhardware.repository.VendaProdutoDiaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+CLASSE -> VendasService
+
+- Consultas de vendas (faturamento por dia, ticket médio, produtos e marcas mais vendidos) leem apenas
+  os totais consolidados por dia (vendas_dia, vendas_produto_dia, vendas_marca_dia)
+- Os totais são mantidos de forma incremental por contabilizarPedidos(), chamado por ContabilizacaoVendasJob:
+  cada pedido é somado uma única vez (pedidos.contabilizado), na mesma transação que atualiza os totais
+- Os pedidos não entram na transação da finalização: a finalização não disputa as linhas de totais do dia
+ */
+
+@Service
+public class VendasService {
+
+    private static final String METRICA_OPERACAO = "onhardware.vendas.operacao";
+    private static final String METRICA_CONTABILIZADOS = "onhardware.vendas.pedidos-contabilizados";
+
+    public static final int PERIODO_PADRAO_DIAS = 30;
+    private static final int PERIODO_MAXIMO_DIAS = 366;
+    public static final int LIMITE_PRODUTOS_PADRAO = 10;
+    private static final int LIMITE_PRODUTOS_MAXIMO = 100;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private VendaDiaRepository vendaDiaRepository;
+
+    @Autowired
+    private VendaProdutoDiaRepository vendaProdutoDiaRepository;
+
+    @Autowired
+    private VendaMarcaDiaRepository vendaMarcaDiaRepository;
+
+    @Autowired
+    private TransacaoComRetentativa transacaoComRetentativa;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /*
+    METODO -> contabilizarPedidos()
+
+    - Pega um lote de pedidos ainda não contabilizados (SKIP LOCKED) e soma primeiro em memória,
+      por dia, por produto e por marca
+    - Aplica cada soma com um único UPDATE; chave ainda sem linha vira INSERT
+    - Duas instâncias inserindo a mesma chave: a restrição única barra uma delas e o lote é repetido
+      (ver TransacaoComRetentativa), caindo no UPDATE
+    - As chaves são atualizadas sempre na mesma ordem, para lotes simultâneos não se bloquearem em ciclo
+    - Retorna a quantidade de pedidos contabilizados
+     */
+
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "contabilizar"}, histogram = true)
+    public int contabilizarPedidos(int tamanhoLote) {
+        int contabilizados = transacaoComRetentativa.executar(() -> contabilizarLote(tamanhoLote));
+        meterRegistry.counter(METRICA_CONTABILIZADOS).increment(contabilizados);
+        return contabilizados;
+    }
+
+    private int contabilizarLote(int tamanhoLote) {
+        List<Pedido> pedidos = pedidoRepository.buscarNaoContabilizados(Limit.of(tamanhoLote));
+
+        Map<LocalDate, Acumulado> porDia = new TreeMap<>();
+        Map<VendaProdutoDia.Chave, Acumulado> porProduto = new TreeMap<>(
+                Comparator.comparing(VendaProdutoDia.Chave::getDia).thenComparing(VendaProdutoDia.Chave::getIdProduto));
+        Map<VendaMarcaDia.Chave, Acumulado> porMarca = new TreeMap<>(
+                Comparator.comparing(VendaMarcaDia.Chave::getDia).thenComparing(VendaMarcaDia.Chave::getMarcaProduto));
+
+        for (Pedido pedido : pedidos) {
+            LocalDate dia = pedido.getDataRegistroPedido().toLocalDate();
+            Acumulado totalDia = porDia.computeIfAbsent(dia, chave -> new Acumulado());
+            totalDia.pedidos++;
+            totalDia.valor = totalDia.valor.add(pedido.getValorTotalPedido());
+
+            for (ItemPedido item : pedido.getItens()) {
+                totalDia.unidades += item.getQuantidade();
+                porProduto.computeIfAbsent(new VendaProdutoDia.Chave(dia, item.getIdProduto()), chave -> new Acumulado())
+                        .somar(item);
+                porMarca.computeIfAbsent(new VendaMarcaDia.Chave(dia, item.getMarcaProduto()), chave -> new Acumulado())
+                        .somar(item);
+            }
+            pedido.setContabilizado(true);
+        }
+
+        porDia.forEach((dia, total) -> {
+            if (vendaDiaRepository.somar(dia, total.pedidos, total.unidades, total.valor) == 0) {
+                entityManager.persist(VendaDia.builder()
+                        .dia(dia)
+                        .pedidos(total.pedidos)
+                        .unidades(total.unidades)
+                        .valorTotal(total.valor)
+                        .build());
+            }
+        });
+        porProduto.forEach((chave, total) -> {
+            if (vendaProdutoDiaRepository.somar(chave.getDia(), chave.getIdProduto(), total.nomeProduto, total.marcaProduto,
+                    total.unidades, total.valor) == 0) {
+                entityManager.persist(VendaProdutoDia.builder()
+                        .dia(chave.getDia())
+                        .idProduto(chave.getIdProduto())
+                        .nomeProduto(total.nomeProduto)
+                        .marcaProduto(total.marcaProduto)
+                        .unidades(total.unidades)
+                        .valorTotal(total.valor)
+                        .build());
+            }
+        });
+        porMarca.forEach((chave, total) -> {
+            if (vendaMarcaDiaRepository.somar(chave.getDia(), chave.getMarcaProduto(), total.unidades, total.valor) == 0) {
+                entityManager.persist(VendaMarcaDia.builder()
+                        .dia(chave.getDia())
+                        .marcaProduto(chave.getMarcaProduto())
+                        .unidades(total.unidades)
+                        .valorTotal(total.valor)
+                        .build());
+            }
+        });
+
+        return pedidos.size();
+    }
+
+    /*
+    METODO -> listarVendasPorDia()
+
+    - Faturamento, pedidos, unidades e ticket médio de cada dia do período
+    - Dias sem venda aparecem zerados, para o gráfico não ter buracos
+     */
+
+    @Transactional(readOnly = true)
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "por-dia"}, histogram = true)
+    public List<VendaDiaDTO> listarVendasPorDia(LocalDate inicio, LocalDate fim) {
+        validarPeriodo(inicio, fim);
+        Map<LocalDate, VendaDia> vendas = vendaDiaRepository.findByDiaBetweenOrderByDia(inicio, fim).stream()
+                .collect(Collectors.toMap(VendaDia::getDia, Function.identity()));
+
+        List<VendaDiaDTO> dias = new ArrayList<>();
+        for (LocalDate dia = inicio; !dia.isAfter(fim); dia = dia.plusDays(1)) {
+            VendaDia venda = vendas.get(dia);
+            long pedidos = venda == null ? 0 : venda.getPedidos();
+            BigDecimal valorTotal = venda == null ? BigDecimal.ZERO : venda.getValorTotal();
+            dias.add(VendaDiaDTO.builder()
+                    .dia(dia)
+                    .pedidos(pedidos)
+                    .unidades(venda == null ? 0 : venda.getUnidades())
+                    .valorTotal(valorTotal)
+                    .ticketMedio(ticketMedio(valorTotal, pedidos))
+                    .build());
+        }
+        return dias;
+    }
+
+    @Transactional(readOnly = true)
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "resumo"}, histogram = true)
+    public ResumoVendasDTO resumirVendas(LocalDate inicio, LocalDate fim) {
+        validarPeriodo(inicio, fim);
+        ResumoVendasDTO resumo = vendaDiaRepository.resumir(inicio, fim);
+        resumo.setTicketMedio(ticketMedio(resumo.getValorTotal(), resumo.getPedidos()));
+        return resumo;
+    }
+
+    @Transactional(readOnly = true)
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "produtos"}, histogram = true)
+    public List<VendaProdutoDTO> listarProdutosMaisVendidos(LocalDate inicio, LocalDate fim, int limite) {
+        validarPeriodo(inicio, fim);
+        return vendaProdutoDiaRepository.buscarMaisVendidos(inicio, fim,
+                Limit.of(Math.max(1, Math.min(limite, LIMITE_PRODUTOS_MAXIMO))));
+    }
+
+    @Transactional(readOnly = true)
+    @Timed(value = METRICA_OPERACAO, extraTags = {"operacao", "marcas"}, histogram = true)
+    public List<VendaMarcaDTO> listarVendasPorMarca(LocalDate inicio, LocalDate fim) {
+        validarPeriodo(inicio, fim);
+        return vendaMarcaDiaRepository.buscarPorMarca(inicio, fim);
+    }
+
+    private void validarPeriodo(LocalDate inicio, LocalDate fim) {
+        if (inicio.isAfter(fim)) {
+            throw new IllegalArgumentException("A data inicial não pode ser posterior à data final.");
+        }
+        if (ChronoUnit.DAYS.between(inicio, fim) >= PERIODO_MAXIMO_DIAS) {
+            throw new IllegalArgumentException("O período consultado não pode passar de " + PERIODO_MAXIMO_DIAS + " dias.");
+        }
+    }
+
+    private BigDecimal ticketMedio(BigDecimal valorTotal, long pedidos) {
+        if (pedidos == 0) {
+            return BigDecimal.ZERO;
+        }
+        return valorTotal.divide(BigDecimal.valueOf(pedidos), 2, RoundingMode.HALF_EVEN);
+    }
+
+    // Somas de um lote para uma chave (dia, produto ou marca)
+    private static class Acumulado {
+
+        private long pedidos;
+        private long unidades;
+        private BigDecimal valor = BigDecimal.ZERO;
+        private String nomeProduto;
+        private String marcaProduto;
+
+        private void somar(ItemPedido item) {
+            unidades += item.getQuantidade();
+            valor = valor.add(item.getPrecoTotal());
+            nomeProduto = item.getNomeProduto();
+            marcaProduto = item.getMarcaProduto();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+-- Esquema anterior às migrações versionadas, até então criado pelo ddl-auto=update do Hibernate e completado
+-- por db/ajustes-postgresql.sql (incorporado abaixo).
+-- Idempotente: em bancos novos cria tudo; em bancos já existentes (baseline-on-migrate na versão 0) só completa
+-- o que faltar. Bancos existentes devem ter rodado ao menos uma vez a versão anterior da aplicação.
+
+CREATE SEQUENCE IF NOT EXISTS carrinhos_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS checkouts_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS itens_pedido_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS pedidos_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS produtos_carrinho_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS produtos_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS reservas_estoque_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS produtos (
+    id_produto               bigint         NOT NULL PRIMARY KEY,
+    nome_produto             varchar(255)   NOT NULL,
+    marca_produto            varchar(255)   NOT NULL,
+    modelo_produto           varchar(255)   NOT NULL,
+    especificacao_produto    varchar(300)   NOT NULL,
+    preco_produto            numeric(38, 2) NOT NULL,
+    data_registro_produto    timestamp(6)   NOT NULL,
+    data_atualizacao_produto timestamp(6),
+    versao                   bigint
+);
+
+CREATE TABLE IF NOT EXISTS carrinhos (
+    id_carrinho               bigint         NOT NULL PRIMARY KEY,
+    valor_total_carrinho      numeric(38, 2) NOT NULL,
+    data_registro_carrinho    timestamp(6)   NOT NULL,
+    data_compra_finalizada    timestamp(6),
+    finalizado                boolean        NOT NULL,
+    data_atualizacao_carrinho timestamp(6),
+    versao                    bigint
+);
+
+CREATE TABLE IF NOT EXISTS produtos_carrinho (
+    id_produto_carrinho  bigint         NOT NULL PRIMARY KEY,
+    produto_id_produto   bigint         NOT NULL,
+    carrinho_id_carrinho bigint         NOT NULL,
+    quantidade           integer        NOT NULL,
+    preco_total          numeric(38, 2) NOT NULL,
+    CONSTRAINT uk_produtos_carrinho_carrinho_produto UNIQUE (carrinho_id_carrinho, produto_id_produto)
+);
+
+CREATE TABLE IF NOT EXISTS checkouts (
+    id_checkout        bigint       NOT NULL PRIMARY KEY,
+    chave_idempotencia varchar(100) NOT NULL,
+    id_carrinho        bigint       NOT NULL,
+    versao_carrinho    bigint       NOT NULL,
+    status             varchar(20)  NOT NULL CHECK (status IN ('PENDENTE', 'PROCESSANDO', 'CONCLUIDO', 'FALHOU')),
+    tentativas         integer      NOT NULL,
+    mensagem           varchar(500),
+    id_pedido          bigint,
+    data_registro      timestamp(6) NOT NULL,
+    data_atualizacao   timestamp(6),
+    versao             bigint,
+    CONSTRAINT uk_checkouts_chave_idempotencia UNIQUE (chave_idempotencia)
+);
+
+CREATE TABLE IF NOT EXISTS pedidos (
+    id_pedido            bigint         NOT NULL PRIMARY KEY,
+    id_carrinho          bigint         NOT NULL,
+    id_checkout          bigint         NOT NULL,
+    valor_total_pedido   numeric(38, 2) NOT NULL,
+    data_registro_pedido timestamp(6)   NOT NULL,
+    CONSTRAINT uk_pedidos_carrinho UNIQUE (id_carrinho)
+);
+
+CREATE TABLE IF NOT EXISTS itens_pedido (
+    id_item_pedido   bigint         NOT NULL PRIMARY KEY,
+    pedido_id_pedido bigint         NOT NULL,
+    id_produto       bigint         NOT NULL,
+    nome_produto     varchar(255)   NOT NULL,
+    quantidade       integer        NOT NULL,
+    preco_unitario   numeric(38, 2) NOT NULL,
+    preco_total      numeric(38, 2) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS estoque_fatias (
+    id_produto bigint  NOT NULL,
+    fatia      integer NOT NULL,
+    disponivel integer NOT NULL,
+    PRIMARY KEY (fatia, id_produto)
+);
+
+CREATE TABLE IF NOT EXISTS reservas_estoque (
+    id_reserva  bigint       NOT NULL PRIMARY KEY,
+    id_carrinho bigint       NOT NULL,
+    id_produto  bigint       NOT NULL,
+    quantidade  integer      NOT NULL,
+    expira_em   timestamp(6) NOT NULL,
+    CONSTRAINT uk_reservas_estoque_carrinho_produto UNIQUE (id_carrinho, id_produto)
+);
+
+CREATE TABLE IF NOT EXISTS carrinhos_arquivados (
+    id_carrinho            bigint         NOT NULL PRIMARY KEY,
+    valor_total_carrinho   numeric(38, 2) NOT NULL,
+    data_registro_carrinho timestamp(6)   NOT NULL,
+    data_compra_finalizada timestamp(6),
+    data_arquivamento      timestamp(6)   NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS produtos_carrinho_arquivados (
+    id_produto_carrinho bigint         NOT NULL PRIMARY KEY,
+    id_carrinho         bigint         NOT NULL,
+    id_produto          bigint         NOT NULL,
+    quantidade          integer        NOT NULL,
+    preco_total         numeric(38, 2) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_produtos_modelo_marca ON produtos (modelo_produto, marca_produto);
+CREATE INDEX IF NOT EXISTS idx_checkouts_status ON checkouts (status, id_checkout);
+CREATE INDEX IF NOT EXISTS idx_checkouts_carrinho ON checkouts (id_carrinho);
+CREATE INDEX IF NOT EXISTS idx_reservas_estoque_expira_em ON reservas_estoque (expira_em);
+CREATE INDEX IF NOT EXISTS idx_carrinhos_arquivados_data_registro ON carrinhos_arquivados (data_registro_carrinho);
+CREATE INDEX IF NOT EXISTS idx_produtos_carrinho_arquivados_carrinho ON produtos_carrinho_arquivados (id_carrinho);
+
+-- Chaves estrangeiras com os nomes gerados pelo Hibernate (os mesmos dos bancos já existentes)
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'fkfbagrjcbccrphm5cfcoehfcjy') THEN
+        ALTER TABLE itens_pedido ADD CONSTRAINT fkfbagrjcbccrphm5cfcoehfcjy FOREIGN KEY (pedido_id_pedido) REFERENCES pedidos;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'fkm62ogyvekhyo2ufun1hky8d33') THEN
+        ALTER TABLE produtos_carrinho ADD CONSTRAINT fkm62ogyvekhyo2ufun1hky8d33 FOREIGN KEY (carrinho_id_carrinho) REFERENCES carrinhos;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'fk4n35opu4d7jvat1yx5impd7ig') THEN
+        ALTER TABLE produtos_carrinho ADD CONSTRAINT fk4n35opu4d7jvat1yx5impd7ig FOREIGN KEY (produto_id_produto) REFERENCES produtos;
+    END IF;
+END $$;
+
+
+-- Bancos criados quando os IDs eram IDENTITY: remove a identidade das colunas (o Hibernate passa a informar o ID)
+ALTER TABLE produtos ALTER COLUMN id_produto DROP IDENTITY IF EXISTS;
+ALTER TABLE carrinhos ALTER COLUMN id_carrinho DROP IDENTITY IF EXISTS;
+ALTER TABLE produtos_carrinho ALTER COLUMN id_produto_carrinho DROP IDENTITY IF EXISTS;
+
+-- ... e avança as sequências para depois do maior ID já gravado, sem recuar blocos já entregues a alguma instância
+SELECT setval('produtos_seq', (SELECT MAX(id_produto) + 1 FROM produtos), false)
+FROM produtos_seq
+WHERE (SELECT MAX(id_produto) FROM produtos) >= last_value + CASE WHEN is_called THEN 50 ELSE 0 END;
+
+SELECT setval('carrinhos_seq', (SELECT MAX(id_carrinho) + 1 FROM carrinhos), false)
+FROM carrinhos_seq
+WHERE (SELECT MAX(id_carrinho) FROM carrinhos) >= last_value + CASE WHEN is_called THEN 50 ELSE 0 END;
+
+SELECT setval('produtos_carrinho_seq', (SELECT MAX(id_produto_carrinho) + 1 FROM produtos_carrinho), false)
+FROM produtos_carrinho_seq
+WHERE (SELECT MAX(id_produto_carrinho) FROM produtos_carrinho) >= last_value + CASE WHEN is_called THEN 50 ELSE 0 END;
+
+-- Carrinhos e produtos gravados antes do controle de versão (@Version) começam na versão 0
+UPDATE carrinhos SET versao = 0 WHERE versao IS NULL;
+UPDATE produtos SET versao = 0 WHERE versao IS NULL;
+
+-- Registros anteriores à data de atualização (Last-Modified das respostas) partem da data de registro
+UPDATE carrinhos SET data_atualizacao_carrinho = COALESCE(data_compra_finalizada, data_registro_carrinho) WHERE data_atualizacao_carrinho IS NULL;
+UPDATE produtos SET data_atualizacao_produto = data_registro_produto WHERE data_atualizacao_produto IS NULL;
+
+-- Itens duplicados (mesmo produto no mesmo carrinho) são consolidados no item mais antigo antes da restrição única
+UPDATE produtos_carrinho pc
+SET quantidade = d.quantidade, preco_total = d.preco_total
+FROM (SELECT MIN(id_produto_carrinho) AS id_produto_carrinho, SUM(quantidade) AS quantidade, SUM(preco_total) AS preco_total
+      FROM produtos_carrinho
+      GROUP BY carrinho_id_carrinho, produto_id_produto
+      HAVING COUNT(*) > 1) d
+WHERE pc.id_produto_carrinho = d.id_produto_carrinho;
+
+DELETE FROM produtos_carrinho pc
+USING produtos_carrinho outro
+WHERE pc.carrinho_id_carrinho = outro.carrinho_id_carrinho
+  AND pc.produto_id_produto = outro.produto_id_produto
+  AND pc.id_produto_carrinho > outro.id_produto_carrinho;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_produtos_carrinho_carrinho_produto ON produtos_carrinho (carrinho_id_carrinho, produto_id_produto);
+
+-- Busca de produtos (BuscaProdutoRepositoryImpl)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Documento de texto calculado pelo próprio banco a cada INSERT/UPDATE (não é mapeado na entidade)
+ALTER TABLE produtos ADD COLUMN IF NOT EXISTS documento_busca tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', nome_produto || ' ' || marca_produto || ' ' || modelo_produto || ' ' || especificacao_produto)) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_produtos_busca_texto ON produtos USING gin (documento_busca);
+
+CREATE INDEX IF NOT EXISTS idx_produtos_marca_preco ON produtos (marca_produto, preco_produto);
+
+-- Vocabulário do catálogo para corrigir erros de digitação (atualizado por AtualizacaoPalavrasBuscaJob)
+CREATE MATERIALIZED VIEW IF NOT EXISTS palavras_busca AS
+SELECT word AS palavra, ndoc AS documentos
+FROM ts_stat('SELECT documento_busca FROM produtos')
+WHERE length(word) >= 3 AND word !~ '[0-9]';
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_palavras_busca_palavra ON palavras_busca (palavra);
+
+CREATE INDEX IF NOT EXISTS idx_palavras_busca_trigramas ON palavras_busca USING gin (palavra gin_trgm_ops);
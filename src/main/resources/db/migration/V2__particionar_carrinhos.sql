@@ -0,0 +1,127 @@
+-- Carrinhos e itens particionados por mês de criação do carrinho (data_registro_carrinho).
+-- Os itens levam uma cópia da data de criação do carrinho: ficam na partição do mesmo mês e a chave estrangeira
+-- para carrinhos, que no PostgreSQL precisa incluir a chave de partição, continua valendo.
+-- A chave primária passa a incluir a data; o ID continua único porque vem das sequências.
+
+-- Tabelas atuais saem do caminho (com os nomes das restrições, que são únicos no esquema)
+ALTER TABLE produtos_carrinho RENAME TO produtos_carrinho_legado;
+ALTER TABLE produtos_carrinho_legado RENAME CONSTRAINT produtos_carrinho_pkey TO produtos_carrinho_legado_pkey;
+ALTER INDEX uk_produtos_carrinho_carrinho_produto RENAME TO uk_produtos_carrinho_legado_carrinho_produto;
+ALTER TABLE carrinhos RENAME TO carrinhos_legado;
+ALTER TABLE carrinhos_legado RENAME CONSTRAINT carrinhos_pkey TO carrinhos_legado_pkey;
+
+CREATE TABLE carrinhos (
+    id_carrinho               bigint         NOT NULL,
+    valor_total_carrinho      numeric(38, 2) NOT NULL,
+    data_registro_carrinho    timestamp(6)   NOT NULL,
+    data_compra_finalizada    timestamp(6),
+    finalizado                boolean        NOT NULL,
+    data_atualizacao_carrinho timestamp(6),
+    versao                    bigint,
+    CONSTRAINT carrinhos_pkey PRIMARY KEY (id_carrinho, data_registro_carrinho)
+) PARTITION BY RANGE (data_registro_carrinho);
+
+CREATE TABLE produtos_carrinho (
+    id_produto_carrinho    bigint         NOT NULL,
+    produto_id_produto     bigint         NOT NULL,
+    carrinho_id_carrinho   bigint         NOT NULL,
+    data_registro_carrinho timestamp(6)   NOT NULL,
+    quantidade             integer        NOT NULL,
+    preco_total            numeric(38, 2) NOT NULL,
+    CONSTRAINT produtos_carrinho_pkey PRIMARY KEY (id_produto_carrinho, data_registro_carrinho),
+    CONSTRAINT uk_produtos_carrinho_carrinho_produto UNIQUE (carrinho_id_carrinho, produto_id_produto, data_registro_carrinho),
+    CONSTRAINT fk_produtos_carrinho_carrinho FOREIGN KEY (carrinho_id_carrinho, data_registro_carrinho)
+        REFERENCES carrinhos (id_carrinho, data_registro_carrinho),
+    CONSTRAINT fk_produtos_carrinho_produto FOREIGN KEY (produto_id_produto) REFERENCES produtos
+) PARTITION BY RANGE (data_registro_carrinho);
+
+-- Buscas por ID sem a data: um acesso ao índice de cada partição
+CREATE INDEX idx_carrinhos_id ON carrinhos (id_carrinho);
+CREATE INDEX idx_produtos_carrinho_id ON produtos_carrinho (id_produto_carrinho);
+
+-- Linhas fora de qualquer partição mensal (partição do mês ainda não criada) não são perdidas
+CREATE TABLE carrinhos_padrao PARTITION OF carrinhos DEFAULT;
+CREATE TABLE produtos_carrinho_padrao PARTITION OF produtos_carrinho DEFAULT;
+
+-- Cria as partições mensais (carrinhos_AAAA_MM e produtos_carrinho_AAAA_MM) do mês de inicio até o mês de fim.
+-- Chamada por ManutencaoParticoesJob para manter os próximos meses sempre criados.
+CREATE OR REPLACE FUNCTION criar_particoes_carrinhos(inicio date, fim date) RETURNS integer AS $$
+DECLARE
+    mes     date := date_trunc('month', inicio);
+    sufixo  text;
+    criadas integer := 0;
+BEGIN
+    WHILE mes <= fim LOOP
+        sufixo := to_char(mes, 'YYYY_MM');
+        IF to_regclass('carrinhos_' || sufixo) IS NULL THEN
+            -- Com linhas desse mês já na partição padrão o PostgreSQL recusa a nova partição: fica para depois
+            IF EXISTS (SELECT 1 FROM carrinhos_padrao
+                       WHERE data_registro_carrinho >= mes AND data_registro_carrinho < mes + interval '1 month') THEN
+                RAISE WARNING 'Partição carrinhos_% não criada: partição padrão já tem carrinhos desse mês', sufixo;
+            ELSE
+                EXECUTE format('CREATE TABLE %I PARTITION OF carrinhos FOR VALUES FROM (%L) TO (%L)',
+                               'carrinhos_' || sufixo, mes, mes + interval '1 month');
+                EXECUTE format('CREATE TABLE %I PARTITION OF produtos_carrinho FOR VALUES FROM (%L) TO (%L)',
+                               'produtos_carrinho_' || sufixo, mes, mes + interval '1 month');
+                criadas := criadas + 1;
+            END IF;
+        END IF;
+        mes := mes + interval '1 month';
+    END LOOP;
+    RETURN criadas;
+END
+$$ LANGUAGE plpgsql;
+
+-- Remove as partições mensais anteriores a antes_de que já estão vazias (carrinhos apagados ou arquivados por
+-- LimpezaCarrinhosJob). Sem DELETE linha a linha nem VACUUM: a partição inteira sai de uma vez.
+CREATE OR REPLACE FUNCTION remover_particoes_carrinhos_vazias(antes_de date) RETURNS integer AS $$
+DECLARE
+    particao  record;
+    sufixo    text;
+    vazia     boolean;
+    removidas integer := 0;
+BEGIN
+    FOR particao IN
+        SELECT c.relname AS nome
+        FROM pg_inherits i
+                 JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'carrinhos'::regclass
+          AND c.relname ~ '^carrinhos_[0-9]{4}_[0-9]{2}$'
+        ORDER BY c.relname
+    LOOP
+        sufixo := substr(particao.nome, length('carrinhos_') + 1);
+        CONTINUE WHEN to_date(sufixo, 'YYYY_MM') + interval '1 month' > antes_de;
+
+        EXECUTE format('SELECT NOT EXISTS (SELECT 1 FROM %I) AND NOT EXISTS (SELECT 1 FROM %I)',
+                       particao.nome, 'produtos_carrinho_' || sufixo) INTO vazia;
+        IF vazia THEN
+            EXECUTE format('ALTER TABLE produtos_carrinho DETACH PARTITION %I', 'produtos_carrinho_' || sufixo);
+            EXECUTE format('DROP TABLE %I', 'produtos_carrinho_' || sufixo);
+            EXECUTE format('ALTER TABLE carrinhos DETACH PARTITION %I', 'carrinhos_' || sufixo);
+            EXECUTE format('DROP TABLE %I', 'carrinhos_' || sufixo);
+            removidas := removidas + 1;
+        END IF;
+    END LOOP;
+    RETURN removidas;
+END
+$$ LANGUAGE plpgsql;
+
+-- Partições para os carrinhos já gravados e para os próximos meses, antes de copiar os dados
+SELECT criar_particoes_carrinhos(COALESCE((SELECT MIN(data_registro_carrinho)::date FROM carrinhos_legado), current_date),
+                                 (current_date + interval '3 months')::date);
+
+INSERT INTO carrinhos (id_carrinho, valor_total_carrinho, data_registro_carrinho, data_compra_finalizada, finalizado,
+                       data_atualizacao_carrinho, versao)
+SELECT id_carrinho, valor_total_carrinho, data_registro_carrinho, data_compra_finalizada, finalizado,
+       data_atualizacao_carrinho, versao
+FROM carrinhos_legado;
+
+INSERT INTO produtos_carrinho (id_produto_carrinho, produto_id_produto, carrinho_id_carrinho, data_registro_carrinho,
+                               quantidade, preco_total)
+SELECT pc.id_produto_carrinho, pc.produto_id_produto, pc.carrinho_id_carrinho, c.data_registro_carrinho,
+       pc.quantidade, pc.preco_total
+FROM produtos_carrinho_legado pc
+         JOIN carrinhos_legado c ON c.id_carrinho = pc.carrinho_id_carrinho;
+
+DROP TABLE produtos_carrinho_legado;
+DROP TABLE carrinhos_legado;
@@ -0,0 +1,39 @@
+-- Totais de vendas consolidados por dia (VendasService), mantidos a partir dos pedidos
+
+CREATE TABLE vendas_dia (
+    dia         date           NOT NULL PRIMARY KEY,
+    pedidos     bigint         NOT NULL,
+    unidades    bigint         NOT NULL,
+    valor_total numeric(38, 2) NOT NULL
+);
+
+CREATE TABLE vendas_produto_dia (
+    dia           date           NOT NULL,
+    id_produto    bigint         NOT NULL,
+    nome_produto  varchar(255)   NOT NULL,
+    marca_produto varchar(255)   NOT NULL,
+    unidades      bigint         NOT NULL,
+    valor_total   numeric(38, 2) NOT NULL,
+    PRIMARY KEY (dia, id_produto)
+);
+
+CREATE TABLE vendas_marca_dia (
+    dia           date           NOT NULL,
+    marca_produto varchar(255)   NOT NULL,
+    unidades      bigint         NOT NULL,
+    valor_total   numeric(38, 2) NOT NULL,
+    PRIMARY KEY (dia, marca_produto)
+);
+
+-- Os itens do pedido passam a guardar a marca; itens antigos recebem a marca atual do produto
+ALTER TABLE itens_pedido ADD COLUMN marca_produto varchar(255);
+UPDATE itens_pedido i
+SET marca_produto = COALESCE((SELECT p.marca_produto FROM produtos p WHERE p.id_produto = i.id_produto), 'Desconhecida');
+ALTER TABLE itens_pedido ALTER COLUMN marca_produto SET NOT NULL;
+
+-- Pedidos já registrados entram nos totais na primeira execução de ContabilizacaoVendasJob
+ALTER TABLE pedidos ADD COLUMN contabilizado boolean NOT NULL DEFAULT false;
+CREATE INDEX idx_pedidos_nao_contabilizados ON pedidos (id_pedido) WHERE NOT contabilizado;
+
+-- Itens carregados por pedido (lotes da contabilização)
+CREATE INDEX idx_itens_pedido_pedido ON itens_pedido (pedido_id_pedido);
@@ -0,0 +1,7 @@
+-- Reprecificação dos carrinhos abertos (ReprecificacaoService): produtos com preço alterado ficam marcados
+-- até os itens dos carrinhos abertos receberem o preço novo
+ALTER TABLE produtos ADD COLUMN reprecificacao_pendente boolean NOT NULL DEFAULT false;
+CREATE INDEX idx_produtos_reprecificacao_pendente ON produtos (id_produto) WHERE reprecificacao_pendente;
+
+-- Itens de um produto percorridos em ordem de ID (lotes da reprecificação)
+CREATE INDEX idx_produtos_carrinho_produto ON produtos_carrinho (produto_id_produto, id_produto_carrinho);
@@ -0,0 +1,14 @@
+-- Respostas de comandos com Idempotency-Key (IdempotenciaFilter), quando persistidas
+-- (onhardware.idempotencia.persistir=true); status nulo = requisição original em andamento
+CREATE TABLE respostas_idempotentes (
+    chave             varchar(400) PRIMARY KEY,
+    impressao_digital varchar(64)  NOT NULL,
+    status            integer,
+    tipo_conteudo     varchar(100),
+    location          varchar(500),
+    corpo             bytea,
+    data_criacao      timestamp(6) NOT NULL
+);
+
+-- Remoção das respostas vencidas (LimpezaIdempotenciaJob)
+CREATE INDEX idx_respostas_idempotentes_data_criacao ON respostas_idempotentes (data_criacao);
@@ -1,13 +1,30 @@
 package onhardware;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.interceptor.BeanFactoryCacheOperationSourceAdvisor;
+import org.springframework.transaction.interceptor.BeanFactoryTransactionAttributeSourceAdvisor;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 class OnHardwareApplicationTests {
 
+	@Autowired
+	private BeanFactoryCacheOperationSourceAdvisor cacheAdvisor;
+
+	@Autowired
+	private BeanFactoryTransactionAttributeSourceAdvisor transacaoAdvisor;
+
 	@Test
 	void contextLoads() {
 	}
 
+	// @CacheEvict envolve o @Transactional: a invalidação roda depois do commit
+	@Test
+	void cacheEnvolveATransacao() {
+		assertTrue(cacheAdvisor.getOrder() < transacaoAdvisor.getOrder());
+	}
+
 }
@@ -0,0 +1,245 @@
+package onhardware.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissaoRequisicoesFilterTest {
+
+    @Test
+    void recusaComRetryAfterQuandoNaoHaVagaDentroDaEsperaMaxima() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdmissaoRequisicoesFilter filtro = new AdmissaoRequisicoesFilter(1, 1, 1, 2.0, 4, 1, 1, Duration.ofMillis(50),
+                new LimitePorCliente(1000, 1000), meterRegistry);
+
+        CountDownLatch emAndamento = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            MockHttpServletResponse respostaOcupada = new MockHttpServletResponse();
+            Future<?> primeira = executor.submit(() -> {
+                filtro.doFilter(new MockHttpServletRequest("PUT", "/carrinhos/adicionar-produto-carrinho/1/produtos"), respostaOcupada,
+                        (request, response) -> {
+                            emAndamento.countDown();
+                            try {
+                                liberar.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+                return null;
+            });
+            assertTrue(emAndamento.await(5, TimeUnit.SECONDS));
+
+            MockHttpServletResponse recusada = new MockHttpServletResponse();
+            filtro.doFilter(new MockHttpServletRequest("GET", "/carrinhos/listar-carrinhos"), recusada, new MockFilterChain());
+            assertEquals(503, recusada.getStatus());
+            assertEquals("1", recusada.getHeader("Retry-After"));
+            assertEquals(1.0, meterRegistry.get("onhardware.admissao.rejeitadas")
+                    .tag("classe", "carrinho").tag("motivo", "sobrecarga").counter().count());
+
+            // Carrinhos sem vaga não impedem a finalização da compra nem o catálogo
+            MockHttpServletResponse finalizacao = new MockHttpServletResponse();
+            filtro.doFilter(new MockHttpServletRequest("PUT", "/carrinhos/finalizar-compra/1"), finalizacao, new MockFilterChain());
+            assertEquals(200, finalizacao.getStatus());
+            MockHttpServletResponse catalogo = new MockHttpServletResponse();
+            filtro.doFilter(new MockHttpServletRequest("GET", "/produtos/listar-produtos"), catalogo, new MockFilterChain());
+            assertEquals(200, catalogo.getStatus());
+
+            liberar.countDown();
+            primeira.get(5, TimeUnit.SECONDS);
+            assertEquals(200, respostaOcupada.getStatus());
+
+            // A vaga foi devolvida: a próxima requisição passa
+            MockHttpServletResponse admitida = new MockHttpServletResponse();
+            filtro.doFilter(new MockHttpServletRequest("GET", "/carrinhos/listar-carrinhos"), admitida, new MockFilterChain());
+            assertEquals(200, admitida.getStatus());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void clienteAcimaDaTaxaRecebe429SemAfetarOsDemais() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdmissaoRequisicoesFilter filtro = new AdmissaoRequisicoesFilter(10, 1, 10, 2.0, 12, 2, 2, Duration.ofMillis(50),
+                new LimitePorCliente(0.5, 2), meterRegistry);
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(200, requisitar(filtro, "10.0.0.1").getStatus());
+        }
+        MockHttpServletResponse recusada = requisitar(filtro, "10.0.0.1");
+        assertEquals(429, recusada.getStatus());
+        // Uma ficha a cada 2 segundos
+        assertEquals("2", recusada.getHeader("Retry-After"));
+        assertEquals(1.0, meterRegistry.get("onhardware.admissao.rejeitadas").tag("motivo", "limite-cliente").counter().count());
+
+        assertEquals(200, requisitar(filtro, "10.0.0.2").getStatus());
+    }
+
+    @Test
+    void respostaAssincronaOcupaAVagaAteTerminarOEnvioMasSoOInicioContaNaLatencia() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdmissaoRequisicoesFilter filtro = new AdmissaoRequisicoesFilter(1, 1, 1, 2.0, 4, 1, 1, Duration.ofMillis(10),
+                new LimitePorCliente(1000, 1000), meterRegistry);
+
+        MockHttpServletRequest exportacao = new MockHttpServletRequest("GET", "/produtos/listar-produtos");
+        exportacao.setAsyncSupported(true);
+        filtro.doFilter(exportacao, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+        // O controller já retornou, mas o corpo ainda está sendo enviado
+        assertEquals(1.0, emAndamento(meterRegistry));
+        assertEquals(503, requisitar(filtro, "10.0.0.1").getStatus());
+
+        // Cliente lento: o envio demora, mas isso não é lentidão do servidor
+        Thread.sleep(300);
+        ((MockAsyncContext) exportacao.getAsyncContext()).complete();
+        assertEquals(0.0, emAndamento(meterRegistry));
+        assertTrue(meterRegistry.get("onhardware.admissao.latencia").tag("classe", "catalogo").gauge().value() < 100);
+        assertEquals(200, requisitar(filtro, "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void exportacoesTemClassePropriaForaDoLimiteTotal() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Pool de 4: 2 para exportações, 2 para as demais classes
+        AdmissaoRequisicoesFilter filtro = new AdmissaoRequisicoesFilter(10, 2, 10, 2.0, 4, 2, 0, Duration.ofMillis(10),
+                new LimitePorCliente(1000, 1000), meterRegistry);
+
+        MockHttpServletRequest[] exportacoes = new MockHttpServletRequest[2];
+        for (int i = 0; i < exportacoes.length; i++) {
+            exportacoes[i] = exportacao();
+            filtro.doFilter(exportacoes[i], new MockHttpServletResponse(), (request, response) -> request.startAsync());
+        }
+
+        // Downloads em andamento recusam outra exportação, mas não o catálogo nem o carrinho
+        MockHttpServletResponse terceira = new MockHttpServletResponse();
+        filtro.doFilter(exportacao(), terceira, new MockFilterChain());
+        assertEquals(503, terceira.getStatus());
+        assertEquals(1.0, meterRegistry.get("onhardware.admissao.rejeitadas")
+                .tag("classe", "exportacao").tag("motivo", "sobrecarga").counter().count());
+        assertEquals(200, requisitar(filtro, "10.0.0.1").getStatus());
+        MockHttpServletResponse carrinho = new MockHttpServletResponse();
+        filtro.doFilter(new MockHttpServletRequest("GET", "/carrinhos/listar-carrinhos"), carrinho, new MockFilterChain());
+        assertEquals(200, carrinho.getStatus());
+        assertEquals(0.0, meterRegistry.get("onhardware.admissao.total-em-andamento").gauge().value());
+
+        for (MockHttpServletRequest exportacao : exportacoes) {
+            ((MockAsyncContext) exportacao.getAsyncContext()).complete();
+        }
+        assertEquals(0.0, meterRegistry.get("onhardware.admissao.em-andamento").tag("classe", "exportacao").gauge().value());
+    }
+
+    @Test
+    void somaDasClassesNaoPassaDoPoolEGuardaVagasParaAFinalizacao() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Cada classe poderia ter 10 em andamento; o pool tem 3 fora a exportação, uma delas só para finalizações
+        AdmissaoRequisicoesFilter filtro = new AdmissaoRequisicoesFilter(10, 2, 10, 2.0, 4, 1, 1, Duration.ofMillis(50),
+                new LimitePorCliente(1000, 1000), meterRegistry);
+
+        CountDownLatch emAndamento = new CountDownLatch(2);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (String caminho : new String[]{"/carrinhos/listar-carrinhos", "/produtos/listar-produtos"}) {
+                executor.submit(() -> {
+                    filtro.doFilter(new MockHttpServletRequest("GET", caminho), new MockHttpServletResponse(),
+                            (request, response) -> {
+                                emAndamento.countDown();
+                                try {
+                                    liberar.await();
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                            });
+                    return null;
+                });
+            }
+            assertTrue(emAndamento.await(5, TimeUnit.SECONDS));
+
+            // Catálogo ainda tem vaga na classe, mas não no pool: a última vaga é da finalização
+            assertEquals(503, requisitar(filtro, "10.0.0.1").getStatus());
+            MockHttpServletResponse finalizacao = new MockHttpServletResponse();
+            filtro.doFilter(new MockHttpServletRequest("PUT", "/carrinhos/finalizar-compra/1"), finalizacao, new MockFilterChain());
+            assertEquals(200, finalizacao.getStatus());
+
+            liberar.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(200, requisitar(filtro, "10.0.0.1").getStatus());
+            // A recusa devolveu a vaga da classe sem mexer no limite
+            assertEquals(10.0, limite(meterRegistry));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void apenasFalhasPorSobrecargaReduzemOLimite() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdmissaoRequisicoesFilter filtro = new AdmissaoRequisicoesFilter(10, 2, 20, 2.0, 12, 2, 2, Duration.ofMillis(50),
+                new LimitePorCliente(1000, 1000), meterRegistry);
+
+        // Erro de negócio (produto inexistente, por exemplo) não é sinal de sobrecarga
+        for (int i = 0; i < 50; i++) {
+            assertThrows(IllegalStateException.class, () -> filtro.doFilter(new MockHttpServletRequest("GET", "/produtos/1"),
+                    new MockHttpServletResponse(), (request, response) -> {
+                        throw new IllegalStateException("Produto 1 não encontrado.");
+                    }));
+        }
+        assertEquals(10.0, limite(meterRegistry));
+
+        // Conexão do pool não obtida a tempo, embrulhada pelo DispatcherServlet
+        for (int i = 0; i < 50; i++) {
+            assertThrows(ServletException.class, () -> filtro.doFilter(new MockHttpServletRequest("GET", "/produtos/1"),
+                    new MockHttpServletResponse(), (request, response) -> {
+                        throw new ServletException(new CannotGetJdbcConnectionException("Pool esgotado.",
+                                new SQLTransientConnectionException("Connection is not available")));
+                    }));
+        }
+        assertTrue(limite(meterRegistry) < 10.0);
+        assertEquals(0.0, emAndamento(meterRegistry));
+    }
+
+    private double limite(SimpleMeterRegistry meterRegistry) {
+        return meterRegistry.get("onhardware.admissao.limite").tag("classe", "catalogo").gauge().value();
+    }
+
+    private double emAndamento(SimpleMeterRegistry meterRegistry) {
+        return meterRegistry.get("onhardware.admissao.em-andamento").tag("classe", "catalogo").gauge().value();
+    }
+
+    private MockHttpServletRequest exportacao() {
+        MockHttpServletRequest requisicao = new MockHttpServletRequest("GET", "/produtos/listar-produtos");
+        requisicao.addHeader("Accept", "application/x-ndjson");
+        requisicao.setAsyncSupported(true);
+        return requisicao;
+    }
+
+    private MockHttpServletResponse requisitar(AdmissaoRequisicoesFilter filtro, String endereco) throws Exception {
+        MockHttpServletRequest requisicao = new MockHttpServletRequest("GET", "/produtos/listar-produtos");
+        requisicao.setRemoteAddr(endereco);
+        MockHttpServletResponse resposta = new MockHttpServletResponse();
+        filtro.doFilter(requisicao, resposta, new MockFilterChain());
+        return resposta;
+    }
+}
@@ -0,0 +1,102 @@
+package onhardware.config;
+
+import onhardware.DTO.ProdutoDTO;
+import onhardware.service.CarrinhoService;
+import onhardware.service.ProdutoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Réplica simulada por um segundo banco H2, com um catálogo diferente do principal
+@SpringBootTest(properties = {
+        "onhardware.datasource.replica.url=" + DataSourceConfigTest.URL_REPLICA,
+        "onhardware.datasource.replica.username=sa",
+        "onhardware.datasource.replica.password="
+})
+class DataSourceConfigTest {
+
+    static final String URL_REPLICA = "jdbc:h2:mem:onhardware-replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private CarrinhoService carrinhoService;
+
+    @Autowired
+    private DataSource dataSourcePrincipal;
+
+    @BeforeEach
+    void prepararReplica() {
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(URL_REPLICA, "sa", ""));
+        replica.execute("drop table if exists produtos");
+        replica.execute("create table produtos (id_produto bigint primary key, nome_produto varchar(255), " +
+                "marca_produto varchar(255), modelo_produto varchar(255), especificacao_produto varchar(300), " +
+                "preco_produto numeric(38, 2), data_registro_produto timestamp, data_atualizacao_produto timestamp, versao bigint)");
+        replica.update("insert into produtos values (1, 'Da réplica', 'Marca', 'Modelo', 'Especificação', 10.00, current_timestamp, current_timestamp, 0)");
+    }
+
+    @Test
+    void leiturasVaoParaReplicaEEscritasParaPrincipal() {
+        ProdutoDTO cadastrado = produtoService.cadastrarProduto(ProdutoDTO.builder()
+                .nomeProduto("Do principal")
+                .marcaProduto("Marca")
+                .modeloProduto("Modelo")
+                .especificacaoProduto("Especificação")
+                .precoProduto(new BigDecimal("20.00"))
+                .build());
+
+        List<ProdutoDTO> lidos = produtoService.listarTodosProdutos();
+
+        assertThat(lidos).extracting(ProdutoDTO::getNomeProduto).containsExactly("Da réplica");
+        assertThat(new JdbcTemplate(dataSourcePrincipal).queryForObject(
+                "select nome_produto from produtos where id_produto = ?", String.class, cadastrado.getIdProduto()))
+                .isEqualTo("Do principal");
+    }
+
+    @Test
+    void leiturasQuePreenchemCacheOuValidamETagFicamNoPrincipal() {
+        ProdutoDTO cadastrado = produtoService.cadastrarProduto(ProdutoDTO.builder()
+                .nomeProduto("Do principal")
+                .marcaProduto("Marca")
+                .modeloProduto("Modelo cache")
+                .especificacaoProduto("Especificação")
+                .precoProduto(new BigDecimal("20.00"))
+                .build());
+        Long idCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+
+        assertThat(produtoService.buscarProdutoPorId(cadastrado.getIdProduto()).getNomeProduto()).isEqualTo("Do principal");
+        // A réplica simulada nem tem a tabela de carrinhos
+        assertThat(carrinhoService.buscarVersaoCarrinho(idCarrinho).getVersaoCarrinho()).isZero();
+    }
+
+    @Test
+    void replicaIndisponivelUsaPrincipal() throws SQLException {
+        DataSource replica = mock(DataSource.class);
+        DataSource principal = mock(DataSource.class);
+        Connection conexaoPrincipal = mock(Connection.class);
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(principal.getConnection()).thenReturn(conexaoPrincipal);
+
+        ReplicaComFallbackDataSource dataSource = new ReplicaComFallbackDataSource(replica, principal, 60_000);
+
+        assertThat(dataSource.getConnection()).isSameAs(conexaoPrincipal);
+        assertThat(dataSource.getConnection()).isSameAs(conexaoPrincipal);
+        // Durante a pausa a réplica não é tentada de novo
+        verify(replica).getConnection();
+    }
+}
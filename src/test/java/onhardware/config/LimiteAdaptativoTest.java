@@ -0,0 +1,77 @@
+package onhardware.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LimiteAdaptativoTest {
+
+    private static final long RAPIDA = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long LENTA = TimeUnit.MILLISECONDS.toNanos(200);
+
+    @Test
+    void caiQuandoALatenciaSobeEVoltaAQuandoEla() throws Exception {
+        LimiteAdaptativo limite = new LimiteAdaptativo(10, 2, 20, 2.0);
+
+        // Latência estável com o limite ocupado: sobe devagar
+        rodadas(limite, 10, 50, RAPIDA, false);
+        int aposLatenciaEstavel = limite.limite();
+        assertTrue(aposLatenciaEstavel > 10);
+
+        // Fila se formando: latência dez vezes maior derruba o limite
+        rodadas(limite, aposLatenciaEstavel, 20, LENTA, false);
+        int aposLentidao = limite.limite();
+        assertTrue(aposLentidao < aposLatenciaEstavel);
+
+        // Latência de volta ao normal: limite volta a subir
+        rodadas(limite, aposLentidao, 100, RAPIDA, false);
+        assertTrue(limite.limite() > aposLentidao);
+    }
+
+    @Test
+    void falhasReduzemOLimiteAteOMinimo() throws Exception {
+        LimiteAdaptativo limite = new LimiteAdaptativo(10, 2, 20, 2.0);
+
+        rodadas(limite, 10, 100, RAPIDA, true);
+        assertEquals(2, limite.limite());
+
+        // Com o limite ocupado, a próxima espera e desiste
+        assertTrue(limite.entrar(0));
+        assertTrue(limite.entrar(0));
+        assertFalse(limite.entrar(TimeUnit.MILLISECONDS.toNanos(10)));
+        assertEquals(2, limite.emAndamento());
+    }
+
+    @Test
+    void reservaFicaParaQuemEntraSemReserva() throws Exception {
+        LimiteAdaptativo limite = new LimiteAdaptativo(3, 3, 3, 2.0);
+
+        assertTrue(limite.entrar(0, 1));
+        assertTrue(limite.entrar(0, 1));
+        assertFalse(limite.entrar(0, 1));
+        assertTrue(limite.entrar(0));
+        assertFalse(limite.entrar(0));
+
+        // Desistência devolve a vaga sem mexer no limite
+        limite.devolver();
+        assertEquals(2, limite.emAndamento());
+        assertEquals(3, limite.limite());
+    }
+
+    // Cada rodada ocupa "simultaneas" vagas e as devolve com a latência informada
+    private void rodadas(LimiteAdaptativo limite, int simultaneas, int quantidade, long latencia, boolean falhou) throws Exception {
+        for (int i = 0; i < quantidade; i++) {
+            int admitidas = 0;
+            while (admitidas < simultaneas && limite.entrar(0)) {
+                admitidas++;
+            }
+            for (int j = 0; j < admitidas; j++) {
+                limite.sair(latencia, falhou);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package onhardware.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import onhardware.model.Produto;
+import onhardware.repository.ProdutoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricasConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Test
+    void expoeMetricasDoCarrinhoNoEndpointDoPrometheus() throws Exception {
+        Produto produto = produtoRepository.save(Produto.builder()
+                .nomeProduto("Produto")
+                .marcaProduto("Marca")
+                .modeloProduto("Modelo métricas")
+                .especificacaoProduto("Especificação")
+                .precoProduto(new BigDecimal("10.00"))
+                .build());
+
+        MvcResult criacao = mockMvc.perform(post("/carrinhos/criar-carrinho"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        long idCarrinho = objectMapper.readTree(criacao.getResponse().getContentAsString()).get("idCarrinho").asLong();
+
+        mockMvc.perform(put("/carrinhos/adicionar-produto-carrinho/{idCarrinho}/produtos", idCarrinho)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"idProduto\":" + produto.getIdProduto() + ",\"quantidade\":2}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("onhardware_carrinho_operacao_seconds_count{")))
+                .andExpect(content().string(containsString("operacao=\"adicionar\"")))
+                .andExpect(content().string(containsString("onhardware_carrinho_itens_count{")))
+                .andExpect(content().string(containsString("uri=\"/carrinhos/adicionar-produto-carrinho/{idCarrinho}/produtos\"")))
+                .andExpect(content().string(containsString("cache_gets_total{")))
+                .andExpect(content().string(containsString("hikaricp_connections_pending{")));
+    }
+}
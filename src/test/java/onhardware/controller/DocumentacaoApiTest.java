@@ -0,0 +1,60 @@
+package onhardware.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Endpoints com visão COMPLETA/RESUMO devolvem tipos diferentes: o OpenAPI tem de descrever os dois
+@SpringBootTest
+@AutoConfigureMockMvc
+class DocumentacaoApiTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void respostasComVisaoDescrevemAsDuasFormas() throws Exception {
+        JsonNode documentacao = objectMapper.readTree(mockMvc.perform(get("/v3/api-docs"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        JsonNode caminhos = documentacao.path("paths");
+
+        assertEquals(List.of("CarrinhoDTO", "CarrinhoResumoDTO"),
+                alternativas(esquema(caminhos, "/carrinhos/listar-carrinhos").path("items")));
+        assertEquals(List.of("CarrinhoDTO", "CarrinhoResumoDTO"),
+                alternativas(esquema(caminhos, "/carrinhos/buscar-carrinho/{id}")));
+        assertEquals(List.of("ProdutoDTO", "ProdutoResumoDTO"),
+                alternativas(esquema(caminhos, "/produtos/listar-produtos").path("items")));
+
+        assertEquals("#/components/schemas/PaginaProdutoDTO", esquema(caminhos, "/produtos/listar-produtos-paginado").path("$ref").asText());
+        assertEquals(List.of("ProdutoDTO", "ProdutoResumoDTO"), alternativas(documentacao
+                .path("components").path("schemas").path("PaginaProdutoDTO").path("properties").path("produtos").path("items")));
+    }
+
+    private JsonNode esquema(JsonNode caminhos, String caminho) {
+        return caminhos.path(caminho).path("get").path("responses").path("200").path("content").elements().next().path("schema");
+    }
+
+    private List<String> alternativas(JsonNode esquema) {
+        List<String> tipos = new ArrayList<>();
+        for (JsonNode alternativa : esquema.path("oneOf")) {
+            String referencia = alternativa.path("$ref").asText();
+            tipos.add(referencia.substring(referencia.lastIndexOf('/') + 1));
+        }
+        return tipos;
+    }
+}
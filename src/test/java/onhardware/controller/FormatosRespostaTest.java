@@ -0,0 +1,127 @@
+package onhardware.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import onhardware.model.Produto;
+import onhardware.repository.CarrinhoRepository;
+import onhardware.repository.ProdutoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class FormatosRespostaTest {
+
+    private static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        produto = produtoRepository.save(Produto.builder()
+                .nomeProduto("Produto")
+                .marcaProduto("Marca")
+                .modeloProduto("Modelo formatos")
+                .especificacaoProduto("Especificação")
+                .precoProduto(new BigDecimal("10.00"))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        carrinhoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void produtoEmCborESmileTrazOsMesmosCamposDoJson() throws Exception {
+        String url = "/produtos/buscar-produto/" + produto.getIdProduto();
+        MockHttpServletResponse json = buscar(url, MediaType.APPLICATION_JSON);
+        MockHttpServletResponse cbor = buscar(url, CBOR);
+        MockHttpServletResponse smile = buscar(url, SMILE);
+
+        JsonNode esperado = objectMapper.readTree(json.getContentAsByteArray());
+        assertMesmoProduto(esperado, new ObjectMapper(new CBORFactory()).readTree(cbor.getContentAsByteArray()));
+        assertMesmoProduto(esperado, new ObjectMapper(new SmileFactory()).readTree(smile.getContentAsByteArray()));
+        assertTrue(cbor.getContentAsByteArray().length < json.getContentAsByteArray().length);
+
+        // Mesma versão, mesmo ETag (fraco) em qualquer formato; caches separam as respostas pelo Accept
+        assertTrue(json.getHeader(HttpHeaders.ETAG).startsWith("W/"));
+        assertEquals(json.getHeader(HttpHeaders.ETAG), cbor.getHeader(HttpHeaders.ETAG));
+        assertEquals(HttpHeaders.ACCEPT, cbor.getHeader(HttpHeaders.VARY));
+    }
+
+    @Test
+    void carrinhoEmCborAceitaCorpoEmCbor() throws Exception {
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+        byte[] criacao = mockMvc.perform(post("/carrinhos/criar-carrinho").accept(CBOR))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsByteArray();
+        long idCarrinho = cborMapper.readTree(criacao).get("idCarrinho").asLong();
+
+        byte[] corpo = cborMapper.writeValueAsBytes(objectMapper.createObjectNode()
+                .put("idProduto", produto.getIdProduto())
+                .put("quantidade", 2));
+        mockMvc.perform(put("/carrinhos/adicionar-produto-carrinho/{idCarrinho}/produtos", idCarrinho)
+                        .contentType(CBOR)
+                        .accept(CBOR)
+                        .content(corpo))
+                .andExpect(status().isOk());
+
+        JsonNode carrinho = cborMapper.readTree(buscar("/carrinhos/buscar-carrinho/" + idCarrinho, CBOR).getContentAsByteArray());
+        assertEquals(2, carrinho.get("produtos").get(0).get("quantidade").asInt());
+        assertEquals(0, new BigDecimal("20.00").compareTo(carrinho.get("valorTotalCarrinho").decimalValue()));
+    }
+
+    // Preço comparado pelo valor: o JSON lido traz um double, os formatos binários trazem o BigDecimal
+    private void assertMesmoProduto(JsonNode esperado, JsonNode recebido) {
+        assertEquals(esperado.size(), recebido.size());
+        esperado.fieldNames().forEachRemaining(campo -> {
+            if (campo.equals("precoProduto")) {
+                assertEquals(0, esperado.get(campo).decimalValue().compareTo(recebido.get(campo).decimalValue()));
+            } else {
+                assertEquals(esperado.get(campo), recebido.get(campo));
+            }
+        });
+    }
+
+    private MockHttpServletResponse buscar(String url, MediaType formato) throws Exception {
+        MockHttpServletResponse resposta = mockMvc.perform(get(url).accept(formato))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertTrue(formato.isCompatibleWith(MediaType.parseMediaType(resposta.getContentType())));
+        return resposta;
+    }
+}
@@ -0,0 +1,192 @@
+package onhardware.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import onhardware.config.IdempotenciaFilter;
+import onhardware.model.Produto;
+import onhardware.repository.CarrinhoRepository;
+import onhardware.repository.ProdutoRepository;
+import onhardware.repository.RespostaIdempotenteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Respostas guardadas também no banco, como com várias instâncias
+@SpringBootTest(properties = "onhardware.idempotencia.persistir=true")
+@AutoConfigureMockMvc
+class IdempotenciaTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
+    @Autowired
+    private RespostaIdempotenteRepository respostaIdempotenteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FilterRegistrationBean<IdempotenciaFilter> idempotenciaFilter;
+
+    private Produto produto;
+
+    private long idCarrinho;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        produto = produtoRepository.save(Produto.builder()
+                .nomeProduto("Produto")
+                .marcaProduto("Marca")
+                .modeloProduto("Modelo idempotente")
+                .especificacaoProduto("Especificação")
+                .precoProduto(new BigDecimal("10.00"))
+                .build());
+        String criacao = mockMvc.perform(post("/carrinhos/criar-carrinho"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        idCarrinho = objectMapper.readTree(criacao).get("idCarrinho").asLong();
+    }
+
+    @AfterEach
+    void tearDown() {
+        respostaIdempotenteRepository.deleteAll();
+        carrinhoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void repeticaoDevolveAMesmaRespostaSemSomarDeNovo() throws Exception {
+        String primeira = adicionar("chave-1", 2)
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn().getResponse().getContentAsString();
+
+        adicionar("chave-1", 2)
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(content().json(primeira, JsonCompareMode.STRICT));
+
+        assertEquals(2, quantidadeNoBanco());
+        assertEquals(200, respostaIdempotenteRepository.findAll().get(0).getStatus());
+
+        // Outra chave é outra requisição
+        adicionar("chave-2", 2).andExpect(status().isOk());
+        assertEquals(4, quantidadeNoBanco());
+    }
+
+    @Test
+    void mesmaChaveComOutroCorpoERecusada() throws Exception {
+        adicionar("chave-1", 2).andExpect(status().isOk());
+
+        adicionar("chave-1", 3).andExpect(status().isUnprocessableEntity());
+        assertEquals(2, quantidadeNoBanco());
+    }
+
+    @Test
+    void respostaGravadaPorOutraInstanciaERepetida() throws Exception {
+        String corpo = "{\"idProduto\":" + produto.getIdProduto() + ",\"quantidade\":1}";
+        String chave = "PUT /carrinhos/adicionar-produto-carrinho/" + idCarrinho + "/produtos chave-outra-instancia";
+        jdbcTemplate.update("insert into respostas_idempotentes (chave, impressao_digital, status, tipo_conteudo, corpo, data_criacao) " +
+                        "values (?, ?, 200, 'application/json', ?, ?)",
+                chave, sha256(corpo), "{\"gravada\":true}".getBytes(StandardCharsets.UTF_8), LocalDateTime.now());
+
+        mockMvc.perform(put("/carrinhos/adicionar-produto-carrinho/{idCarrinho}/produtos", idCarrinho)
+                        .header("Idempotency-Key", "chave-outra-instancia")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corpo))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(content().json("{\"gravada\":true}"));
+        assertEquals(0, quantidadeNoBanco());
+    }
+
+    @Test
+    void corpoJaLidoEntregueALeituraNaoBloqueante() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/carrinhos/leitura-assincrona");
+        request.addHeader("Idempotency-Key", "chave-listener");
+        request.setContent("{\"corpo\":true}".getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream lido = new ByteArrayOutputStream();
+        boolean[] terminou = new boolean[1];
+
+        idempotenciaFilter.getFilter().doFilter(request, new MockHttpServletResponse(), (requisicao, resposta) -> {
+            ServletInputStream entrada = requisicao.getInputStream();
+            entrada.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    while (entrada.isReady() && !entrada.isFinished()) {
+                        lido.write(entrada.read());
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    terminou[0] = true;
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    throw new AssertionError(t);
+                }
+            });
+        });
+
+        assertEquals("{\"corpo\":true}", lido.toString(StandardCharsets.UTF_8));
+        assertTrue(terminou[0]);
+    }
+
+    private ResultActions adicionar(String chave, int quantidade) throws Exception {
+        return mockMvc.perform(put("/carrinhos/adicionar-produto-carrinho/{idCarrinho}/produtos", idCarrinho)
+                .header("Idempotency-Key", chave)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"idProduto\":" + produto.getIdProduto() + ",\"quantidade\":" + quantidade + "}"));
+    }
+
+    private int quantidadeNoBanco() {
+        return jdbcTemplate.queryForObject(
+                "select coalesce(sum(quantidade), 0) from produtos_carrinho where carrinho_id_carrinho = ?", Integer.class, idCarrinho);
+    }
+
+    // Mesma impressão digital do filtro para uma requisição sem parâmetros
+    private static String sha256(String corpo) throws Exception {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        sha256.update((byte) 0);
+        return HexFormat.of().formatHex(sha256.digest(corpo.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,128 @@
+package onhardware.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import onhardware.model.Produto;
+import onhardware.repository.CarrinhoRepository;
+import onhardware.repository.ProdutoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RequisicaoCondicionalTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        produto = produtoRepository.save(Produto.builder()
+                .nomeProduto("Produto")
+                .marcaProduto("Marca")
+                .modeloProduto("Modelo condicional")
+                .especificacaoProduto("Especificação")
+                .precoProduto(new BigDecimal("10.00"))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        carrinhoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void produtoNaoModificadoResponde304SemCorpo() throws Exception {
+        String etag = mockMvc.perform(get("/produtos/buscar-produto/{id}", produto.getIdProduto()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/produtos/buscar-produto/{id}", produto.getIdProduto()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(put("/produtos/atualizar-produto/{id}", produto.getIdProduto())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nomeProduto\":\"Produto novo\",\"marcaProduto\":\"Marca\",\"modeloProduto\":\"Modelo condicional\"," +
+                                "\"especificacaoProduto\":\"Especificação\",\"precoProduto\":12.00}"))
+                .andExpect(status().isOk());
+
+        String novoEtag = mockMvc.perform(get("/produtos/buscar-produto/{id}", produto.getIdProduto()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, novoEtag);
+    }
+
+    @Test
+    void etagDoCarrinhoMudaComOsItensEComOsProdutos() throws Exception {
+        MvcResult criacao = mockMvc.perform(post("/carrinhos/criar-carrinho"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        long idCarrinho = objectMapper.readTree(criacao.getResponse().getContentAsString()).get("idCarrinho").asLong();
+
+        String etagVazio = buscarEtagCarrinho(idCarrinho);
+        mockMvc.perform(get("/carrinhos/buscar-carrinho/{id}", idCarrinho).header(HttpHeaders.IF_NONE_MATCH, etagVazio))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"));
+
+        mockMvc.perform(put("/carrinhos/adicionar-produto-carrinho/{idCarrinho}/produtos", idCarrinho)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"idProduto\":" + produto.getIdProduto() + ",\"quantidade\":2}"))
+                .andExpect(status().isOk());
+        String etagComItem = buscarEtagCarrinho(idCarrinho);
+        assertNotEquals(etagVazio, etagComItem);
+
+        // O preço do produto aparece no corpo do carrinho: alterá-lo também invalida o ETag
+        mockMvc.perform(put("/produtos/atualizar-produto/{id}", produto.getIdProduto())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nomeProduto\":\"Produto\",\"marcaProduto\":\"Marca\",\"modeloProduto\":\"Modelo condicional\"," +
+                                "\"especificacaoProduto\":\"Especificação\",\"precoProduto\":15.00}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/carrinhos/buscar-carrinho/{id}", idCarrinho).header(HttpHeaders.IF_NONE_MATCH, etagComItem))
+                .andExpect(status().isOk());
+
+        // Visões diferentes têm corpos diferentes
+        mockMvc.perform(get("/carrinhos/buscar-carrinho/{id}", idCarrinho).param("visao", "RESUMO")
+                        .header(HttpHeaders.IF_NONE_MATCH, buscarEtagCarrinho(idCarrinho)))
+                .andExpect(status().isOk());
+    }
+
+    private String buscarEtagCarrinho(long idCarrinho) throws Exception {
+        return mockMvc.perform(get("/carrinhos/buscar-carrinho/{id}", idCarrinho))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
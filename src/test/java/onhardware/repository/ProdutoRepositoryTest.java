@@ -0,0 +1,51 @@
+package onhardware.repository;
+
+import jakarta.persistence.EntityManager;
+import onhardware.model.Produto;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProdutoRepositoryTest {
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void saveAllAgrupaOsInsertsEmLotes() {
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            produtos.add(Produto.builder()
+                    .nomeProduto("Produto " + i)
+                    .marcaProduto("Marca")
+                    .modeloProduto("Modelo " + i)
+                    .especificacaoProduto("Especificação " + i)
+                    .precoProduto(new BigDecimal("10.00"))
+                    .build());
+        }
+
+        Statistics estatisticas = entityManager.unwrap(Session.class).getSessionFactory().getStatistics();
+        estatisticas.clear();
+
+        produtoRepository.saveAll(produtos);
+        entityManager.flush();
+
+        // Com IDENTITY seriam 200 INSERTs; com sequência em blocos de 50 são poucas chamadas à sequência e 4 lotes.
+        long comandos = estatisticas.getPrepareStatementCount();
+        assertTrue(comandos <= 10, "Esperado no máximo 10 comandos preparados, mas foram " + comandos);
+    }
+}
@@ -0,0 +1,106 @@
+package onhardware.service;
+
+import onhardware.DTO.CarrinhoDTO;
+import onhardware.DTO.ProdutoCarrinhoDTO;
+import onhardware.DTO.ProdutoDTO;
+import onhardware.repository.CarrinhoRepository;
+import onhardware.repository.ProdutoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "onhardware.carrinho.maximo-tentativas=50")
+class CarrinhoConcorrenciaTest {
+
+    private static final int THREADS = 8;
+    private static final int ADICOES_POR_THREAD = 25;
+
+    @Autowired
+    private CarrinhoService carrinhoService;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @AfterEach
+    void tearDown() {
+        carrinhoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void adicoesConcorrentesNaoPerdemQuantidadeNemDuplicamItens() throws Exception {
+        ProdutoDTO placa = cadastrarProduto("Placa de vídeo", "10.00");
+        ProdutoDTO memoria = cadastrarProduto("Memória", "2.50");
+        Long idCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                // Com tentativas de sobra, toda adição tem de ser confirmada: qualquer exceção falha o teste em tarefa.get()
+                for (int i = 0; i < ADICOES_POR_THREAD; i++) {
+                    carrinhoService.adicionarProduto(idCarrinho, placa.getIdProduto(), 1);
+                    carrinhoService.adicionarProduto(idCarrinho, memoria.getIdProduto(), 2);
+                }
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        try {
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        CarrinhoDTO carrinho = carrinhoService.buscarCarrinhoPorId(idCarrinho);
+
+        assertEquals(2, carrinho.getProdutos().size());
+        assertEquals(THREADS * ADICOES_POR_THREAD, quantidade(carrinho, placa));
+        assertEquals(THREADS * ADICOES_POR_THREAD * 2, quantidade(carrinho, memoria));
+        // 200 placas a 10,00 e 400 memórias a 2,50
+        assertEquals(0, new BigDecimal("3000.00").compareTo(carrinho.getValorTotalCarrinho()));
+    }
+
+    private ProdutoDTO cadastrarProduto(String nome, String preco) {
+        return produtoService.cadastrarProduto(ProdutoDTO.builder()
+                .nomeProduto(nome)
+                .marcaProduto("Marca")
+                .modeloProduto(nome)
+                .especificacaoProduto("Especificação")
+                .precoProduto(new BigDecimal(preco))
+                .build());
+    }
+
+    private int quantidade(CarrinhoDTO carrinho, ProdutoDTO produto) {
+        for (ProdutoCarrinhoDTO item : carrinho.getProdutos()) {
+            if (item.getProdutoDTO().getIdProduto().equals(produto.getIdProduto())) {
+                return item.getQuantidade();
+            }
+        }
+        return 0;
+    }
+}
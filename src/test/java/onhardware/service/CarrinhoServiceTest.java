@@ -0,0 +1,233 @@
+package onhardware.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import onhardware.DTO.CarrinhoDTO;
+import onhardware.DTO.CarrinhoResumoDTO;
+import onhardware.DTO.OperacaoCarrinhoDTO;
+import onhardware.DTO.ProdutoCarrinhoDTO;
+import onhardware.exception.ProdutoForaDoCarrinhoException;
+import onhardware.job.ReconciliacaoCarrinhoJob;
+import onhardware.model.Carrinho;
+import onhardware.model.Produto;
+import onhardware.model.ProdutoCarrinho;
+import onhardware.repository.CarrinhoRepository;
+import onhardware.repository.ProdutoRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class CarrinhoServiceTest {
+
+    @Autowired
+    private CarrinhoService carrinhoService;
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ReconciliacaoCarrinhoJob reconciliacaoCarrinhoJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estatisticas;
+
+    private List<Produto> produtos;
+
+    @BeforeEach
+    void setUp() {
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        produtos = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            produtos.add(produtoRepository.save(Produto.builder()
+                    .nomeProduto("Produto " + i)
+                    .marcaProduto("Marca")
+                    .modeloProduto("Modelo " + i)
+                    .especificacaoProduto("Especificação " + i)
+                    .precoProduto(new BigDecimal("10.00"))
+                    .build()));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        carrinhoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void buscarCarrinhoPorIdExecutaUmaUnicaConsulta() {
+        Carrinho carrinho = criarCarrinhoComItens();
+
+        estatisticas.clear();
+        CarrinhoDTO carrinhoDTO = carrinhoService.buscarCarrinhoPorId(carrinho.getIdCarrinho());
+
+        assertEquals(produtos.size(), carrinhoDTO.getProdutos().size());
+        assertEquals(1, estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void listarTodosCarrinhosNaoDependeDaQuantidadeDeCarrinhos() {
+        for (int i = 0; i < 10; i++) {
+            criarCarrinhoComItens();
+        }
+
+        estatisticas.clear();
+        List<CarrinhoDTO> carrinhos = carrinhoService.listarTodosCarrinhos();
+
+        assertEquals(10, carrinhos.size());
+        // Uma consulta para os IDs do lote e outra para carrinhos, itens e produtos.
+        assertEquals(2, estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void visaoResumoNaoCarregaEntidades() {
+        Carrinho carrinho = criarCarrinhoComItens();
+        criarCarrinhoComItens();
+
+        estatisticas.clear();
+        CarrinhoResumoDTO resumo = carrinhoService.buscarResumoCarrinhoPorId(carrinho.getIdCarrinho());
+        List<CarrinhoResumoDTO> resumos = carrinhoService.listarResumosCarrinhos();
+
+        assertEquals(produtos.size(), resumo.getQuantidadeItens());
+        assertEquals(produtos.size(), resumo.getItens().size());
+        assertEquals("Produto 0", resumo.getItens().get(0).getNomeProduto());
+        assertEquals(0, new BigDecimal("50.00").compareTo(resumo.getValorTotalCarrinho()));
+        assertEquals(2, resumos.size());
+        assertNull(resumos.get(0).getItens());
+        assertEquals(0, estatisticas.getEntityLoadCount());
+        // Resumo + itens do carrinho buscado, e um lote da listagem
+        assertEquals(3, estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void aplicarOperacoesAtualizaOCarrinhoDeUmaVez() {
+        CarrinhoDTO carrinho = carrinhoService.cadastrarCarrinho();
+
+        CarrinhoDTO atualizado = carrinhoService.aplicarOperacoes(carrinho.getIdCarrinho(), List.of(
+                operacao(OperacaoCarrinhoDTO.TipoOperacao.ADICIONAR, produtos.get(0), 2),
+                operacao(OperacaoCarrinhoDTO.TipoOperacao.ADICIONAR, produtos.get(1), 1),
+                operacao(OperacaoCarrinhoDTO.TipoOperacao.ADICIONAR, produtos.get(0), 1),
+                operacao(OperacaoCarrinhoDTO.TipoOperacao.DEFINIR_QUANTIDADE, produtos.get(2), 4),
+                operacao(OperacaoCarrinhoDTO.TipoOperacao.REMOVER, produtos.get(1), 0)));
+
+        assertEquals(2, atualizado.getProdutos().size());
+        assertEquals(0, new BigDecimal("70.00").compareTo(atualizado.getValorTotalCarrinho()));
+    }
+
+    @Test
+    void removerProdutoQueNaoEstaNoCarrinhoFalhaSemAlterarNada() {
+        CarrinhoDTO carrinho = carrinhoService.aplicarOperacoes(carrinhoService.cadastrarCarrinho().getIdCarrinho(),
+                List.of(operacao(OperacaoCarrinhoDTO.TipoOperacao.ADICIONAR, produtos.get(0), 1)));
+
+        ProdutoForaDoCarrinhoException erro = assertThrows(ProdutoForaDoCarrinhoException.class,
+                () -> carrinhoService.aplicarOperacoes(carrinho.getIdCarrinho(), List.of(
+                        operacao(OperacaoCarrinhoDTO.TipoOperacao.ADICIONAR, produtos.get(2), 1),
+                        operacao(OperacaoCarrinhoDTO.TipoOperacao.REMOVER, produtos.get(1), 0))));
+
+        assertEquals("Produto " + produtos.get(1).getIdProduto() + " não está no carrinho.", erro.getMessage());
+        assertEquals(1, carrinhoService.buscarCarrinhoPorId(carrinho.getIdCarrinho()).getProdutos().size());
+    }
+
+    @Test
+    void totalMantidoPorDiferencaAcompanhaAdicoesERemocoes() {
+        Long idCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+        long versaoInicial = carrinhoRepository.findById(idCarrinho).orElseThrow().getVersao();
+
+        assertTotal(new BigDecimal("20.00"), carrinhoService.adicionarProduto(idCarrinho, produtos.get(0).getIdProduto(), 2));
+        assertTotal(new BigDecimal("50.00"), carrinhoService.adicionarProduto(idCarrinho, produtos.get(1).getIdProduto(), 3));
+        CarrinhoDTO carrinho = carrinhoService.adicionarProduto(idCarrinho, produtos.get(0).getIdProduto(), 1);
+        assertTotal(new BigDecimal("60.00"), carrinho);
+
+        Long idItem = carrinho.getProdutos().stream()
+                .filter(item -> item.getProdutoDTO().getIdProduto().equals(produtos.get(1).getIdProduto()))
+                .findFirst()
+                .orElseThrow()
+                .getIdProdutoCarrinho();
+        assertTotal(new BigDecimal("30.00"), carrinhoService.removerProduto(idCarrinho, idItem));
+
+        // Cada diferença somada avança a versão, e o total gravado continua igual à soma dos itens
+        Carrinho gravado = carrinhoRepository.findById(idCarrinho).orElseThrow();
+        assertEquals(versaoInicial + 4, gravado.getVersao());
+        assertEquals(0, new BigDecimal("30.00").compareTo(gravado.getValorTotalCarrinho()));
+        // Nada a corrigir: a conferência não toca no carrinho
+        reconciliacaoCarrinhoJob.reconciliarTotais();
+        assertEquals(versaoInicial + 4, carrinhoRepository.findById(idCarrinho).orElseThrow().getVersao());
+    }
+
+    @Test
+    void reconciliacaoCorrigeApenasTotaisDivergentesDeCarrinhosAbertos() {
+        Long correto = criarCarrinhoComItens().getIdCarrinho();
+        Long divergente = criarCarrinhoComItens().getIdCarrinho();
+        Long finalizado = criarCarrinhoComItens().getIdCarrinho();
+        jdbcTemplate.update("update carrinhos set valor_total_carrinho = 999 where id_carrinho in (?, ?)", divergente, finalizado);
+        jdbcTemplate.update("update carrinhos set finalizado = true where id_carrinho = ?", finalizado);
+        long versaoCorreto = carrinhoRepository.findById(correto).orElseThrow().getVersao();
+        long versaoDivergente = carrinhoRepository.findById(divergente).orElseThrow().getVersao();
+
+        // Um carrinho por lote: cada um é bloqueado e conferido em uma transação
+        assertEquals(1, carrinhoService.reconciliarTotais(1));
+
+        assertEquals(0, new BigDecimal("50.00").compareTo(carrinhoRepository.findById(divergente).orElseThrow().getValorTotalCarrinho()));
+        assertEquals(versaoDivergente + 1, carrinhoRepository.findById(divergente).orElseThrow().getVersao());
+        assertEquals(versaoCorreto, carrinhoRepository.findById(correto).orElseThrow().getVersao());
+        // Carrinho finalizado guarda o total da compra: a conferência não mexe nele
+        assertEquals(0, new BigDecimal("999").compareTo(carrinhoRepository.findById(finalizado).orElseThrow().getValorTotalCarrinho()));
+    }
+
+    private void assertTotal(BigDecimal esperado, CarrinhoDTO carrinho) {
+        assertEquals(0, esperado.compareTo(carrinho.getValorTotalCarrinho()));
+        BigDecimal somaItens = carrinho.getProdutos().stream()
+                .map(ProdutoCarrinhoDTO::getPrecoTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, esperado.compareTo(somaItens));
+    }
+
+    private OperacaoCarrinhoDTO operacao(OperacaoCarrinhoDTO.TipoOperacao tipo, Produto produto, int quantidade) {
+        return OperacaoCarrinhoDTO.builder()
+                .tipo(tipo)
+                .idProduto(produto.getIdProduto())
+                .quantidade(quantidade)
+                .build();
+    }
+
+    private Carrinho criarCarrinhoComItens() {
+        Carrinho carrinho = Carrinho.builder()
+                .produtos(new ArrayList<>())
+                .valorTotalCarrinho(BigDecimal.ZERO)
+                .build();
+
+        for (Produto produto : produtos) {
+            carrinho.getProdutos().add(ProdutoCarrinho.builder()
+                    .produto(produto)
+                    .carrinho(carrinho)
+                    .quantidade(1)
+                    .precoTotal(produto.getPrecoProduto())
+                    .build());
+        }
+        carrinho.setValorTotalCarrinho(carrinhoService.calcularValorTotalCarrinho(carrinho.getProdutos()));
+
+        return carrinhoRepository.save(carrinho);
+    }
+}
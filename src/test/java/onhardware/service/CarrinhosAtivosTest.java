@@ -0,0 +1,209 @@
+package onhardware.service;
+
+import onhardware.DTO.CarrinhoDTO;
+import onhardware.DTO.CheckoutDTO;
+import onhardware.DTO.ProdutoDTO;
+import onhardware.exception.CarrinhoException;
+import onhardware.model.Produto;
+import onhardware.repository.CarrinhoRepository;
+import onhardware.repository.CheckoutRepository;
+import onhardware.repository.ProdutoRepository;
+import onhardware.repository.ReservaEstoqueRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+
+// Camada de carrinhos ativos ligada, com espaço para dois carrinhos em memória
+@SpringBootTest(properties = {
+        "onhardware.carrinho-ativo.habilitado=true",
+        "onhardware.carrinho-ativo.maximo-carrinhos=2",
+        "onhardware.carrinho-ativo.segmentos=1"
+})
+class CarrinhosAtivosTest {
+
+    @Autowired
+    private CarrinhoService carrinhoService;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private ReprecificacaoService reprecificacaoService;
+
+    @MockitoSpyBean
+    private CarrinhosAtivos carrinhosAtivos;
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
+    @Autowired
+    private CheckoutRepository checkoutRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ReservaEstoqueRepository reservaEstoqueRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        produto = produtoRepository.save(Produto.builder()
+                .nomeProduto("Produto")
+                .marcaProduto("Marca")
+                .modeloProduto("Modelo ativo")
+                .especificacaoProduto("Especificação")
+                .precoProduto(new BigDecimal("10.00"))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        carrinhosAtivos.gravarPendentes();
+        jdbcTemplate.update("delete from estoque_fatias");
+        checkoutRepository.deleteAll();
+        reservaEstoqueRepository.deleteAll();
+        carrinhoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void acumulaAlteracoesEmMemoriaEGravaUmaVez() {
+        Long idCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+
+        carrinhoService.adicionarProduto(idCarrinho, produto.getIdProduto(), 1);
+        CarrinhoDTO carrinho = carrinhoService.adicionarProduto(idCarrinho, produto.getIdProduto(), 2);
+        assertEquals(3, carrinho.getProdutos().get(0).getQuantidade());
+        assertEquals(0, new BigDecimal("30.00").compareTo(carrinho.getValorTotalCarrinho()));
+
+        // Nada no banco até a gravação
+        assertEquals(0, quantidadeNoBanco(idCarrinho));
+        assertEquals(0, versao(idCarrinho));
+
+        assertEquals(1, carrinhosAtivos.gravarPendentes());
+        assertEquals(3, quantidadeNoBanco(idCarrinho));
+        assertEquals(0, new BigDecimal("30.00").compareTo(totalNoBanco(idCarrinho)));
+        // Um único UPDATE no total do carrinho para as duas adições
+        assertEquals(1, versao(idCarrinho));
+
+        // O item nasce em memória com o ID definitivo
+        Long idItem = carrinho.getProdutos().get(0).getIdProdutoCarrinho();
+        assertEquals(idItem, jdbcTemplate.queryForObject(
+                "select id_produto_carrinho from produtos_carrinho where carrinho_id_carrinho = ?", Long.class, idCarrinho));
+    }
+
+    @Test
+    void itemAdicionadoERemovidoAntesDaGravacaoNaoVaiAoBanco() {
+        Long idCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+
+        CarrinhoDTO carrinho = carrinhoService.adicionarProduto(idCarrinho, produto.getIdProduto(), 2);
+        carrinho = carrinhoService.removerProduto(idCarrinho, carrinho.getProdutos().get(0).getIdProdutoCarrinho());
+        assertEquals(0, carrinho.getProdutos().size());
+
+        carrinhosAtivos.gravarPendentes();
+        assertEquals(0, versao(idCarrinho));
+        assertEquals(0, quantidadeNoBanco(idCarrinho));
+    }
+
+    @Test
+    void carrinhoRetiradoDaMemoriaVoltaComAsAlteracoesPendentes() {
+        Long primeiro = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+        carrinhoService.adicionarProduto(primeiro, produto.getIdProduto(), 1);
+
+        // Mais dois carrinhos: o primeiro sai da memória sem ter sido gravado
+        for (int i = 0; i < 2; i++) {
+            Long outro = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+            carrinhoService.adicionarProduto(outro, produto.getIdProduto(), 1);
+        }
+
+        CarrinhoDTO carrinho = carrinhoService.adicionarProduto(primeiro, produto.getIdProduto(), 1);
+        assertEquals(2, carrinho.getProdutos().get(0).getQuantidade());
+
+        carrinhosAtivos.gravarPendentes();
+        assertEquals(2, quantidadeNoBanco(primeiro));
+        assertEquals(0, new BigDecimal("20.00").compareTo(totalNoBanco(primeiro)));
+    }
+
+    @Test
+    void finalizacaoGravaOCarrinhoAntesDeValidar() {
+        estoqueService.definirEstoque(produto.getIdProduto(), 10);
+        Long idCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+        carrinhoService.adicionarProduto(idCarrinho, produto.getIdProduto(), 4);
+
+        // Reserva de estoque continua síncrona
+        assertEquals(6, estoqueService.consultarEstoque(produto.getIdProduto()).getDisponivel());
+
+        CheckoutDTO checkout = checkoutService.solicitarCheckout(idCarrinho, "ativo-" + idCarrinho);
+        assertEquals(idCarrinho, checkout.getIdCarrinho());
+        assertEquals(4, quantidadeNoBanco(idCarrinho));
+        assertEquals(0, new BigDecimal("40.00").compareTo(totalNoBanco(idCarrinho)));
+    }
+
+    @Test
+    void reservaVoltaAoEstoqueQuandoOCarrinhoNaoPodeSerAlterado() {
+        estoqueService.definirEstoque(produto.getIdProduto(), 10);
+        Long idCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+
+        // Carrinho excluído por outro caminho entre a reserva e a alteração em memória
+        doThrow(new CarrinhoException(idCarrinho)).when(carrinhosAtivos).adicionar(eq(idCarrinho), any(), anyInt());
+
+        assertThrows(CarrinhoException.class, () -> carrinhoService.adicionarProduto(idCarrinho, produto.getIdProduto(), 4));
+        assertEquals(10, estoqueService.consultarEstoque(produto.getIdProduto()).getDisponivel());
+        assertEquals(0, reservaEstoqueRepository.count());
+    }
+
+    @Test
+    void reprecificacaoDescarregaOCarrinhoEmMemoria() {
+        Long idCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+        carrinhoService.adicionarProduto(idCarrinho, produto.getIdProduto(), 1);
+        carrinhosAtivos.gravarPendentes();
+
+        ProdutoDTO alterado = produtoService.buscarProdutoPorId(produto.getIdProduto());
+        alterado.setPrecoProduto(new BigDecimal("12.50"));
+        produtoService.atualizarProdutoPorId(produto.getIdProduto(), alterado);
+        assertEquals(1, reprecificacaoService.reprecificarPendentes(10, 10));
+
+        // A cópia em memória saiu: a próxima adição parte do total reprecificado, não do antigo
+        CarrinhoDTO carrinho = carrinhoService.adicionarProduto(idCarrinho, produto.getIdProduto(), 1);
+        assertEquals(0, new BigDecimal("25.00").compareTo(carrinho.getValorTotalCarrinho()));
+        carrinhosAtivos.gravarPendentes();
+        assertEquals(0, new BigDecimal("25.00").compareTo(totalNoBanco(idCarrinho)));
+    }
+
+    private int quantidadeNoBanco(Long idCarrinho) {
+        return jdbcTemplate.queryForObject(
+                "select coalesce(sum(quantidade), 0) from produtos_carrinho where carrinho_id_carrinho = ?", Integer.class, idCarrinho);
+    }
+
+    private BigDecimal totalNoBanco(Long idCarrinho) {
+        return jdbcTemplate.queryForObject(
+                "select valor_total_carrinho from carrinhos where id_carrinho = ?", BigDecimal.class, idCarrinho);
+    }
+
+    private long versao(Long idCarrinho) {
+        return jdbcTemplate.queryForObject("select versao from carrinhos where id_carrinho = ?", Long.class, idCarrinho);
+    }
+}
@@ -0,0 +1,163 @@
+package onhardware.service;
+
+import onhardware.DTO.CheckoutDTO;
+import onhardware.exception.CheckoutException;
+import onhardware.job.ProcessamentoCheckoutJob;
+import onhardware.model.Carrinho;
+import onhardware.model.Pedido;
+import onhardware.model.Produto;
+import onhardware.model.ProdutoCarrinho;
+import onhardware.model.StatusCheckout;
+import onhardware.repository.CarrinhoRepository;
+import onhardware.repository.CheckoutRepository;
+import onhardware.repository.PedidoRepository;
+import onhardware.repository.ProdutoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class CheckoutServiceTest {
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private CarrinhoService carrinhoService;
+
+    @Autowired
+    private ProcessamentoCheckoutJob processamentoCheckoutJob;
+
+    @Autowired
+    private CheckoutRepository checkoutRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        produto = produtoRepository.save(Produto.builder()
+                .nomeProduto("Produto")
+                .marcaProduto("Marca")
+                .modeloProduto("Modelo checkout")
+                .especificacaoProduto("Especificação")
+                .precoProduto(new BigDecimal("10.00"))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        checkoutRepository.deleteAll();
+        pedidoRepository.deleteAll();
+        carrinhoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void finalizacaoEnfileiradaEProcessadaComPrecoAtual() {
+        Long idCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+        carrinhoService.adicionarProduto(idCarrinho, produto.getIdProduto(), 3);
+
+        // Preço alterado depois de o produto entrar no carrinho
+        produto.setPrecoProduto(new BigDecimal("12.00"));
+        produto = produtoRepository.save(produto);
+
+        CheckoutDTO solicitado = checkoutService.solicitarCheckout(idCarrinho, null);
+        assertEquals(StatusCheckout.PENDENTE, solicitado.getStatus());
+        // Pedido repetido: mesma finalização, nada novo na fila
+        assertEquals(solicitado.getIdCheckout(), checkoutService.solicitarCheckout(idCarrinho, null).getIdCheckout());
+        assertEquals(solicitado.getIdCheckout(), checkoutService.solicitarCheckout(idCarrinho, "outra-chave").getIdCheckout());
+        assertEquals(1, checkoutRepository.count());
+
+        processamentoCheckoutJob.processarFila();
+
+        CheckoutDTO concluido = checkoutService.buscarCheckoutPorId(solicitado.getIdCheckout());
+        assertEquals(StatusCheckout.CONCLUIDO, concluido.getStatus());
+        assertEquals("1 item(ns) com preço atualizado.", concluido.getMensagem());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Pedido pedido = pedidoRepository.findById(concluido.getIdPedido()).orElseThrow();
+            assertEquals(0, new BigDecimal("36.00").compareTo(pedido.getValorTotalPedido()));
+            assertEquals(1, pedido.getItens().size());
+            assertEquals(0, new BigDecimal("12.00").compareTo(pedido.getItens().get(0).getPrecoUnitario()));
+
+            Carrinho carrinho = carrinhoRepository.findById(idCarrinho).orElseThrow();
+            assertTrue(carrinho.isFinalizado());
+            assertEquals(0, new BigDecimal("36.00").compareTo(carrinho.getValorTotalCarrinho()));
+        });
+
+        // Nova execução da fila não processa de novo
+        processamentoCheckoutJob.processarFila();
+        assertEquals(1, pedidoRepository.count());
+    }
+
+    @Test
+    void carrinhoAlteradoDepoisDaSolicitacaoFalha() {
+        Long idCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+        carrinhoService.adicionarProduto(idCarrinho, produto.getIdProduto(), 1);
+
+        CheckoutDTO solicitado = checkoutService.solicitarCheckout(idCarrinho, "chave-1");
+        carrinhoService.adicionarProduto(idCarrinho, produto.getIdProduto(), 1);
+
+        processamentoCheckoutJob.processarFila();
+
+        CheckoutDTO falhou = checkoutService.buscarCheckoutPorId(solicitado.getIdCheckout());
+        assertEquals(StatusCheckout.FALHOU, falhou.getStatus());
+        assertEquals(0, pedidoRepository.count());
+
+        // Nova chave: o carrinho atual pode ser finalizado
+        CheckoutDTO novo = checkoutService.solicitarCheckout(idCarrinho, "chave-2");
+        processamentoCheckoutJob.processarFila();
+        assertEquals(StatusCheckout.CONCLUIDO, checkoutService.buscarCheckoutPorId(novo.getIdCheckout()).getStatus());
+    }
+
+    @Test
+    void finalizacaoQueFalhouSemAlterarOCarrinhoPodeSerPedidaDeNovo() {
+        Long idCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+        carrinhoService.adicionarProduto(idCarrinho, produto.getIdProduto(), 1);
+
+        // Falha definitiva (estoque, por exemplo) com o carrinho na mesma versão
+        CheckoutDTO solicitado = checkoutService.solicitarCheckout(idCarrinho, null);
+        transactionTemplate.executeWithoutResult(status ->
+                checkoutRepository.findById(solicitado.getIdCheckout()).orElseThrow().setStatus(StatusCheckout.FALHOU));
+
+        CheckoutDTO novo = checkoutService.solicitarCheckout(idCarrinho, null);
+        assertNotEquals(solicitado.getIdCheckout(), novo.getIdCheckout());
+        assertEquals(StatusCheckout.PENDENTE, novo.getStatus());
+        // O clique repetido continua caindo na nova tentativa
+        assertEquals(novo.getIdCheckout(), checkoutService.solicitarCheckout(idCarrinho, null).getIdCheckout());
+        assertEquals(2, checkoutRepository.count());
+
+        processamentoCheckoutJob.processarFila();
+        assertEquals(StatusCheckout.CONCLUIDO, checkoutService.buscarCheckoutPorId(novo.getIdCheckout()).getStatus());
+    }
+
+    @Test
+    void carrinhoVazioNaoEntraNaFila() {
+        Long idCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+
+        assertThrows(CheckoutException.class, () -> checkoutService.solicitarCheckout(idCarrinho, null));
+        assertEquals(0, checkoutRepository.count());
+    }
+}
@@ -0,0 +1,162 @@
+package onhardware.service;
+
+import onhardware.DTO.EstoqueDTO;
+import onhardware.DTO.OperacaoCarrinhoDTO;
+import onhardware.exception.EstoqueInsuficienteException;
+import onhardware.model.Produto;
+import onhardware.model.ReservaEstoque;
+import onhardware.repository.CarrinhoRepository;
+import onhardware.repository.EstoqueFatiaRepository;
+import onhardware.repository.ProdutoRepository;
+import onhardware.repository.ReservaEstoqueRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class EstoqueConcorrenciaTest {
+
+    private static final int ESTOQUE = 100;
+    private static final int THREADS = 16;
+    private static final int COMPRADORES_POR_THREAD = 25;
+
+    @Autowired
+    private CarrinhoService carrinhoService;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
+    @Autowired
+    private EstoqueFatiaRepository estoqueFatiaRepository;
+
+    @Autowired
+    private ReservaEstoqueRepository reservaEstoqueRepository;
+
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        produto = produtoRepository.save(Produto.builder()
+                .nomeProduto("Placa de vídeo (lançamento)")
+                .marcaProduto("Marca")
+                .modeloProduto("Modelo estoque")
+                .especificacaoProduto("Especificação")
+                .precoProduto(new BigDecimal("5000.00"))
+                .build());
+        estoqueService.definirEstoque(produto.getIdProduto(), ESTOQUE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservaEstoqueRepository.deleteAll();
+        estoqueFatiaRepository.deleteAll();
+        carrinhoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void produtoDisputadoNaoVendeAlemDoEstoque() throws Exception {
+        AtomicInteger reservados = new AtomicInteger();
+        AtomicInteger recusados = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                for (int i = 0; i < COMPRADORES_POR_THREAD; i++) {
+                    Long idCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+                    try {
+                        carrinhoService.adicionarProduto(idCarrinho, produto.getIdProduto(), 1);
+                        reservados.incrementAndGet();
+                    } catch (EstoqueInsuficienteException e) {
+                        recusados.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        EstoqueDTO estoque = estoqueService.consultarEstoque(produto.getIdProduto());
+        assertEquals(ESTOQUE, reservados.get());
+        assertEquals(THREADS * COMPRADORES_POR_THREAD - ESTOQUE, recusados.get());
+        assertEquals(0, estoque.getDisponivel());
+        assertEquals(ESTOQUE, estoque.getReservado());
+        assertTrue(estoqueFatiaRepository.findAll().stream().allMatch(fatia -> fatia.getDisponivel() >= 0));
+    }
+
+    @Test
+    void remocaoLoteEReservaVencidaDevolvemAoEstoque() {
+        Long idCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+        carrinhoService.adicionarProduto(idCarrinho, produto.getIdProduto(), 10);
+
+        // Lote: de 10 para 4 unidades
+        carrinhoService.aplicarOperacoes(idCarrinho, List.of(OperacaoCarrinhoDTO.builder()
+                .tipo(OperacaoCarrinhoDTO.TipoOperacao.DEFINIR_QUANTIDADE)
+                .idProduto(produto.getIdProduto())
+                .quantidade(4)
+                .build()));
+        assertEquals(ESTOQUE - 4, estoqueService.consultarEstoque(produto.getIdProduto()).getDisponivel());
+
+        // Pedido acima do disponível é recusado sem alterar o carrinho
+        assertThrows(EstoqueInsuficienteException.class,
+                () -> carrinhoService.adicionarProduto(idCarrinho, produto.getIdProduto(), ESTOQUE));
+        assertEquals(4, carrinhoService.buscarCarrinhoPorId(idCarrinho).getProdutos().get(0).getQuantidade());
+
+        ReservaEstoque reserva = reservaEstoqueRepository.findByIdCarrinhoAndIdProduto(idCarrinho, produto.getIdProduto()).orElseThrow();
+        reserva.setExpiraEm(LocalDateTime.now().minusMinutes(1));
+        reservaEstoqueRepository.save(reserva);
+
+        assertEquals(1, estoqueService.liberarReservasVencidas(100));
+        EstoqueDTO estoque = estoqueService.consultarEstoque(produto.getIdProduto());
+        assertEquals(ESTOQUE, estoque.getDisponivel());
+        assertEquals(0, estoque.getReservado());
+    }
+
+    @Test
+    void saldoEspalhadoEntreFatiasAtendeOPedidoEEsgotadoRecusa() {
+        Long idCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+
+        // Nenhuma fatia tem o estoque inteiro: junta o saldo de todas
+        carrinhoService.adicionarProduto(idCarrinho, produto.getIdProduto(), ESTOQUE);
+        assertEquals(0, estoqueService.consultarEstoque(produto.getIdProduto()).getDisponivel());
+        assertTrue(estoqueFatiaRepository.findAll().stream().allMatch(fatia -> fatia.getDisponivel() == 0));
+
+        // Esgotado: recusado pela soma das fatias
+        Long outroCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+        assertThrows(EstoqueInsuficienteException.class,
+                () -> carrinhoService.adicionarProduto(outroCarrinho, produto.getIdProduto(), 1));
+        assertEquals(ESTOQUE, estoqueService.consultarEstoque(produto.getIdProduto()).getReservado());
+    }
+}
@@ -0,0 +1,140 @@
+package onhardware.service;
+
+import onhardware.DTO.ResultadoImportacaoDTO;
+import onhardware.model.Produto;
+import onhardware.repository.ProdutoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Lotes de 2 produtos: poucos registros já passam por várias transações
+@SpringBootTest(properties = "onhardware.importacao.tamanho-lote=2")
+class ImportacaoProdutoServiceTest {
+
+    private static final String CABECALHO = "nomeProduto,marcaProduto,modeloProduto,especificacaoProduto,precoProduto\n";
+
+    @Autowired
+    private ImportacaoProdutoService importacaoProdutoService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @AfterEach
+    void tearDown() {
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void criaAtualizaERelataLinhasComErro() {
+        produtoRepository.save(Produto.builder()
+                .nomeProduto("Antigo")
+                .marcaProduto("Marca")
+                .modeloProduto("M1")
+                .especificacaoProduto("Spec")
+                .precoProduto(new BigDecimal("10.00"))
+                .build());
+
+        ResultadoImportacaoDTO resultado = importarCsv(CABECALHO
+                + "Atualizado,Marca,M1,Spec,12.00\n"
+                + "Novo,Marca,M2,\"Duas\nlinhas, com vírgula\",5.00\n"
+                + "Sem preço,Marca,M3,Spec,\n"
+                + "\n"
+                + "Preço inválido,Marca,M4,Spec,abc\n"
+                + "Terceiro,Marca,M5,Spec,7.00\n");
+
+        assertFalse(resultado.isInterrompida());
+        assertEquals(5, resultado.getLinhasLidas());
+        assertEquals(2, resultado.getProdutosCriados());
+        assertEquals(1, resultado.getProdutosAtualizados());
+        assertEquals(2, resultado.getLinhasComErro());
+        // Linhas do arquivo, contando o cabeçalho e a quebra dentro das aspas
+        assertEquals(5, resultado.getErros().get(0).getLinha());
+        assertEquals("O preço do produto é obrigatório.", resultado.getErros().get(0).getMensagem());
+        assertEquals(7, resultado.getErros().get(1).getLinha());
+        assertEquals("Linha mal formatada.", resultado.getErros().get(1).getMensagem());
+        assertEquals(8, resultado.getUltimaLinhaGravada());
+
+        Map<String, Produto> produtos = produtosPorModelo();
+        assertEquals(3, produtos.size());
+        assertEquals("Atualizado", produtos.get("M1").getNomeProduto());
+        assertEquals(0, new BigDecimal("12.00").compareTo(produtos.get("M1").getPrecoProduto()));
+        assertTrue(produtos.get("M1").isReprecificacaoPendente());
+        assertEquals("Duas\nlinhas, com vírgula", produtos.get("M2").getEspecificacaoProduto());
+    }
+
+    @Test
+    void mesmaMarcaEModeloNoLoteGravaAUltimaOcorrencia() {
+        ResultadoImportacaoDTO resultado = importarNdjson(
+                "{\"nomeProduto\":\"Primeiro\",\"marcaProduto\":\"Marca\",\"modeloProduto\":\"M1\",\"especificacaoProduto\":\"Spec\",\"precoProduto\":1.00}\n"
+                        + "{\"nomeProduto\":\"Segundo\",\"marcaProduto\":\"Marca\",\"modeloProduto\":\"M1\",\"especificacaoProduto\":\"Spec\",\"precoProduto\":2.00}\n"
+                        + "{\"nomeProduto\":\"Outra marca\",\"marcaProduto\":\"Outra\",\"modeloProduto\":\"M1\",\"especificacaoProduto\":\"Spec\",\"precoProduto\":3.00}\n"
+                        + "{mal formatada\n"
+                        + "null\n");
+
+        assertEquals(5, resultado.getLinhasLidas());
+        assertEquals(2, resultado.getProdutosCriados());
+        assertEquals(0, resultado.getProdutosAtualizados());
+        assertEquals(2, resultado.getLinhasComErro());
+        assertEquals(4, resultado.getErros().get(0).getLinha());
+        assertEquals(5, resultado.getErros().get(1).getLinha());
+        assertEquals("Linha mal formatada.", resultado.getErros().get(1).getMensagem());
+
+        assertEquals(2, produtoRepository.count());
+        Produto produto = produtoRepository.findByModeloProdutoIn(List.of("M1")).stream()
+                .filter(p -> p.getMarcaProduto().equals("Marca"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("Segundo", produto.getNomeProduto());
+        assertEquals(0, new BigDecimal("2.00").compareTo(produto.getPrecoProduto()));
+    }
+
+    @Test
+    void falhaNaGravacaoDeUmLoteDevolveOQueJaFoiGravado() {
+        // Passa na validação do DTO, mas não cabe na coluna do nome: o banco recusa o segundo lote
+        String nomeLongo = "N".repeat(300);
+
+        ResultadoImportacaoDTO resultado = importarCsv(CABECALHO
+                + "P1,Marca,M1,Spec,1.00\n"
+                + "P2,Marca,M2,Spec,2.00\n"
+                + "P3,Marca,M3,Spec,3.00\n"
+                + nomeLongo + ",Marca,M4,Spec,4.00\n"
+                + "P5,Marca,M5,Spec,5.00\n");
+
+        assertTrue(resultado.isInterrompida());
+        assertEquals(2, resultado.getProdutosCriados());
+        assertEquals(3, resultado.getUltimaLinhaGravada());
+        assertEquals("Falha ao gravar o lote das linhas 4 a 5. Reenvie o arquivo a partir da linha 4.",
+                resultado.getMotivoInterrupcao());
+        assertEquals(Map.of("M1", "P1", "M2", "P2"), produtosPorModelo().values().stream()
+                .collect(Collectors.toMap(Produto::getModeloProduto, Produto::getNomeProduto)));
+    }
+
+    private ResultadoImportacaoDTO importarCsv(String conteudo) {
+        return importacaoProdutoService.importar(new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8)),
+                ImportacaoProdutoService.TEXT_CSV);
+    }
+
+    private ResultadoImportacaoDTO importarNdjson(String conteudo) {
+        return importacaoProdutoService.importar(new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8)),
+                MediaType.APPLICATION_NDJSON);
+    }
+
+    private Map<String, Produto> produtosPorModelo() {
+        return produtoRepository.findAll().stream()
+                .collect(Collectors.toMap(Produto::getModeloProduto, Function.identity()));
+    }
+}
@@ -0,0 +1,47 @@
+package onhardware.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LeitorCsvTest {
+
+    @Test
+    void campoEntreAspasComQuebraDeLinhaFicaNoMesmoRegistro() throws Exception {
+        LeitorCsv leitor = new LeitorCsv(new BufferedReader(new StringReader(
+                "a,b\r\n"
+                        + "\"primeira\r\nsegunda\",x\n"
+                        + "\"com \"\"aspas\"\", e vírgula\",\"\"\"\n\"\"\"\n"
+                        + "ultimo,y")));
+
+        assertEquals(List.of("a", "b"), LeitorCsv.separarColunas(leitor.proximoRegistro()));
+        assertEquals(1, leitor.linhaInicial());
+
+        assertEquals(List.of("primeira\nsegunda", "x"), LeitorCsv.separarColunas(leitor.proximoRegistro()));
+        assertEquals(2, leitor.linhaInicial());
+        assertEquals(3, leitor.linhasLidas());
+
+        assertEquals(List.of("com \"aspas\", e vírgula", "\"\n\""), LeitorCsv.separarColunas(leitor.proximoRegistro()));
+        assertEquals(4, leitor.linhaInicial());
+
+        assertEquals(List.of("ultimo", "y"), LeitorCsv.separarColunas(leitor.proximoRegistro()));
+        assertEquals(6, leitor.linhaInicial());
+        assertNull(leitor.proximoRegistro());
+    }
+
+    @Test
+    void aspasSemFechamentoConsomemOArquivoESaoRecusadas() throws Exception {
+        LeitorCsv leitor = new LeitorCsv(new BufferedReader(new StringReader("\"aberto,x\nresto,y\n")));
+
+        String registro = leitor.proximoRegistro();
+        assertEquals("\"aberto,x\nresto,y", registro);
+        assertThrows(IllegalArgumentException.class, () -> LeitorCsv.separarColunas(registro));
+        assertNull(leitor.proximoRegistro());
+    }
+}
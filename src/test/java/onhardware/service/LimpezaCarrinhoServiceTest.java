@@ -0,0 +1,144 @@
+package onhardware.service;
+
+import onhardware.model.CarrinhoArquivado;
+import onhardware.model.Produto;
+import onhardware.model.ProdutoCarrinhoArquivado;
+import onhardware.model.ReservaEstoque;
+import onhardware.repository.CarrinhoArquivadoRepository;
+import onhardware.repository.CarrinhoRepository;
+import onhardware.repository.ProdutoRepository;
+import onhardware.repository.ReservaEstoqueRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class LimpezaCarrinhoServiceTest {
+
+    @Autowired
+    private LimpezaCarrinhoService limpezaCarrinhoService;
+
+    @Autowired
+    private CarrinhoService carrinhoService;
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
+    @Autowired
+    private CarrinhoArquivadoRepository carrinhoArquivadoRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ReservaEstoqueRepository reservaEstoqueRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Produto produto;
+
+    @BeforeEach
+    void setUp() {
+        produto = produtoRepository.save(Produto.builder()
+                .nomeProduto("Produto")
+                .marcaProduto("Marca")
+                .modeloProduto("Modelo limpeza")
+                .especificacaoProduto("Especificação")
+                .precoProduto(new BigDecimal("10.00"))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from produtos_carrinho_arquivados");
+        carrinhoArquivadoRepository.deleteAll();
+        reservaEstoqueRepository.deleteAll();
+        carrinhoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void apagaSoCarrinhosAbertosAbandonados() {
+        Long abandonado = carrinhoComItem();
+        Long emUso = carrinhoComItem();
+        Long abandonadoComReserva = carrinhoComItem();
+        envelhecer(abandonado, 40);
+        envelhecer(abandonadoComReserva, 40);
+        reservaEstoqueRepository.save(ReservaEstoque.builder()
+                .idCarrinho(abandonadoComReserva)
+                .idProduto(produto.getIdProduto())
+                .quantidade(1)
+                .expiraEm(LocalDateTime.now().plusMinutes(5))
+                .build());
+
+        assertEquals(1, limpezaCarrinhoService.apagarAbandonados(10));
+        assertEquals(0, limpezaCarrinhoService.apagarAbandonados(10));
+
+        assertFalse(carrinhoRepository.existsById(abandonado));
+        assertTrue(carrinhoRepository.existsById(emUso));
+        assertTrue(carrinhoRepository.existsById(abandonadoComReserva));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from produtos_carrinho where carrinho_id_carrinho = ?", Integer.class, abandonado));
+    }
+
+    @Test
+    void arquivaFinalizadosAntigosEmLotes() {
+        Long antigo1 = carrinhoComItem();
+        Long antigo2 = carrinhoComItem();
+        Long recente = carrinhoComItem();
+        for (Long id : List.of(antigo1, antigo2)) {
+            finalizar(id, 120);
+        }
+        finalizar(recente, 1);
+
+        // Lote de 1: cada chamada arquiva um carrinho
+        assertEquals(1, limpezaCarrinhoService.arquivarFinalizados(1));
+        assertEquals(1, limpezaCarrinhoService.arquivarFinalizados(1));
+        assertEquals(0, limpezaCarrinhoService.arquivarFinalizados(1));
+
+        assertFalse(carrinhoRepository.existsById(antigo1));
+        assertFalse(carrinhoRepository.existsById(antigo2));
+        assertTrue(carrinhoRepository.existsById(recente));
+
+        CarrinhoArquivado arquivado = carrinhoArquivadoRepository.findById(antigo1).orElseThrow();
+        assertEquals(0, new BigDecimal("20.00").compareTo(arquivado.getValorTotalCarrinho()));
+        ProdutoCarrinhoArquivado item = jdbcTemplate.queryForObject(
+                "select id_produto, quantidade from produtos_carrinho_arquivados where id_carrinho = ?",
+                (rs, linha) -> ProdutoCarrinhoArquivado.builder().idProduto(rs.getLong(1)).quantidade(rs.getInt(2)).build(),
+                antigo1);
+        assertEquals(produto.getIdProduto(), item.getIdProduto());
+        assertEquals(2, item.getQuantidade());
+    }
+
+    private Long carrinhoComItem() {
+        Long idCarrinho = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+        carrinhoService.adicionarProduto(idCarrinho, produto.getIdProduto(), 2);
+        return idCarrinho;
+    }
+
+    // Carrinho criado e alterado pela última vez há alguns dias
+    private void envelhecer(Long idCarrinho, int dias) {
+        LocalDateTime data = LocalDateTime.now().minusDays(dias);
+        jdbcTemplate.update("update produtos_carrinho set data_registro_carrinho = ? where carrinho_id_carrinho = ?", data, idCarrinho);
+        jdbcTemplate.update("update carrinhos set data_registro_carrinho = ?, data_atualizacao_carrinho = ? where id_carrinho = ?",
+                data, data, idCarrinho);
+    }
+
+    private void finalizar(Long idCarrinho, int diasAtras) {
+        envelhecer(idCarrinho, diasAtras);
+        jdbcTemplate.update("update carrinhos set finalizado = true, data_compra_finalizada = ? where id_carrinho = ?",
+                LocalDateTime.now().minusDays(diasAtras), idCarrinho);
+    }
+}
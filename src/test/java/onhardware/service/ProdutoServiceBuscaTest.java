@@ -0,0 +1,116 @@
+package onhardware.service;
+
+import onhardware.DTO.CandidatoBuscaDTO;
+import onhardware.DTO.FiltroBuscaProdutoDTO;
+import onhardware.DTO.ResultadoBuscaProdutoDTO;
+import onhardware.model.Produto;
+import onhardware.repository.ProdutoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// As consultas da busca são específicas do PostgreSQL; aqui é testada a montagem do resultado no serviço.
+class ProdutoServiceBuscaTest {
+
+    private ProdutoRepository produtoRepository;
+    private ProdutoService produtoService;
+
+    @BeforeEach
+    void setUp() {
+        produtoRepository = mock(ProdutoRepository.class);
+        produtoService = new ProdutoService();
+        ReflectionTestUtils.setField(produtoService, "produtoRepository", produtoRepository);
+
+        when(produtoRepository.findAllById(any())).thenAnswer(invocacao -> {
+            List<Produto> produtos = new ArrayList<>();
+            for (Long id : invocacao.<Iterable<Long>>getArgument(0)) {
+                produtos.add(Produto.builder()
+                        .idProduto(id)
+                        .nomeProduto("Produto " + id)
+                        .marcaProduto("Marca")
+                        .modeloProduto("Modelo " + id)
+                        .especificacaoProduto("Especificação")
+                        .precoProduto(BigDecimal.TEN)
+                        .build());
+            }
+            return produtos;
+        });
+    }
+
+    @Test
+    void mantemAOrdemDeRelevanciaEFiltraMarcaSemAfetarAsFacetas() {
+        // O repositório devolve os candidatos do mais relevante ao menos
+        when(produtoRepository.buscarCandidatos(any(), eq(false), anyInt())).thenReturn(List.of(
+                candidato(2L, "MSI", 0.9),
+                candidato(3L, "Asus", 0.5),
+                candidato(4L, "Asus", 0.5),
+                candidato(1L, "Asus", 0.1)));
+
+        FiltroBuscaProdutoDTO filtro = FiltroBuscaProdutoDTO.builder().termo("rtx").marcas(List.of("Asus")).build();
+        ResultadoBuscaProdutoDTO resultado = produtoService.buscarProdutos(filtro, 0, 2);
+
+        assertEquals(3, resultado.getTotalProdutos());
+        assertTrue(resultado.isTotalExato());
+        assertEquals(List.of(3L, 4L), resultado.getProdutos().stream().map(p -> p.getIdProduto()).toList());
+        assertEquals("Asus", resultado.getFacetasMarca().get(0).getValor());
+        assertEquals(3, resultado.getFacetasMarca().get(0).getQuantidade());
+        assertEquals("MSI", resultado.getFacetasMarca().get(1).getValor());
+        verify(produtoRepository, never()).buscarCandidatos(any(), eq(true), anyInt());
+    }
+
+    @Test
+    void corrigeOTermoQuandoNadaEEncontrado() {
+        when(produtoRepository.buscarCandidatos(argThat(filtro -> filtro != null && "gefroce 4090".equals(filtro.getTermo())), eq(false), anyInt()))
+                .thenReturn(List.of());
+        when(produtoRepository.buscarPalavraSemelhante("gefroce")).thenReturn(Optional.of("geforce"));
+        when(produtoRepository.buscarCandidatos(argThat(filtro -> filtro != null && "geforce 4090".equals(filtro.getTermo())), eq(false), anyInt()))
+                .thenReturn(List.of(candidato(7L, "Asus", 0.3)));
+
+        FiltroBuscaProdutoDTO filtro = FiltroBuscaProdutoDTO.builder().termo("gefroce 4090").build();
+        ResultadoBuscaProdutoDTO resultado = produtoService.buscarProdutos(filtro, 0, 20);
+
+        assertEquals("geforce 4090", resultado.getTermoCorrigido());
+        // A correção vai em uma cópia: o filtro de quem chamou não muda
+        assertEquals("gefroce 4090", filtro.getTermo());
+        assertEquals(1, resultado.getTotalProdutos());
+        assertEquals(7L, resultado.getProdutos().get(0).getIdProduto());
+        // Números (ex.: modelo) não são corrigidos
+        verify(produtoRepository, never()).buscarPalavraSemelhante("4090");
+    }
+
+    @Test
+    void indicaTotalAproximadoQuandoPassaDoLimite() {
+        List<CandidatoBuscaDTO> candidatos = new ArrayList<>();
+        for (long id = 1; id <= ProdutoService.LIMITE_CANDIDATOS_BUSCA + 1; id++) {
+            candidatos.add(candidato(id, "Asus", 0.1));
+        }
+        when(produtoRepository.buscarCandidatos(any(), eq(false), anyInt())).thenReturn(candidatos);
+
+        ResultadoBuscaProdutoDTO resultado = produtoService.buscarProdutos(FiltroBuscaProdutoDTO.builder().termo("placa").build(), 0, 20);
+
+        assertFalse(resultado.isTotalExato());
+        assertEquals(ProdutoService.LIMITE_CANDIDATOS_BUSCA, resultado.getTotalProdutos());
+        assertEquals(20, resultado.getProdutos().size());
+    }
+
+    private CandidatoBuscaDTO candidato(Long id, String marca, double relevancia) {
+        return CandidatoBuscaDTO.builder().idProduto(id).marcaProduto(marca).relevancia(relevancia).build();
+    }
+}
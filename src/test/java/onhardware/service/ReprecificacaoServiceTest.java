@@ -0,0 +1,105 @@
+package onhardware.service;
+
+import onhardware.DTO.ProdutoDTO;
+import onhardware.repository.CarrinhoRepository;
+import onhardware.repository.ProdutoRepository;
+import onhardware.repository.ReservaEstoqueRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ReprecificacaoServiceTest {
+
+    @Autowired
+    private ReprecificacaoService reprecificacaoService;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private CarrinhoService carrinhoService;
+
+    @Autowired
+    private CarrinhoRepository carrinhoRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ReservaEstoqueRepository reservaEstoqueRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        reservaEstoqueRepository.deleteAll();
+        carrinhoRepository.deleteAll();
+        produtoRepository.deleteAll();
+    }
+
+    @Test
+    void levaOPrecoNovoAosCarrinhosAbertosEmLotes() {
+        ProdutoDTO alterado = cadastrarProduto("Alterado", "10.00");
+        ProdutoDTO mantido = cadastrarProduto("Mantido", "5.00");
+
+        Long aberto1 = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+        Long aberto2 = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+        Long finalizado = carrinhoService.cadastrarCarrinho().getIdCarrinho();
+        for (Long idCarrinho : new Long[]{aberto1, aberto2, finalizado}) {
+            carrinhoService.adicionarProduto(idCarrinho, alterado.getIdProduto(), 2);
+            carrinhoService.adicionarProduto(idCarrinho, mantido.getIdProduto(), 1);
+        }
+        jdbcTemplate.update("update carrinhos set finalizado = true where id_carrinho = ?", finalizado);
+        long versaoAntes = versao(aberto1);
+
+        alterado.setPrecoProduto(new BigDecimal("12.50"));
+        produtoService.atualizarProdutoPorId(alterado.getIdProduto(), alterado);
+        assertTrue(produtoRepository.findById(alterado.getIdProduto()).orElseThrow().isReprecificacaoPendente());
+
+        // Um item por lote: cada carrinho aberto é reprecificado em uma transação
+        assertEquals(1, reprecificacaoService.reprecificarPendentes(10, 1));
+        assertEquals(0, reprecificacaoService.reprecificarPendentes(10, 1));
+
+        for (Long idCarrinho : new Long[]{aberto1, aberto2}) {
+            assertEquals(0, new BigDecimal("25.00").compareTo(precoItem(idCarrinho, alterado.getIdProduto())));
+            assertEquals(0, new BigDecimal("30.00").compareTo(total(idCarrinho)));
+        }
+        assertEquals(versaoAntes + 1, versao(aberto1));
+        assertEquals(0, new BigDecimal("20.00").compareTo(precoItem(finalizado, alterado.getIdProduto())));
+        assertEquals(0, new BigDecimal("25.00").compareTo(total(finalizado)));
+        assertFalse(produtoRepository.findById(alterado.getIdProduto()).orElseThrow().isReprecificacaoPendente());
+    }
+
+    private ProdutoDTO cadastrarProduto(String nome, String preco) {
+        return produtoService.cadastrarProduto(ProdutoDTO.builder()
+                .nomeProduto(nome)
+                .marcaProduto("Marca")
+                .modeloProduto(nome)
+                .especificacaoProduto("Especificação")
+                .precoProduto(new BigDecimal(preco))
+                .build());
+    }
+
+    private BigDecimal precoItem(Long idCarrinho, Long idProduto) {
+        return jdbcTemplate.queryForObject("select preco_total from produtos_carrinho where carrinho_id_carrinho = ? and produto_id_produto = ?",
+                BigDecimal.class, idCarrinho, idProduto);
+    }
+
+    private BigDecimal total(Long idCarrinho) {
+        return jdbcTemplate.queryForObject("select valor_total_carrinho from carrinhos where id_carrinho = ?", BigDecimal.class, idCarrinho);
+    }
+
+    private long versao(Long idCarrinho) {
+        return jdbcTemplate.queryForObject("select versao from carrinhos where id_carrinho = ?", Long.class, idCarrinho);
+    }
+}
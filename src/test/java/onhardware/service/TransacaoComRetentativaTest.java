@@ -0,0 +1,50 @@
+package onhardware.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class TransacaoComRetentativaTest {
+
+    @Autowired
+    private TransacaoComRetentativa transacaoComRetentativa;
+
+    @Test
+    void itemDuplicadoNaParticaoEDisputaERepete() {
+        AtomicInteger tentativas = new AtomicInteger();
+
+        String resultado = transacaoComRetentativa.executar(() -> {
+            if (tentativas.incrementAndGet() < 3) {
+                throw violacao("duplicate key value violates unique constraint "
+                        + "\"produtos_carrinho_2026_10_carrinho_id_carrinho_produto_id_p_key\"");
+            }
+            return "gravado";
+        });
+
+        assertEquals("gravado", resultado);
+        assertEquals(3, tentativas.get());
+    }
+
+    @Test
+    void chavePrimariaDuplicadaNaoEDisputa() {
+        AtomicInteger tentativas = new AtomicInteger();
+
+        assertThrows(DataIntegrityViolationException.class, () -> transacaoComRetentativa.executar(() -> {
+            tentativas.incrementAndGet();
+            throw violacao("duplicate key value violates unique constraint \"produtos_carrinho_2026_10_pkey\"");
+        }));
+        assertEquals(1, tentativas.get());
+    }
+
+    private DataIntegrityViolationException violacao(String mensagem) {
+        return new DataIntegrityViolationException("could not execute statement", new SQLException(mensagem, "23505"));
+    }
+}
@@ -0,0 +1,117 @@
+package onhardware.service;
+
+import onhardware.DTO.ResumoVendasDTO;
+import onhardware.DTO.VendaDiaDTO;
+import onhardware.DTO.VendaMarcaDTO;
+import onhardware.DTO.VendaProdutoDTO;
+import onhardware.model.ItemPedido;
+import onhardware.model.Pedido;
+import onhardware.repository.PedidoRepository;
+import onhardware.repository.VendaDiaRepository;
+import onhardware.repository.VendaMarcaDiaRepository;
+import onhardware.repository.VendaProdutoDiaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class VendasServiceTest {
+
+    private static long proximoCarrinho = 1;
+
+    @Autowired
+    private VendasService vendasService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private VendaDiaRepository vendaDiaRepository;
+
+    @Autowired
+    private VendaProdutoDiaRepository vendaProdutoDiaRepository;
+
+    @Autowired
+    private VendaMarcaDiaRepository vendaMarcaDiaRepository;
+
+    @AfterEach
+    void tearDown() {
+        pedidoRepository.deleteAll();
+        vendaDiaRepository.deleteAll();
+        vendaProdutoDiaRepository.deleteAll();
+        vendaMarcaDiaRepository.deleteAll();
+    }
+
+    @Test
+    void pedidosSaoSomadosUmaUnicaVezAosTotais() {
+        registrarPedido(item(1L, "GPU", "NV", 2, "200.00"), item(2L, "CPU", "AM", 1, "50.00"));
+        registrarPedido(item(1L, "GPU", "NV", 1, "100.00"));
+
+        // Lotes de 1 pedido: a segunda chamada já encontra as linhas do dia e soma por UPDATE
+        assertEquals(1, vendasService.contabilizarPedidos(1));
+        assertEquals(1, vendasService.contabilizarPedidos(1));
+        assertEquals(0, vendasService.contabilizarPedidos(1));
+
+        LocalDate hoje = LocalDate.now();
+        ResumoVendasDTO resumo = vendasService.resumirVendas(hoje, hoje);
+        assertEquals(2, resumo.getPedidos());
+        assertEquals(4, resumo.getUnidades());
+        assertEquals(0, new BigDecimal("350.00").compareTo(resumo.getValorTotal()));
+        assertEquals(new BigDecimal("175.00"), resumo.getTicketMedio());
+
+        List<VendaProdutoDTO> produtos = vendasService.listarProdutosMaisVendidos(hoje, hoje, 10);
+        assertEquals(1L, produtos.get(0).getIdProduto());
+        assertEquals(3, produtos.get(0).getUnidades());
+        assertEquals(2, produtos.size());
+
+        List<VendaMarcaDTO> marcas = vendasService.listarVendasPorMarca(hoje, hoje);
+        assertEquals("NV", marcas.get(0).getMarcaProduto());
+        assertEquals(0, new BigDecimal("300.00").compareTo(marcas.get(0).getValorTotal()));
+
+        // Dias sem venda aparecem zerados
+        List<VendaDiaDTO> dias = vendasService.listarVendasPorDia(hoje.minusDays(2), hoje);
+        assertEquals(3, dias.size());
+        assertEquals(0, dias.get(0).getPedidos());
+        assertEquals(2, dias.get(2).getPedidos());
+    }
+
+    @Test
+    void periodoInvalidoEhRecusado() {
+        LocalDate hoje = LocalDate.now();
+        assertThrows(IllegalArgumentException.class, () -> vendasService.resumirVendas(hoje, hoje.minusDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> vendasService.listarVendasPorDia(hoje.minusYears(2), hoje));
+    }
+
+    private void registrarPedido(ItemPedido... itens) {
+        Pedido pedido = Pedido.builder()
+                .idCarrinho(proximoCarrinho++)
+                .idCheckout(1L)
+                .valorTotalPedido(BigDecimal.ZERO)
+                .build();
+        for (ItemPedido item : itens) {
+            item.setPedido(pedido);
+            pedido.getItens().add(item);
+            pedido.setValorTotalPedido(pedido.getValorTotalPedido().add(item.getPrecoTotal()));
+        }
+        pedidoRepository.save(pedido);
+    }
+
+    private ItemPedido item(Long idProduto, String nome, String marca, int quantidade, String precoTotal) {
+        return ItemPedido.builder()
+                .idProduto(idProduto)
+                .nomeProduto(nome)
+                .marcaProduto(marca)
+                .quantidade(quantidade)
+                .precoUnitario(new BigDecimal(precoTotal).divide(BigDecimal.valueOf(quantidade)))
+                .precoTotal(new BigDecimal(precoTotal))
+                .build();
+    }
+}